@@ -0,0 +1,51 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.configuration.CatalogProperties;
+import com.andrei.restapi.configuration.UpstreamProperties;
+import com.andrei.restapi.model.external.ExternalProducts;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Reports the heap retained by a refreshed catalog, measured with JOL as the footprint of the catalog snapshot and the
+ * {@link MappedProductCache} kept for the next refresh. Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.main=com.andrei.restapi.service.CatalogFootprint -Djmh.args="100000"}
+ * for a synthetic catalog of 100k products. Add {@code -Djmh.args="100000 -v"} for a table of instances per class.
+ */
+public final class CatalogFootprint {
+
+    private CatalogFootprint() {
+    }
+
+    public static void main(final String[] args) throws IOException, ReflectiveOperationException {
+        final int size = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        // Decoded from JSON like an upstream response, so strings are not shared with the generator
+        final ObjectMapper objectMapper = new ObjectMapper();
+        final ExternalProducts externalProducts = new ExternalProductsReader(objectMapper.getFactory())
+                .read(new ByteArrayInputStream(objectMapper.writeValueAsBytes(SyntheticCatalog.generate(size, 42))));
+
+        final ProductService productService = new ProductService(() -> SyntheticCatalog.generate(0, 0),
+                () -> CompletableFuture.completedFuture(SyntheticCatalog.generate(0, 0)),
+                new CatalogProperties(), objectMapper, new PriceFormatter(),
+                new ProductMetrics(new SimpleMeterRegistry()),
+                new UpstreamResilience(new UpstreamProperties(), new SimpleMeterRegistry()));
+        final CatalogSnapshot snapshot = productService.createSnapshot(0, Instant.now(), externalProducts);
+        final Field mappedProductCache = ProductService.class.getDeclaredField("mappedProductCache");
+        mappedProductCache.setAccessible(true);
+        final GraphLayout layout = GraphLayout.parseInstance(snapshot, mappedProductCache.get(productService));
+
+        if (args.length > 1 && args[1].equals("-v")) {
+            System.out.println(layout.toFootprint());
+        }
+        final int reducedProducts = snapshot.getTable().size();
+        System.out.printf("%d products, %d with a price reduction, %d bytes retained, %d bytes per reduced product%n",
+                size, reducedProducts, layout.totalSize(), layout.totalSize() / Math.max(1, reducedProducts));
+    }
+}
@@ -0,0 +1,79 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.configuration.CatalogProperties;
+import com.andrei.restapi.configuration.UpstreamProperties;
+import com.andrei.restapi.model.external.ExternalProduct;
+import com.andrei.restapi.model.external.ExternalProducts;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building a catalog snapshot of every label type, including JSON and gzip, when a share of the products
+ * changed since the previous refresh. Refreshes alternate between two catalogs that differ in {@code changedPercent}
+ * of their products; at 100 every product is mapped and serialized again, as before refreshes were incremental.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CatalogRefreshBenchmark {
+
+    @Param({"10000", "100000"})
+    private int size;
+
+    @Param({"0", "1", "10", "100"})
+    private int changedPercent;
+
+    private ProductService productService;
+
+    private ExternalProducts[] catalogs;
+
+    private long version;
+
+    @Setup
+    public void setUp() {
+        productService = new ProductService(() -> SyntheticCatalog.generate(0, 0),
+                () -> CompletableFuture.completedFuture(SyntheticCatalog.generate(0, 0)),
+                new CatalogProperties(), new ObjectMapper(), new PriceFormatter(),
+                new ProductMetrics(new SimpleMeterRegistry()),
+                new UpstreamResilience(new UpstreamProperties(), new SimpleMeterRegistry()));
+
+        final List<ExternalProduct> products = SyntheticCatalog.generate(size, 42).getProducts();
+        final List<ExternalProduct> repriced = SyntheticCatalog.generate(size, 43).getProducts();
+        final List<ExternalProduct> changed = new ArrayList<>(products);
+        for (int i = 0; i < size; i += 100) {
+            for (int j = i; j < Math.min(i + changedPercent, size); j++) {
+                changed.set(j, repriced.get(j));
+            }
+        }
+        catalogs = new ExternalProducts[]{
+                ExternalProducts.builder().products(products).build(),
+                ExternalProducts.builder().products(changed).build()};
+        productService.createSnapshot(version++, Instant.now(), catalogs[0]);
+    }
+
+    @Benchmark
+    public CatalogSnapshot refresh() {
+        final long refreshVersion = version++;
+        return productService.createSnapshot(refreshVersion, Instant.now(), catalogs[(int) (refreshVersion % 2)]);
+    }
+}
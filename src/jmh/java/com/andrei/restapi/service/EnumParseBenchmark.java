@@ -0,0 +1,49 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.BasicColor;
+import com.andrei.restapi.model.PriceLabelType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the enum parsers called for every color swatch and every request, cycling through all values as they are
+ * sent by the external API and by clients.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class EnumParseBenchmark {
+
+    private static final String[] BASIC_COLORS = {"Red", "Pink", "Orange", "Yellow", "Purple", "Green", "Blue", "Brown",
+            "White", "Grey", "Black", "Multi"};
+
+    private static final String[] PRICE_LABEL_TYPES = {"ShowWasNow", "ShowWasThenNow", "ShowPercDiscount"};
+
+    private int nextBasicColor;
+
+    private int nextPriceLabelType;
+
+    @Benchmark
+    public BasicColor basicColorParse() {
+        nextBasicColor = nextBasicColor == BASIC_COLORS.length - 1 ? 0 : nextBasicColor + 1;
+        return BasicColor.parse(BASIC_COLORS[nextBasicColor]);
+    }
+
+    @Benchmark
+    public PriceLabelType priceLabelTypeParse() {
+        nextPriceLabelType = nextPriceLabelType == PRICE_LABEL_TYPES.length - 1 ? 0 : nextPriceLabelType + 1;
+        return PriceLabelType.parse(PRICE_LABEL_TYPES[nextPriceLabelType]);
+    }
+}
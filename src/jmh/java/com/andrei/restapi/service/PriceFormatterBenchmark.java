@@ -0,0 +1,97 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.Currency;
+import com.andrei.restapi.model.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link PriceFormatter} against the previous shared {@link DecimalFormat} and {@link String#format} labels.
+ * Run with {@code -prof gc} to compare allocation per label. The previous formatting is only correct single threaded,
+ * so compare both with the default single benchmark thread.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PriceFormatterBenchmark {
+
+    private static final int PRICES = 1024;
+
+    private static final DecimalFormat DECIMAL_FORMAT = new DecimalFormat(".00");
+
+    private static final DecimalFormat INTEGER_FORMAT = new DecimalFormat();
+
+    private final PriceFormatter priceFormatter = new PriceFormatter();
+
+    private final Money[] wasPrices = new Money[PRICES];
+
+    private final Money[] nowPrices = new Money[PRICES];
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        for (int i = 0; i < PRICES; i++) {
+            nowPrices[i] = Money.of(100 + random.nextInt(20000), Currency.GBP);
+            wasPrices[i] = Money.of(nowPrices[i].getMinorUnits() + (random.nextBoolean() ? 100 : 1) * random.nextInt(100),
+                    Currency.GBP);
+        }
+    }
+
+    @Benchmark
+    public String decimalFormatWasNow() {
+        final int index = nextIndex();
+        return String.format("Was %s, now %s", formatPrice(wasPrices[index]), formatPrice(nowPrices[index]));
+    }
+
+    @Benchmark
+    public String priceFormatterWasNow() {
+        final int index = nextIndex();
+        return priceFormatter.formatWasNow(wasPrices[index], nowPrices[index]);
+    }
+
+    @Benchmark
+    public String decimalFormatPercentDiscount() {
+        final int index = nextIndex();
+        return String.format("%s off - now %s", wasPrices[index].minus(nowPrices[index]).percentageOf(wasPrices[index]) + "%",
+                formatPrice(nowPrices[index]));
+    }
+
+    @Benchmark
+    public String priceFormatterPercentDiscount() {
+        final int index = nextIndex();
+        return priceFormatter.formatPercentDiscount(wasPrices[index].minus(nowPrices[index]).percentageOf(wasPrices[index]),
+                nowPrices[index]);
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (PRICES - 1);
+        return next;
+    }
+
+    private static String formatPrice(final Money price) {
+        final BigDecimal amount = BigDecimal.valueOf(price.getMinorUnits(), 2);
+        if (price.getMinorUnits() >= 10 * Money.MINOR_UNITS_PER_MAJOR_UNIT
+                && price.getMinorUnits() % Money.MINOR_UNITS_PER_MAJOR_UNIT == 0) {
+            return price.getCurrency().getSymbol() + INTEGER_FORMAT.format(amount);
+        }
+        return price.getCurrency().getSymbol() + DECIMAL_FORMAT.format(amount);
+    }
+}
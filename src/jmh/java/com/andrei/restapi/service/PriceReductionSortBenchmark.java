@@ -0,0 +1,112 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.external.ExternalPrice;
+import com.andrei.restapi.model.external.ExternalProduct;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.andrei.restapi.model.external.ExternalPrice.NOW_PRICE_TO_FIELD_NAME;
+
+/**
+ * Compares sorting by price reduction with a comparator that parses prices on every comparison against parsing
+ * {@link PriceFacts} once and ordering a primitive key array with {@link PriceReductionOrder}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PriceReductionSortBenchmark {
+
+    @Param({"100000"})
+    private int size;
+
+    private List<ExternalProduct> externalProducts;
+
+    @Setup
+    public void setUp() {
+        externalProducts = SyntheticCatalog.generate(size, 42).getProducts();
+    }
+
+    @Benchmark
+    public List<ExternalProduct> parsePerComparison() {
+        return externalProducts.stream()
+                .filter(externalProduct -> getPriceReduction(externalProduct.getPrice()) != 0)
+                .sorted((product1, product2) -> Double.compare(getPriceReduction(product2.getPrice()),
+                        getPriceReduction(product1.getPrice())))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<PricedProduct> priceFactsOnce() {
+        final List<PricedProduct> reduced = new ArrayList<>();
+        for (final ExternalProduct externalProduct : externalProducts) {
+            final PriceFacts priceFacts = PriceFacts.of(externalProduct.getPrice());
+            if (priceFacts.hasPriceReduction()) {
+                reduced.add(new PricedProduct(externalProduct, priceFacts));
+            }
+        }
+
+        final long[] reductions = new long[reduced.size()];
+        for (int i = 0; i < reductions.length; i++) {
+            reductions[i] = reduced.get(i).getPriceFacts().getReduction();
+        }
+
+        final List<PricedProduct> sorted = new ArrayList<>(reductions.length);
+        for (final int index : PriceReductionOrder.highestFirst(reductions)) {
+            sorted.add(reduced.get(index));
+        }
+        return sorted;
+    }
+
+    /*
+     * Price parsing as done before PriceFacts, once per call.
+     */
+
+    private static double getPriceReduction(final ExternalPrice externalPrice) {
+        if (!extractWasPrice(externalPrice).isPresent()) {
+            return 0;
+        }
+        return extractWasPrice(externalPrice).get() - extractNowPrice(externalPrice);
+    }
+
+    private static double extractNowPrice(final ExternalPrice externalPrice) {
+        String nowPriceText = "";
+
+        final JsonNode nowNode = externalPrice.getNow();
+        if (nowNode.isTextual()) {
+            nowPriceText = externalPrice.getNow().asText();
+        }
+        if (nowNode.isObject()) {
+            nowPriceText = nowNode.get(NOW_PRICE_TO_FIELD_NAME).asText();
+        }
+
+        return Double.parseDouble(nowPriceText);
+    }
+
+    private static Optional<Double> extractWasPrice(final ExternalPrice externalPrice) {
+        final String wasPrice = externalPrice.getWas();
+        if (StringUtils.isBlank(wasPrice)) {
+            return Optional.empty();
+        }
+        return Optional.of(Double.parseDouble(wasPrice));
+    }
+}
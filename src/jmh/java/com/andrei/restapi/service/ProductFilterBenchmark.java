@@ -0,0 +1,123 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.BasicColor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares answering a {@link ProductFilter} from the indexes of a {@link ProductTable} against scanning its columns,
+ * for a selective query, a color with a price band, and a broad one. Large sizes need a larger heap, e.g.
+ * {@code -jvmArgs -Xmx4g}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ProductFilterBenchmark {
+
+    private static final ProductFilter SELECTIVE = ProductFilter.builder().minReduction(9000L).build();
+
+    private static final ProductFilter COLOR_AND_PRICE_BAND = ProductFilter.builder()
+            .color(BasicColor.RED)
+            .minNowPrice(2000L)
+            .maxNowPrice(2500L)
+            .build();
+
+    private static final ProductFilter BROAD = ProductFilter.builder().minDiscount(10).build();
+
+    @Param({"100000", "1000000"})
+    private int size;
+
+    private ProductTable table;
+
+    @Setup
+    public void setUp() {
+        final List<PricedProduct> pricedProducts = PriceReductionOrder.highestFirst(SyntheticCatalog.generate(size, 42)
+                .getProducts().stream()
+                .map(externalProduct -> new PricedProduct(externalProduct, PriceFacts.of(externalProduct.getPrice())))
+                .filter(pricedProduct -> pricedProduct.getPriceFacts().hasPriceReduction())
+                .collect(Collectors.toList()), pricedProduct -> pricedProduct.getPriceFacts().getReduction());
+        table = ProductTable.of(pricedProducts, new PriceFormatter());
+    }
+
+    @Benchmark
+    public int[] selectiveIndex() {
+        return table.find(SELECTIVE);
+    }
+
+    @Benchmark
+    public int[] selectiveScan() {
+        return scan(SELECTIVE);
+    }
+
+    @Benchmark
+    public int[] colorAndPriceBandIndex() {
+        return table.find(COLOR_AND_PRICE_BAND);
+    }
+
+    @Benchmark
+    public int[] colorAndPriceBandScan() {
+        return scan(COLOR_AND_PRICE_BAND);
+    }
+
+    @Benchmark
+    public int[] broadIndex() {
+        return table.find(BROAD);
+    }
+
+    @Benchmark
+    public int[] broadScan() {
+        return scan(BROAD);
+    }
+
+    private int[] scan(final ProductFilter filter) {
+        final int[] rows = new int[table.size()];
+        int count = 0;
+        for (int row = 0; row < table.size(); row++) {
+            if (matches(row, filter)) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    private boolean matches(final int row, final ProductFilter filter) {
+        if (filter.getMinReduction() != null && table.getReduction(row) < filter.getMinReduction()) {
+            return false;
+        }
+        if (filter.getMinDiscount() != null && table.getPercentDiscount(row) < filter.getMinDiscount()) {
+            return false;
+        }
+        if (filter.getMinNowPrice() != null && table.getNowPrice(row) < filter.getMinNowPrice()) {
+            return false;
+        }
+        if (filter.getMaxNowPrice() != null && table.getNowPrice(row) > filter.getMaxNowPrice()) {
+            return false;
+        }
+        if (filter.getColor() == null) {
+            return true;
+        }
+        for (int swatch = 0; swatch < table.getColorSwatchCount(row); swatch++) {
+            if (table.getBasicColor(row, swatch) == filter.getColor()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,113 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.PriceLabelType;
+import com.andrei.restapi.model.external.ExternalProduct;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the product pipeline run when a catalog snapshot is built, as {@link ProductService} runs it: diffing the
+ * external products with {@link MappedProductCache}, which prices, hashes and sorts them by price reduction, then
+ * creating the {@link ProductTable} and writing the JSON of every label type. Unlike {@link CatalogRefreshBenchmark} it
+ * leaves out hashing and gzip compression of the views.
+ * <p>
+ * Refreshes alternate between two catalogs that differ in {@code changedPercent} of their products. At 100 every
+ * product is parsed, mapped and serialized again, as on a full refresh. At lower percentages unchanged rows and JSON
+ * are copied from the previous refresh.
+ * <p>
+ * Run with {@code -prof gc}; {@code gc.alloc.rate.norm} is per refresh, divide it by the number of reduced products
+ * (about 60% of {@code size}) for allocation per product. Large sizes need a larger heap, e.g.
+ * {@code -jvmArgs -Xmx4g}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ProductPipelineBenchmark {
+
+    private static final byte[] PRODUCTS_JSON_PREFIX = "{\"products\":[".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] PRODUCTS_JSON_SUFFIX = "]}".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int size;
+
+    @Param({"1", "10", "100"})
+    private int changedPercent;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final PriceFormatter priceFormatter = new PriceFormatter();
+
+    private MappedProductCache mappedProductCache;
+
+    private List<ExternalProduct>[] catalogs;
+
+    private int refreshes;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        final List<ExternalProduct> products = SyntheticCatalog.generate(size, 42).getProducts();
+        final List<ExternalProduct> repriced = SyntheticCatalog.generate(size, 43).getProducts();
+        final List<ExternalProduct> changed = new ArrayList<>(products);
+        for (int i = 0; i < size; i += 100) {
+            for (int j = i; j < Math.min(i + changedPercent, size); j++) {
+                changed.set(j, repriced.get(j));
+            }
+        }
+        catalogs = new List[]{products, changed};
+        mappedProductCache = new MappedProductCache();
+        refresh();
+    }
+
+    @Benchmark
+    public Map<PriceLabelType, ProductsView> refresh() {
+        final MappedProductCache.Changes changes = mappedProductCache.diff(catalogs[refreshes++ % 2]);
+        final ProductTable table = changes.createTable(priceFormatter);
+        final Map<PriceLabelType, ProductsView> views = new EnumMap<>(PriceLabelType.class);
+        for (final PriceLabelType priceLabelType : PriceLabelType.values()) {
+            final byte[] json = changes.writeJson(priceLabelType, PRODUCTS_JSON_PREFIX, PRODUCTS_JSON_SUFFIX,
+                    row -> serialize(table, row, priceLabelType));
+            views.put(priceLabelType, ProductsView.builder()
+                    .json(json)
+                    .productJsonOffsets(changes.getJsonOffsets(priceLabelType))
+                    .build());
+        }
+        mappedProductCache.commit(changes, table, views);
+        return views;
+    }
+
+    private byte[] serialize(final ProductTable table, final int row, final PriceLabelType priceLabelType) {
+        final ByteArrayBuilder buffer = new ByteArrayBuilder();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(buffer)) {
+            table.writeProduct(generator, row, priceLabelType);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,141 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.external.ExternalProduct;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares searching the titles of a {@link ProductTable} with its {@link ProductSearchIndex} against scanning every
+ * title for the query terms, for two rare terms, a common term, a term with a prefix typed so far and a one letter
+ * prefix, and measures building the index. Synthetic titles are made of a few words drawn from small vocabularies.
+ * Large sizes need a larger heap, e.g. {@code -jvmArgs -Xmx4g}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ProductSearchBenchmark {
+
+    private static final String[] ADJECTIVES = {"Classic", "Relaxed", "Slim", "Oversized", "Cropped", "Ribbed",
+            "Printed", "Striped", "Quilted", "Pleated", "Wrap", "Tailored", "Floral", "Belted", "Knitted", "Fitted"};
+
+    private static final String[] MATERIALS = {"Cotton", "Linen", "Wool", "Cashmere", "Silk", "Denim", "Leather",
+            "Velvet", "Jersey", "Satin", "Chiffon", "Tweed"};
+
+    private static final String[] GARMENTS = {"Dress", "Shirt", "Blouse", "Jumper", "Cardigan", "Coat", "Jacket",
+            "Trousers", "Jeans", "Skirt", "Shorts", "Top", "Gilet", "Blazer", "Hoodie", "Dressing Gown", "Scarf"};
+
+    @Param({"100000", "1000000"})
+    private int size;
+
+    private ProductTable table;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(7);
+        final List<PricedProduct> pricedProducts = new ArrayList<>();
+        for (final ExternalProduct product : SyntheticCatalog.generate(size, 42).getProducts()) {
+            final ExternalProduct titled = ExternalProduct.builder()
+                    .productId(product.getProductId())
+                    .title(title(random))
+                    .price(product.getPrice())
+                    .colorSwatches(product.getColorSwatches())
+                    .build();
+            final PricedProduct pricedProduct = new PricedProduct(titled, PriceFacts.of(titled.getPrice()));
+            if (pricedProduct.getPriceFacts().hasPriceReduction()) {
+                pricedProducts.add(pricedProduct);
+            }
+        }
+        table = ProductTable.of(PriceReductionOrder.highestFirst(pricedProducts,
+                pricedProduct -> pricedProduct.getPriceFacts().getReduction()), new PriceFormatter());
+    }
+
+    @Benchmark
+    public int[] rareTermIndex() {
+        return table.search("cashmere wrap ");
+    }
+
+    @Benchmark
+    public int[] rareTermScan() {
+        return scan("cashmere wrap ");
+    }
+
+    @Benchmark
+    public int[] commonTermIndex() {
+        return table.search("dress ");
+    }
+
+    @Benchmark
+    public int[] commonTermScan() {
+        return scan("dress ");
+    }
+
+    @Benchmark
+    public int[] typeaheadIndex() {
+        return table.search("linen sh");
+    }
+
+    @Benchmark
+    public int[] typeaheadScan() {
+        return scan("linen sh");
+    }
+
+    @Benchmark
+    public int[] oneLetterPrefixIndex() {
+        return table.search("s");
+    }
+
+    @Benchmark
+    public ProductSearchIndex buildIndex() {
+        return ProductSearchIndex.of(table);
+    }
+
+    /**
+     * Rows whose lower cased title contains every term of the query, unranked.
+     */
+    private int[] scan(final String query) {
+        final String[] queryTerms = query.trim().toLowerCase(Locale.ROOT).split(" ");
+        final int[] rows = new int[table.size()];
+        int count = 0;
+        for (int row = 0; row < table.size(); row++) {
+            final String title = table.getTitle(row).toLowerCase(Locale.ROOT);
+            boolean matches = true;
+            for (final String queryTerm : queryTerms) {
+                matches &= title.contains(queryTerm);
+            }
+            if (matches) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    private static String title(final Random random) {
+        final StringBuilder title = new StringBuilder();
+        if (random.nextBoolean()) {
+            title.append(ADJECTIVES[random.nextInt(ADJECTIVES.length)]).append(' ');
+        }
+        return title.append(MATERIALS[random.nextInt(MATERIALS.length)])
+                .append(' ')
+                .append(GARMENTS[random.nextInt(GARMENTS.length)])
+                .toString();
+    }
+}
@@ -0,0 +1,108 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.BasicColor;
+import com.andrei.restapi.model.ColorSwatch;
+import com.andrei.restapi.model.PriceLabelType;
+import com.andrei.restapi.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares scanning the reduced products of a catalog held as objects, {@link PricedProduct} for prices and mapped
+ * {@link Product} for colors, against scanning the columns of a {@link ProductTable}. Large sizes need a larger heap,
+ * e.g. {@code -jvmArgs -Xmx4g}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ProductTableScanBenchmark {
+
+    private static final long MIN_REDUCTION = 1000;
+
+    @Param({"100000", "1000000"})
+    private int size;
+
+    private List<PricedProduct> pricedProducts;
+
+    private List<Product> products;
+
+    private ProductTable table;
+
+    @Setup
+    public void setUp() {
+        pricedProducts = PriceReductionOrder.highestFirst(SyntheticCatalog.generate(size, 42).getProducts().stream()
+                .map(externalProduct -> new PricedProduct(externalProduct, PriceFacts.of(externalProduct.getPrice())))
+                .filter(pricedProduct -> pricedProduct.getPriceFacts().hasPriceReduction())
+                .collect(Collectors.toList()), pricedProduct -> pricedProduct.getPriceFacts().getReduction());
+        table = ProductTable.of(pricedProducts, new PriceFormatter());
+        products = new ArrayList<>(table.getProducts(PriceLabelType.SHOW_WAS_NOW));
+    }
+
+    @Benchmark
+    public long nowPriceOfReducedObjects() {
+        long total = 0;
+        for (final PricedProduct pricedProduct : pricedProducts) {
+            if (pricedProduct.getPriceFacts().getReduction() >= MIN_REDUCTION) {
+                total += pricedProduct.getPriceFacts().getNowPrice().getMinorUnits();
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long nowPriceOfReducedColumns() {
+        long total = 0;
+        for (int row = 0; row < table.size(); row++) {
+            if (table.getReduction(row) >= MIN_REDUCTION) {
+                total += table.getNowPrice(row);
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int redProductsObjects() {
+        final String red = BasicColor.RED.getRgb();
+        int count = 0;
+        for (final Product product : products) {
+            for (final ColorSwatch colorSwatch : product.getColorSwatches()) {
+                if (red.equals(colorSwatch.getRgbColor())) {
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int redProductsColumns() {
+        int count = 0;
+        for (int row = 0; row < table.size(); row++) {
+            for (int swatch = 0; swatch < table.getColorSwatchCount(row); swatch++) {
+                if (table.getBasicColor(row, swatch) == BasicColor.RED) {
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,85 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.external.ExternalColorSwatch;
+import com.andrei.restapi.model.external.ExternalPrice;
+import com.andrei.restapi.model.external.ExternalProduct;
+import com.andrei.restapi.model.external.ExternalProducts;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.andrei.restapi.model.external.ExternalPrice.NOW_PRICE_TO_FIELD_NAME;
+
+/**
+ * Generates reproducible external catalogs for benchmarks.
+ */
+final class SyntheticCatalog {
+
+    private static final String[] BASIC_COLORS = {"Red", "Pink", "Orange", "Yellow", "Purple", "Green", "Blue", "Brown",
+            "White", "Grey", "Black", "Multi"};
+
+    private SyntheticCatalog() {
+    }
+
+    static ExternalProducts generate(final int size, final long seed) {
+        final Random random = new Random(seed);
+        final List<ExternalProduct> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(ExternalProduct.builder()
+                    .productId(String.valueOf(3000000 + i))
+                    .title("Product " + i)
+                    .price(price(random))
+                    .colorSwatches(colorSwatches(random))
+                    .build());
+        }
+        return ExternalProducts.builder().products(products).build();
+    }
+
+    private static ExternalPrice price(final Random random) {
+        final int nowPence = 100 + random.nextInt(20000);
+        final boolean reduced = random.nextInt(10) < 6;
+        final int wasPence = reduced ? nowPence + 1 + random.nextInt(10000) : 0;
+
+        final ExternalPrice.ExternalPriceBuilder price = ExternalPrice.builder()
+                .currency("GBP")
+                .was(reduced ? format(wasPence) : "");
+        if (reduced && random.nextInt(4) == 0) {
+            price.then(format(nowPence + (wasPence - nowPence) / 2));
+        }
+        if (reduced && random.nextInt(8) == 0) {
+            price.then2(format(nowPence + (wasPence - nowPence) / 3));
+        }
+
+        if (random.nextInt(5) == 0) {
+            final ObjectNode now = JsonNodeFactory.instance.objectNode();
+            now.put("from", format(nowPence / 2));
+            now.put(NOW_PRICE_TO_FIELD_NAME, format(nowPence));
+            price.now(now);
+        } else {
+            price.now(TextNode.valueOf(format(nowPence)));
+        }
+        return price.build();
+    }
+
+    private static List<ExternalColorSwatch> colorSwatches(final Random random) {
+        final int size = random.nextInt(4);
+        final List<ExternalColorSwatch> colorSwatches = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final String basicColor = BASIC_COLORS[random.nextInt(BASIC_COLORS.length)];
+            colorSwatches.add(ExternalColorSwatch.builder()
+                    .color(basicColor)
+                    .basicColor(basicColor)
+                    .skuId(String.valueOf(237000000 + random.nextInt(1000000)))
+                    .build());
+        }
+        return colorSwatches;
+    }
+
+    private static String format(final int pence) {
+        return (pence / 100) + "." + (pence % 100 < 10 ? "0" : "") + (pence % 100);
+    }
+}
@@ -0,0 +1,114 @@
+package com.andrei.restapi.load;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings of a load test run. Parsed from {@code --name=value} arguments, any argument that is not a load test setting
+ * is passed on to the application, e.g. {@code --serving.mode=async}.
+ */
+@Value
+@Builder
+class LoadConfig {
+
+    /**
+     * Number of products served by the upstream stub.
+     */
+    private final int catalogSize;
+
+    /**
+     * Fraction of products with a was price.
+     */
+    private final double reducedRatio;
+
+    /**
+     * Fraction of reduced products with a then price.
+     */
+    private final double thenRatio;
+
+    /**
+     * Fraction of products whose now price is a {@code {"from", "to"}} object.
+     */
+    private final double toNowRatio;
+
+    private final int maxColorSwatches;
+
+    /**
+     * Median and 99th percentile of the log-normal upstream latency.
+     */
+    private final double latencyMedianMillis;
+
+    private final double latencyP99Millis;
+
+    /**
+     * Fraction of upstream requests answered with {@code 503}.
+     */
+    private final double errorRate;
+
+    private final long seed;
+
+    /**
+     * Intended request rate per second for each label type.
+     */
+    private final int rate;
+
+    private final int warmupSeconds;
+
+    private final int durationSeconds;
+
+    /**
+     * Number of concurrent client connections.
+     */
+    private final int connections;
+
+    /**
+     * Request header value sent as {@code Accept-Encoding}, none if empty.
+     */
+    private final String acceptEncoding;
+
+    private final List<String> applicationArgs;
+
+    static LoadConfig parse(final String[] args) {
+        final Map<String, String> settings = new HashMap<>();
+        final List<String> applicationArgs = new ArrayList<>();
+        for (final String arg : args) {
+            final int separator = arg.indexOf('=');
+            final String name = separator < 0 ? arg : arg.substring(0, separator);
+            if (name.startsWith("--load.")) {
+                settings.put(name.substring("--load.".length()), separator < 0 ? "" : arg.substring(separator + 1));
+            } else {
+                applicationArgs.add(arg);
+            }
+        }
+
+        final LoadConfig config = LoadConfig.builder()
+                .catalogSize(Integer.parseInt(settings.getOrDefault("catalog-size", "10000")))
+                .reducedRatio(Double.parseDouble(settings.getOrDefault("reduced-ratio", "0.3")))
+                .thenRatio(Double.parseDouble(settings.getOrDefault("then-ratio", "0.5")))
+                .toNowRatio(Double.parseDouble(settings.getOrDefault("to-now-ratio", "0.1")))
+                .maxColorSwatches(Integer.parseInt(settings.getOrDefault("max-color-swatches", "4")))
+                .latencyMedianMillis(Double.parseDouble(settings.getOrDefault("latency-median-ms", "50")))
+                .latencyP99Millis(Double.parseDouble(settings.getOrDefault("latency-p99-ms", "250")))
+                .errorRate(Double.parseDouble(settings.getOrDefault("error-rate", "0")))
+                .seed(Long.parseLong(settings.getOrDefault("seed", "42")))
+                .rate(Integer.parseInt(settings.getOrDefault("rate", "200")))
+                .warmupSeconds(Integer.parseInt(settings.getOrDefault("warmup-seconds", "10")))
+                .durationSeconds(Integer.parseInt(settings.getOrDefault("duration-seconds", "30")))
+                .connections(Integer.parseInt(settings.getOrDefault("connections", "32")))
+                .acceptEncoding(settings.getOrDefault("accept-encoding", ""))
+                .applicationArgs(applicationArgs)
+                .build();
+        settings.keySet().removeAll(List.of("catalog-size", "reduced-ratio", "then-ratio", "to-now-ratio",
+                "max-color-swatches", "latency-median-ms", "latency-p99-ms", "error-rate", "seed", "rate",
+                "warmup-seconds", "duration-seconds", "connections", "accept-encoding"));
+        if (!settings.isEmpty()) {
+            throw new IllegalArgumentException("Unknown load test settings " + settings.keySet());
+        }
+        return config;
+    }
+}
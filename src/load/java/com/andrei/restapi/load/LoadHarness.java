@@ -0,0 +1,75 @@
+package com.andrei.restapi.load;
+
+import com.andrei.restapi.ProductApiApplication;
+import com.andrei.restapi.model.PriceLabelType;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * End to end load test. Starts the application against a local {@link UpstreamStub}, drives {@code GET /products} for
+ * each label type at a fixed rate with an {@link OpenLoopDriver} and prints throughput and latency percentiles.
+ * <p>
+ * Run with {@code mvn -Pload test-compile exec:exec -Dload.args="--load.rate=500 --serving.mode=async"}, see
+ * {@link LoadConfig} for the settings.
+ */
+public final class LoadHarness {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private LoadHarness() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final LoadConfig config = LoadConfig.parse(args);
+
+        try (UpstreamStub upstream = new UpstreamStub(config)) {
+            final List<String> applicationArgs = new ArrayList<>(config.getApplicationArgs());
+            applicationArgs.add("--server.port=0");
+            applicationArgs.add("--externalProductApiUrl=" + upstream.getUrl());
+
+            try (ConfigurableApplicationContext context = SpringApplication.run(ProductApiApplication.class,
+                    applicationArgs.toArray(new String[0]));
+                 OpenLoopDriver driver = new OpenLoopDriver(
+                         "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort(),
+                         config.getConnections(), config.getAcceptEncoding())) {
+
+                for (final PriceLabelType labelType : PriceLabelType.values()) {
+                    driver.run(path(labelType), config.getRate(), config.getWarmupSeconds());
+                }
+
+                final Map<PriceLabelType, OpenLoopDriver.Result> results = new EnumMap<>(PriceLabelType.class);
+                for (final PriceLabelType labelType : PriceLabelType.values()) {
+                    results.put(labelType, driver.run(path(labelType), config.getRate(), config.getDurationSeconds()));
+                }
+                print(config, upstream, results);
+            }
+        }
+    }
+
+    private static String path(final PriceLabelType labelType) {
+        return "/products?labelType=" + labelType.getValue();
+    }
+
+    private static void print(final LoadConfig config, final UpstreamStub upstream,
+                              final Map<PriceLabelType, OpenLoopDriver.Result> results) {
+        System.out.printf("%nCatalog of %d products (%d bytes), %d req/s per label type for %d s, %d connections%n",
+                config.getCatalogSize(), upstream.getCatalogBytes(), config.getRate(), config.getDurationSeconds(),
+                config.getConnections());
+        System.out.printf("%-18s %9s %7s %10s %9s %9s %9s %9s%n",
+                "labelType", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        results.forEach((labelType, result) -> System.out.printf("%-18s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                labelType.getValue(), result.getRequests(), result.getErrors(), result.getThroughput(),
+                percentile(result, 50), percentile(result, 99), percentile(result, 99.9),
+                result.getLatencies().getMaxValue() / MICROS_PER_MILLI));
+    }
+
+    private static double percentile(final OpenLoopDriver.Result result, final double percentile) {
+        return result.getLatencies().getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+}
@@ -0,0 +1,135 @@
+package com.andrei.restapi.load;
+
+import lombok.Value;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a fixed rate regardless of how long earlier requests take. Latency is measured from the time a
+ * request was scheduled to be sent rather than from the time it was sent, so a stalled server is charged for every
+ * request it delayed and not only for the one it was serving (coordinated omission).
+ */
+final class OpenLoopDriver implements AutoCloseable {
+
+    private static final long NANOS_PER_MICRO = 1000;
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final String baseUrl;
+
+    private final String acceptEncoding;
+
+    private final ExecutorService executor;
+
+    OpenLoopDriver(final String baseUrl, final int connections, final String acceptEncoding) {
+        this.baseUrl = baseUrl;
+        this.acceptEncoding = acceptEncoding;
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(connections, connections, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable, "load-client-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Send {@code rate} requests per second to the given path for the given duration and wait for all of them to
+     * complete.
+     *
+     * @param path    the path and query of the requests
+     * @param rate    the intended requests per second
+     * @param seconds the duration
+     * @return {@link Result}
+     * @throws InterruptedException if interrupted while sending or waiting
+     */
+    Result run(final String path, final int rate, final int seconds) throws InterruptedException {
+        final URL url = toUrl(path);
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        final int requests = rate * seconds;
+        final Histogram latencies = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        final AtomicLong errors = new AtomicLong();
+        final CountDownLatch completed = new CountDownLatch(requests);
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            final long intendedStart = start + i * intervalNanos;
+            for (long wait = intendedStart - System.nanoTime(); wait > 0; wait = intendedStart - System.nanoTime()) {
+                LockSupport.parkNanos(wait);
+            }
+            executor.execute(() -> {
+                if (!send(url)) {
+                    errors.incrementAndGet();
+                }
+                latencies.recordValue((System.nanoTime() - intendedStart) / NANOS_PER_MICRO);
+                completed.countDown();
+            });
+        }
+        completed.await();
+        return new Result(requests, errors.get(), System.nanoTime() - start, latencies);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private boolean send(final URL url) {
+        try {
+            final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            if (!acceptEncoding.isEmpty()) {
+                connection.setRequestProperty("Accept-Encoding", acceptEncoding);
+            }
+            final int status = connection.getResponseCode();
+            // Reading the body to the end lets the connection be reused
+            try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (body != null) {
+                    body.readAllBytes();
+                }
+            }
+            return status == HttpURLConnection.HTTP_OK;
+        } catch (final IOException e) {
+            return false;
+        }
+    }
+
+    private URL toUrl(final String path) {
+        try {
+            return new URL(baseUrl + path);
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("Path " + path + " is not valid", e);
+        }
+    }
+
+    /**
+     * Outcome of a run. Latencies are in microseconds.
+     */
+    @Value
+    static class Result {
+
+        private final long requests;
+
+        private final long errors;
+
+        private final long elapsedNanos;
+
+        private final Histogram latencies;
+
+        double getThroughput() {
+            return requests * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.andrei.restapi.load;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in for the external product API. Serves a generated catalog after a log-normally distributed delay and
+ * fails a configurable fraction of requests with {@code 503}.
+ */
+final class UpstreamStub implements AutoCloseable {
+
+    private static final String[] BASIC_COLORS = {"Red", "Pink", "Orange", "Yellow", "Purple", "Green", "Blue", "Brown",
+            "White", "Grey", "Black", "Multi"};
+
+    /**
+     * z-score of the 99th percentile of a standard normal distribution.
+     */
+    private static final double Z_99 = 2.326;
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final byte[] catalog;
+
+    private final double latencyMu;
+
+    private final double latencySigma;
+
+    private final double errorRate;
+
+    UpstreamStub(final LoadConfig config) throws IOException {
+        this.catalog = generateCatalog(config);
+        this.latencyMu = Math.log(Math.max(config.getLatencyMedianMillis(), 0.001));
+        this.latencySigma = Math.max(Math.log(Math.max(config.getLatencyP99Millis(), config.getLatencyMedianMillis())
+                / Math.max(config.getLatencyMedianMillis(), 0.001)) / Z_99, 0);
+        this.errorRate = config.getErrorRate();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "upstream-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    int getCatalogBytes() {
+        return catalog.length;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            final long delayMicros = (long) (Math.exp(latencyMu + latencySigma * random.nextGaussian()) * 1000);
+            TimeUnit.MICROSECONDS.sleep(delayMicros);
+
+            if (random.nextDouble() < errorRate) {
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, catalog.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(catalog);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static byte[] generateCatalog(final LoadConfig config) {
+        final Random random = new Random(config.getSeed());
+        final ByteArrayOutputStream json = new ByteArrayOutputStream(config.getCatalogSize() * 400);
+        try (JsonGenerator generator = new JsonFactory().createGenerator(json)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("products");
+            for (int i = 0; i < config.getCatalogSize(); i++) {
+                writeProduct(generator, i, random, config);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return json.toByteArray();
+    }
+
+    private static void writeProduct(final JsonGenerator generator, final int index, final Random random,
+                                     final LoadConfig config) throws IOException {
+        final int nowPence = 100 + random.nextInt(20000);
+        final boolean reduced = random.nextDouble() < config.getReducedRatio();
+        final int wasPence = reduced ? nowPence + 1 + random.nextInt(10000) : 0;
+
+        generator.writeStartObject();
+        generator.writeStringField("productId", String.valueOf(3000000 + index));
+        generator.writeStringField("type", "product");
+        generator.writeStringField("title", "Product " + index);
+
+        generator.writeObjectFieldStart("price");
+        generator.writeStringField("was", reduced ? format(wasPence) : "");
+        generator.writeStringField("then1", reduced && random.nextDouble() < config.getThenRatio()
+                ? format(nowPence + (wasPence - nowPence) / 2) : "");
+        generator.writeStringField("then2", reduced && random.nextDouble() < config.getThenRatio() / 2
+                ? format(nowPence + (wasPence - nowPence) / 3) : "");
+        if (random.nextDouble() < config.getToNowRatio()) {
+            generator.writeObjectFieldStart("now");
+            generator.writeStringField("from", format(nowPence / 2));
+            generator.writeStringField("to", format(nowPence));
+            generator.writeEndObject();
+        } else {
+            generator.writeStringField("now", format(nowPence));
+        }
+        generator.writeStringField("uom", "");
+        generator.writeStringField("currency", "GBP");
+        generator.writeEndObject();
+
+        generator.writeArrayFieldStart("colorSwatches");
+        final int colorSwatches = random.nextInt(config.getMaxColorSwatches() + 1);
+        for (int i = 0; i < colorSwatches; i++) {
+            final String basicColor = BASIC_COLORS[random.nextInt(BASIC_COLORS.length)];
+            generator.writeStartObject();
+            generator.writeStringField("color", basicColor);
+            generator.writeStringField("basicColor", basicColor);
+            generator.writeStringField("colorSwatchUrl", "https://example.com/swatch/" + index + "/" + i);
+            generator.writeStringField("skuId", String.valueOf(237000000 + random.nextInt(1000000)));
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static String format(final int pence) {
+        return (pence / 100) + "." + (pence % 100 < 10 ? "0" : "") + (pence % 100);
+    }
+}
@@ -3,12 +3,14 @@ package com.andrei.restapi;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Application entry point.
  */
 @SpringBootApplication
 @EnableFeignClients(basePackages = {"com.andrei.restapi.service"})
+@EnableScheduling
 public class ProductApiApplication {
 
     public static void main(final String[] args) {
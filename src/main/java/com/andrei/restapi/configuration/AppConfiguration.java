@@ -1,6 +1,7 @@
 package com.andrei.restapi.configuration;
 
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import springfox.documentation.builders.ApiInfoBuilder;
@@ -14,6 +15,7 @@ import static springfox.documentation.builders.PathSelectors.ant;
 
 @EnableSwagger2
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class AppConfiguration {
 
     @Bean
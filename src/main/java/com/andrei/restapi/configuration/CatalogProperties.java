@@ -0,0 +1,53 @@
+package com.andrei.restapi.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Product catalog cache properties.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "catalog")
+public class CatalogProperties {
+
+    /**
+     * How long a fetched catalog is served as fresh. Zero disables caching.
+     */
+    private Duration ttl = Duration.ofMinutes(1);
+
+    /**
+     * How long after the TTL an expired catalog is still served while it is refreshed in the background.
+     */
+    private Duration staleWhileRevalidate = Duration.ofMinutes(5);
+
+    /**
+     * Whether the last good catalog is served when a refresh fails.
+     */
+    private boolean serveStaleOnError = true;
+
+    /**
+     * Delay between scheduled background refreshes.
+     */
+    private Duration refreshInterval = Duration.ofSeconds(30);
+
+    /**
+     * Number of most recent catalog versions kept so page cursors stay valid across refreshes.
+     */
+    private int retainedVersions = 3;
+
+    /**
+     * File the last fetched catalog is saved to and restored from at startup. The restored catalog is served like a
+     * fetched one of the same age, subject to the TTL, stale-while-revalidate and serve stale on error settings. Not
+     * saved if empty.
+     */
+    private String snapshotFile;
+
+    /**
+     * Maximum number of product ids of a batch get.
+     */
+    private int maxBatchGetIds = 100;
+}
@@ -0,0 +1,57 @@
+package com.andrei.restapi.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Properties of how product requests are served.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "serving")
+public class ServingProperties {
+
+    /**
+     * Whether requests are served on the servlet thread, released while the external API is called, or served by
+     * WebFlux on Netty (requires the {@code webflux} Maven profile).
+     */
+    private ServingMode mode = ServingMode.BLOCKING;
+
+    /**
+     * Number of threads calling the external API in async mode.
+     */
+    private int asyncPoolSize = 2;
+
+    /**
+     * Number of external API calls queued in async mode before further calls are rejected.
+     */
+    private int asyncQueueCapacity = 8;
+
+    /**
+     * Number of threads writing streamed responses.
+     */
+    private int streamPoolSize = 8;
+
+    /**
+     * Number of streamed responses queued before further streams are rejected with 503 Service Unavailable.
+     */
+    private int streamQueueCapacity = 16;
+
+    /**
+     * Time a streamed response may take to be written, replacing the default async request timeout of the container.
+     * Zero or negative for no timeout, so large catalogs reach slow clients in full.
+     */
+    private Duration streamTimeout = Duration.ofMillis(-1);
+
+    /**
+     * Serving mode.
+     */
+    public enum ServingMode {
+        BLOCKING,
+        ASYNC,
+        WEBFLUX
+    }
+}
@@ -0,0 +1,115 @@
+package com.andrei.restapi.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Properties of the HTTP client calling the external product API.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "upstream")
+public class UpstreamProperties {
+
+    /**
+     * Maximum number of idle connections kept in the pool.
+     */
+    private int maxIdleConnections = 5;
+
+    /**
+     * How long an idle connection is kept alive in the pool.
+     */
+    private Duration keepAlive = Duration.ofMinutes(5);
+
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    private Duration readTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Whether HTTP/2 is negotiated with servers that support it over TLS, otherwise HTTP/1.1 is used.
+     */
+    private boolean http2 = true;
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private Bulkhead bulkhead = new Bulkhead();
+
+    private Hedge hedge = new Hedge();
+
+    /**
+     * Circuit breaker failing calls fast while the external API is failing or slow.
+     */
+    @Data
+    public static class CircuitBreaker {
+
+        private boolean enabled = true;
+
+        /**
+         * Percentage of failed calls at which the circuit opens.
+         */
+        private float failureRateThreshold = 50;
+
+        /**
+         * Percentage of calls slower than the slow call duration threshold at which the circuit opens.
+         */
+        private float slowCallRateThreshold = 100;
+
+        private Duration slowCallDurationThreshold = Duration.ofSeconds(5);
+
+        /**
+         * Number of most recent calls the failure and slow call rates are computed over.
+         */
+        private int slidingWindowSize = 10;
+
+        /**
+         * Number of calls needed before the rates are computed.
+         */
+        private int minimumNumberOfCalls = 5;
+
+        /**
+         * How long the circuit stays open before trial calls are permitted.
+         */
+        private Duration waitDurationInOpenState = Duration.ofSeconds(30);
+
+        private int permittedNumberOfCallsInHalfOpenState = 2;
+    }
+
+    /**
+     * Bulkhead limiting concurrent calls to the external API, including hedged calls.
+     */
+    @Data
+    public static class Bulkhead {
+
+        private boolean enabled = true;
+
+        private int maxConcurrentCalls = 2;
+    }
+
+    /**
+     * Hedged calls, sending a second call when the first has not completed within a high percentile of recent call
+     * latencies.
+     */
+    @Data
+    public static class Hedge {
+
+        private boolean enabled = false;
+
+        /**
+         * Percentile of recent successful call latencies after which the hedged call is sent.
+         */
+        private double percentile = 95;
+
+        /**
+         * Delay used until enough calls have completed to compute the percentile.
+         */
+        private Duration initialDelay = Duration.ofSeconds(2);
+
+        /**
+         * Lower bound of the delay, so fast calls are not hedged almost immediately.
+         */
+        private Duration minDelay = Duration.ofMillis(100);
+    }
+}
@@ -0,0 +1,109 @@
+package com.andrei.restapi.controller;
+
+import com.andrei.restapi.model.BatchGetProductsRequest;
+import com.andrei.restapi.model.PriceLabelType;
+import com.andrei.restapi.model.Product;
+import com.andrei.restapi.model.Products;
+import com.andrei.restapi.service.ContentEncoding;
+import com.andrei.restapi.service.ProductFilter;
+import com.andrei.restapi.service.ProductService;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_COLOR;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_CURSOR;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_LABEL_TYPE;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_LIMIT;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_MAX_NOW_PRICE;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_MIN_DISCOUNT;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_MIN_NOW_PRICE;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_MIN_REDUCTION;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_QUERY;
+import static com.andrei.restapi.controller.ProductController.URL_PRODUCT;
+import static com.andrei.restapi.controller.ProductController.URL_PRODUCTS;
+import static com.andrei.restapi.controller.ProductController.URL_PRODUCTS_BATCH_GET;
+import static com.andrei.restapi.controller.ProductController.URL_PRODUCTS_SEARCH;
+
+/**
+ * Product controller for the async serving mode. The servlet thread is released while the catalog is refreshed from
+ * the external API, and the response is completed from the async client executor.
+ */
+@RestController()
+@ConditionalOnProperty(name = "serving.mode", havingValue = "async")
+public class AsyncProductController {
+
+    private final ProductService productService;
+
+    public AsyncProductController(final ProductService productService) {
+        this.productService = productService;
+    }
+
+    /**
+     * Get products, responding like {@link ProductController#getProducts} and taking the same filters. A matching
+     * {@code If-None-Match} is answered with {@code 304 Not Modified} without writing the body.
+     */
+    @ApiOperation(value = "Get products", response = Products.class)
+    @RequestMapping(method = RequestMethod.GET, path = URL_PRODUCTS)
+    public CompletableFuture<ResponseEntity<byte[]>> getProducts(@RequestParam(name = QUERY_PARAM_LABEL_TYPE, required = false) final Optional<String> priceLabelTypeOp,
+                                                                 @RequestParam(name = QUERY_PARAM_LIMIT, required = false) final Optional<Integer> limitOp,
+                                                                 @RequestParam(name = QUERY_PARAM_CURSOR, required = false) final Optional<String> cursorOp,
+                                                                 @RequestParam(name = QUERY_PARAM_COLOR, required = false) final Optional<String> colorOp,
+                                                                 @RequestParam(name = QUERY_PARAM_MIN_DISCOUNT, required = false) final Optional<Integer> minDiscountOp,
+                                                                 @RequestParam(name = QUERY_PARAM_MIN_REDUCTION, required = false) final Optional<String> minReductionOp,
+                                                                 @RequestParam(name = QUERY_PARAM_MIN_NOW_PRICE, required = false) final Optional<String> minNowPriceOp,
+                                                                 @RequestParam(name = QUERY_PARAM_MAX_NOW_PRICE, required = false) final Optional<String> maxNowPriceOp,
+                                                                 @RequestHeader final HttpHeaders requestHeaders) {
+        final ProductFilter filter = ProductController.createFilter(colorOp, minDiscountOp, minReductionOp,
+                minNowPriceOp, maxNowPriceOp);
+        return productService.getProductsViewAsync(priceLabelTypeOp.map(PriceLabelType::parse), filter, limitOp,
+                cursorOp)
+                .thenApply(productsView -> ProductsResponses.toResponse(productsView,
+                        ProductsResponses.negotiate(productsView, requestHeaders.getFirst(HttpHeaders.ACCEPT_ENCODING)),
+                        requestHeaders.getIfNoneMatch()));
+    }
+
+    /**
+     * Search products, responding like {@link ProductController#searchProducts}.
+     */
+    @ApiOperation(value = "Search products", response = Products.class)
+    @RequestMapping(method = RequestMethod.GET, path = URL_PRODUCTS_SEARCH)
+    public CompletableFuture<ResponseEntity<byte[]>> searchProducts(@RequestParam(name = QUERY_PARAM_QUERY) final String query,
+                                                                    @RequestParam(name = QUERY_PARAM_LABEL_TYPE, required = false) final Optional<String> priceLabelTypeOp,
+                                                                    @RequestParam(name = QUERY_PARAM_LIMIT, required = false) final Optional<Integer> limitOp) {
+        return productService.searchProductsAsync(query, priceLabelTypeOp.map(PriceLabelType::parse), limitOp)
+                .thenApply(productsView -> ProductsResponses.toResponse(productsView, ContentEncoding.IDENTITY));
+    }
+
+    /**
+     * Get one product by id, responding like {@link ProductController#getProduct}.
+     */
+    @ApiOperation(value = "Get product", response = Product.class)
+    @RequestMapping(method = RequestMethod.GET, path = URL_PRODUCT)
+    public CompletableFuture<Product> getProduct(@PathVariable(name = "productId") final String productId,
+                                                 @RequestParam(name = QUERY_PARAM_LABEL_TYPE, required = false) final Optional<String> priceLabelTypeOp) {
+        return productService.getProductAsync(productId, priceLabelTypeOp.map(PriceLabelType::parse));
+    }
+
+    /**
+     * Get the products of the ids in the request body, responding like {@link ProductController#batchGetProducts}.
+     */
+    @ApiOperation(value = "Batch get products", response = Products.class)
+    @RequestMapping(method = RequestMethod.POST, path = URL_PRODUCTS_BATCH_GET)
+    public CompletableFuture<ResponseEntity<byte[]>> batchGetProducts(@RequestBody final BatchGetProductsRequest request,
+                                                                      @RequestParam(name = QUERY_PARAM_LABEL_TYPE, required = false) final Optional<String> priceLabelTypeOp) {
+        return productService.batchGetProductsAsync(request.getProductIds(), priceLabelTypeOp.map(PriceLabelType::parse))
+                .thenApply(productsView -> ProductsResponses.toResponse(productsView, ContentEncoding.IDENTITY));
+    }
+}
@@ -0,0 +1,38 @@
+package com.andrei.restapi.controller;
+
+import com.andrei.restapi.service.ProductMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Counts exceptions thrown by request handlers. Runs before the other resolvers and leaves resolving the exception to
+ * them, so the response is unchanged.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ErrorMetricsExceptionResolver implements HandlerExceptionResolver, Ordered {
+
+    private final ProductMetrics productMetrics;
+
+    public ErrorMetricsExceptionResolver(final ProductMetrics productMetrics) {
+        this.productMetrics = productMetrics;
+    }
+
+    @Override
+    public ModelAndView resolveException(final HttpServletRequest request, final HttpServletResponse response,
+                                         final Object handler, final Exception exception) {
+        productMetrics.recordError(exception);
+        return null;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,63 @@
+package com.andrei.restapi.controller;
+
+import com.andrei.restapi.model.Product;
+import com.andrei.restapi.service.ProductsView;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes products as newline delimited JSON, one product per line. The JSON of each product is copied from the
+ * precomputed view when it has product JSON, otherwise products are serialized through a single streaming
+ * {@link JsonGenerator}. The output is flushed every {@value #FLUSH_EVERY_PRODUCTS} products so clients receive the
+ * first products without waiting for the whole catalog.
+ */
+class NdjsonProductsWriter {
+
+    static final int FLUSH_EVERY_PRODUCTS = 100;
+
+    private static final char LINE_SEPARATOR = '\n';
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter productWriter;
+
+    NdjsonProductsWriter(final ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.productWriter = objectMapper.writerFor(Product.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    void write(final ProductsView productsView, final OutputStream outputStream) throws IOException {
+        if (!productsView.hasProductJson()) {
+            write(productsView.getProducts().getProducts(), outputStream);
+            return;
+        }
+        for (int i = 0; i < productsView.getProductJsonCount(); i++) {
+            productsView.writeProductJson(i, outputStream);
+            outputStream.write(LINE_SEPARATOR);
+            if ((i + 1) % FLUSH_EVERY_PRODUCTS == 0) {
+                outputStream.flush();
+            }
+        }
+        outputStream.flush();
+    }
+
+    void write(final List<Product> products, final OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            int written = 0;
+            for (final Product product : products) {
+                productWriter.writeValue(generator, product);
+                generator.writeRaw(LINE_SEPARATOR);
+                if (++written % FLUSH_EVERY_PRODUCTS == 0) {
+                    generator.flush();
+                }
+            }
+        }
+    }
+}
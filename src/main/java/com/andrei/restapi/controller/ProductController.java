@@ -1,8 +1,20 @@
 package com.andrei.restapi.controller;
 
+import com.andrei.restapi.model.BatchGetProductsRequest;
 import com.andrei.restapi.model.PriceLabelType;
+import com.andrei.restapi.model.Product;
 import com.andrei.restapi.model.Products;
+import com.andrei.restapi.service.ContentEncoding;
+import com.andrei.restapi.service.ProductFilter;
 import com.andrei.restapi.service.ProductService;
+import com.andrei.restapi.service.ProductsView;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -11,28 +23,132 @@ import org.springframework.web.bind.annotation.RestController;
 import java.util.Optional;
 
 /**
- * Product controller.
+ * Product controller. Serves requests on the servlet thread, the default serving mode.
  */
 @RestController()
+@ConditionalOnProperty(name = "serving.mode", havingValue = "blocking", matchIfMissing = true)
 public class ProductController {
 
     static final String URL_PRODUCTS = "/products";
 
+    static final String URL_PRODUCTS_SEARCH = "/products/search";
+
+    static final String URL_PRODUCT = "/products/{productId}";
+
+    static final String URL_PRODUCTS_BATCH_GET = "/products:batchGet";
+
     static final String QUERY_PARAM_LABEL_TYPE = "labelType";
 
+    static final String QUERY_PARAM_LIMIT = "limit";
+
+    static final String QUERY_PARAM_CURSOR = "cursor";
+
+    static final String QUERY_PARAM_COLOR = "color";
+
+    static final String QUERY_PARAM_MIN_DISCOUNT = "minDiscount";
+
+    static final String QUERY_PARAM_MIN_REDUCTION = "minReduction";
+
+    static final String QUERY_PARAM_MIN_NOW_PRICE = "minNowPrice";
+
+    static final String QUERY_PARAM_MAX_NOW_PRICE = "maxNowPrice";
+
+    static final String QUERY_PARAM_QUERY = "q";
+
     private final ProductService productService;
 
     public ProductController(final ProductService productService) {
         this.productService = productService;
     }
 
+    /**
+     * Get products. Without a limit or cursor the response body is written from the JSON precomputed for the requested
+     * label type. With a limit a page of products is returned together with the cursor of the next page.
+     * <p>
+     * Unpaged responses carry an ETag and are served gzip compressed when accepted, from bytes compressed once per
+     * catalog refresh. A request whose {@code If-None-Match} matches is answered with {@code 304 Not Modified} without
+     * writing the body.
+     * <p>
+     * Products can be filtered by the basic color of a color swatch, a minimum percent discount, a minimum reduction and
+     * a now price range, with amounts in major units such as {@code 9.99}. The minimum reduction may be negative to
+     * include price increases. Filtered responses are neither tagged nor
+     * precompressed.
+     */
+    @ApiOperation(value = "Get products", response = Products.class)
     @RequestMapping(method = RequestMethod.GET, path = URL_PRODUCTS)
-    public Products getProducts(@RequestParam(name = QUERY_PARAM_LABEL_TYPE, required = false) final Optional<String> priceLabelTypeOp) {
-        if (!priceLabelTypeOp.isPresent()) {
-            return productService.getProducts(Optional.empty());
-        }
+    public ResponseEntity<byte[]> getProducts(@RequestParam(name = QUERY_PARAM_LABEL_TYPE, required = false) final Optional<String> priceLabelTypeOp,
+                                              @RequestParam(name = QUERY_PARAM_LIMIT, required = false) final Optional<Integer> limitOp,
+                                              @RequestParam(name = QUERY_PARAM_CURSOR, required = false) final Optional<String> cursorOp,
+                                              @RequestParam(name = QUERY_PARAM_COLOR, required = false) final Optional<String> colorOp,
+                                              @RequestParam(name = QUERY_PARAM_MIN_DISCOUNT, required = false) final Optional<Integer> minDiscountOp,
+                                              @RequestParam(name = QUERY_PARAM_MIN_REDUCTION, required = false) final Optional<String> minReductionOp,
+                                              @RequestParam(name = QUERY_PARAM_MIN_NOW_PRICE, required = false) final Optional<String> minNowPriceOp,
+                                              @RequestParam(name = QUERY_PARAM_MAX_NOW_PRICE, required = false) final Optional<String> maxNowPriceOp,
+                                              @RequestHeader final HttpHeaders requestHeaders) {
+        final ProductFilter filter = createFilter(colorOp, minDiscountOp, minReductionOp, minNowPriceOp, maxNowPriceOp);
+        final ProductsView productsView = productService.getProductsView(priceLabelTypeOp.map(PriceLabelType::parse),
+                filter, limitOp, cursorOp);
+
+        final ContentEncoding contentEncoding = ProductsResponses.negotiate(productsView,
+                requestHeaders.getFirst(HttpHeaders.ACCEPT_ENCODING));
+        return ProductsResponses.toResponse(productsView, contentEncoding, requestHeaders.getIfNoneMatch());
+    }
+
+    /**
+     * Search products by title, most relevant first and then highest price reduction first. The last term of the query
+     * also matches as a prefix, so the endpoint serves typeahead. Search results carry no ETag, so {@code If-None-Match}
+     * is not checked in any serving mode.
+     */
+    @ApiOperation(value = "Search products", response = Products.class)
+    @RequestMapping(method = RequestMethod.GET, path = URL_PRODUCTS_SEARCH)
+    public ResponseEntity<byte[]> searchProducts(@RequestParam(name = QUERY_PARAM_QUERY) final String query,
+                                                 @RequestParam(name = QUERY_PARAM_LABEL_TYPE, required = false) final Optional<String> priceLabelTypeOp,
+                                                 @RequestParam(name = QUERY_PARAM_LIMIT, required = false) final Optional<Integer> limitOp) {
+        final ProductsView productsView = productService.searchProducts(query, priceLabelTypeOp.map(PriceLabelType::parse),
+                limitOp);
+        return ProductsResponses.toResponse(productsView, ContentEncoding.IDENTITY);
+    }
+
+    /**
+     * Get one product with a price reduction by id, rendered for the label type like the list. The literal path
+     * {@value #URL_PRODUCTS_SEARCH} takes precedence in every serving mode, so a product with the id {@code search} can
+     * only be fetched with {@link #batchGetProducts}. The product carries no ETag, so {@code If-None-Match} is not
+     * checked in any serving mode.
+     */
+    @ApiOperation(value = "Get product", response = Product.class)
+    @RequestMapping(method = RequestMethod.GET, path = URL_PRODUCT)
+    public Product getProduct(@PathVariable(name = "productId") final String productId,
+                              @RequestParam(name = QUERY_PARAM_LABEL_TYPE, required = false) final Optional<String> priceLabelTypeOp) {
+        return productService.getProduct(productId, priceLabelTypeOp.map(PriceLabelType::parse));
+    }
+
+    /**
+     * Get the products with a price reduction of the ids in the request body, in the order of the ids. Ids of no such
+     * product are left out of the response. Like search results, batch responses carry no ETag.
+     */
+    @ApiOperation(value = "Batch get products", response = Products.class)
+    @RequestMapping(method = RequestMethod.POST, path = URL_PRODUCTS_BATCH_GET)
+    public ResponseEntity<byte[]> batchGetProducts(@RequestBody final BatchGetProductsRequest request,
+                                                   @RequestParam(name = QUERY_PARAM_LABEL_TYPE, required = false) final Optional<String> priceLabelTypeOp) {
+        final ProductsView productsView = productService.batchGetProducts(request.getProductIds(),
+                priceLabelTypeOp.map(PriceLabelType::parse));
+        return ProductsResponses.toResponse(productsView, ContentEncoding.IDENTITY);
+    }
 
-        final PriceLabelType priceLabelType = PriceLabelType.parse(priceLabelTypeOp.get());
-        return productService.getProducts(Optional.of(priceLabelType));
+    /**
+     * Create the filter of the filter query parameters, shared by the controllers of every serving mode.
+     *
+     * @throws {@link com.andrei.restapi.service.ProductFilterNotValidException} if a color or amount is not valid
+     */
+    static ProductFilter createFilter(final Optional<String> colorOp, final Optional<Integer> minDiscountOp,
+                                      final Optional<String> minReductionOp, final Optional<String> minNowPriceOp,
+                                      final Optional<String> maxNowPriceOp) {
+        return ProductFilter.builder()
+                .color(colorOp.map(ProductFilter::parseColor).orElse(null))
+                .minDiscount(minDiscountOp.orElse(null))
+                .minReduction(minReductionOp.map(ProductFilter::parseSignedAmount).orElse(null))
+                .minNowPrice(minNowPriceOp.map(ProductFilter::parseAmount).orElse(null))
+                .maxNowPrice(maxNowPriceOp.map(ProductFilter::parseAmount).orElse(null))
+                .build();
     }
 }
@@ -0,0 +1,97 @@
+package com.andrei.restapi.controller;
+
+import com.andrei.restapi.configuration.ServingProperties;
+import com.andrei.restapi.model.PriceLabelType;
+import com.andrei.restapi.model.Product;
+import com.andrei.restapi.service.ProductService;
+import com.andrei.restapi.service.ProductsView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Optional;
+
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_LABEL_TYPE;
+import static com.andrei.restapi.controller.ProductController.URL_PRODUCTS;
+
+/**
+ * Product stream controller. Streams are written on a bounded executor of its own rather than the async executor of
+ * Spring MVC, so other async requests are unaffected. Streams beyond the pool and its queue are rejected rather than
+ * piling up threads.
+ */
+@RestController()
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ProductStreamController {
+
+    static final String URL_PRODUCTS_STREAM = URL_PRODUCTS + "/stream";
+
+    static final MediaType APPLICATION_NDJSON = new MediaType("application", "x-ndjson");
+
+    static final String STREAM_THREAD_NAME_PREFIX = "products-stream-";
+
+    private final ProductService productService;
+
+    private final NdjsonProductsWriter ndjsonProductsWriter;
+
+    private final ThreadPoolTaskExecutor streamExecutor;
+
+    private final long streamTimeoutMillis;
+
+    public ProductStreamController(final ProductService productService, final ObjectMapper objectMapper,
+                                   final ServingProperties servingProperties) {
+        this.productService = productService;
+        this.ndjsonProductsWriter = new NdjsonProductsWriter(objectMapper);
+        this.streamExecutor = new ThreadPoolTaskExecutor();
+        streamExecutor.setCorePoolSize(servingProperties.getStreamPoolSize());
+        streamExecutor.setMaxPoolSize(servingProperties.getStreamPoolSize());
+        streamExecutor.setQueueCapacity(servingProperties.getStreamQueueCapacity());
+        streamExecutor.setThreadNamePrefix(STREAM_THREAD_NAME_PREFIX);
+        streamExecutor.initialize();
+        this.streamTimeoutMillis = servingProperties.getStreamTimeout().toMillis();
+    }
+
+    /**
+     * Get products as newline delimited JSON, one product per line, copied to the response from the precomputed JSON.
+     * The catalog is resolved before the response is committed, so failures still return an error status. The body is
+     * written on the bounded stream executor, with the stream timeout in place of the default async request timeout.
+     */
+    @ApiOperation(value = "Get products as newline delimited JSON", response = Product.class, responseContainer = "List")
+    @RequestMapping(method = RequestMethod.GET, path = URL_PRODUCTS_STREAM, produces = "application/x-ndjson")
+    public WebAsyncTask<Void> getProductsStream(@RequestParam(name = QUERY_PARAM_LABEL_TYPE, required = false) final Optional<String> priceLabelTypeOp,
+                                                final HttpServletResponse response) {
+        final ProductsView productsView = productService.getProductsView(priceLabelTypeOp.map(PriceLabelType::parse));
+
+        return new WebAsyncTask<>(streamTimeoutMillis, streamExecutor, () -> {
+            response.setContentType(APPLICATION_NDJSON.toString());
+            ndjsonProductsWriter.write(productsView, response.getOutputStream());
+            return null;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        streamExecutor.shutdown();
+    }
+
+    /**
+     * Answer streams rejected by the saturated stream executor with {@code 503 Service Unavailable}, so clients back
+     * off instead of waiting for a thread.
+     */
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<Void> handleTaskRejected() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.andrei.restapi.controller;
+
+import com.andrei.restapi.service.ContentEncoding;
+import com.andrei.restapi.service.ProductsView;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Builds product responses from a {@link ProductsView}, shared by the controllers of every serving mode.
+ */
+final class ProductsResponses {
+
+    private ProductsResponses() {
+    }
+
+    /**
+     * Choose the encoding to serve the view in, falling back to identity if the view is not precompressed.
+     */
+    static ContentEncoding negotiate(final ProductsView productsView, final String acceptEncoding) {
+        final ContentEncoding negotiated = ContentEncoding.negotiate(acceptEncoding);
+        return productsView.isEncoded(negotiated) ? negotiated : ContentEncoding.IDENTITY;
+    }
+
+    private static final String WEAK_ETAG_PREFIX = "W/";
+
+    /**
+     * Whether the {@code If-None-Match} entity tags of a request match the ETag of the view in the given encoding. Tags
+     * are compared weakly, ignoring a {@code W/} prefix, as proxies weaken the ETag of a response they compress.
+     */
+    static boolean isNotModified(final ProductsView productsView, final ContentEncoding contentEncoding,
+                                 final List<String> ifNoneMatch) {
+        final String etag = productsView.getEtag(contentEncoding);
+        if (etag == null) {
+            return false;
+        }
+        final String opaqueTag = stripWeakPrefix(etag);
+        for (final String tag : ifNoneMatch) {
+            if (tag.equals("*") || stripWeakPrefix(tag).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeakPrefix(final String etag) {
+        return etag.startsWith(WEAK_ETAG_PREFIX) ? etag.substring(WEAK_ETAG_PREFIX.length()) : etag;
+    }
+
+    /**
+     * Create a {@code 304 Not Modified} response with the ETag and headers a full response of the view would carry.
+     */
+    static ResponseEntity<byte[]> toNotModifiedResponse(final ProductsView productsView,
+                                                        final ContentEncoding contentEncoding) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(productsView.getEtag(contentEncoding))
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .build();
+    }
+
+    /**
+     * Create the response of the view in the given encoding, or a {@code 304 Not Modified} response if the
+     * {@code If-None-Match} entity tags of the request match its ETag.
+     */
+    static ResponseEntity<byte[]> toResponse(final ProductsView productsView, final ContentEncoding contentEncoding,
+                                             final List<String> ifNoneMatch) {
+        if (isNotModified(productsView, contentEncoding, ifNoneMatch)) {
+            return toNotModifiedResponse(productsView, contentEncoding);
+        }
+        return toResponse(productsView, contentEncoding);
+    }
+
+    /**
+     * Create a response with the body, ETag and headers of the view in the given encoding.
+     */
+    static ResponseEntity<byte[]> toResponse(final ProductsView productsView, final ContentEncoding contentEncoding) {
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (productsView.getEtag() != null) {
+            response.eTag(productsView.getEtag(contentEncoding)).varyBy(HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (contentEncoding != ContentEncoding.IDENTITY) {
+            response.header(HttpHeaders.CONTENT_ENCODING, contentEncoding.getValue());
+        }
+
+        final byte[] body = productsView.getBody(contentEncoding);
+        return response
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .contentLength(body.length)
+                .body(body);
+    }
+}
@@ -2,7 +2,9 @@ package com.andrei.restapi.model;
 
 import lombok.Getter;
 
-import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Basic color enum with RGB mapping.
@@ -22,6 +24,22 @@ public enum BasicColor {
     // Multi is one of the basic color values in the API
     MULTI("");
 
+    /**
+     * Colors by the spellings of the external API, e.g. {@code Red}, and by name.
+     */
+    private static final Map<String, BasicColor> BY_VALUE = new HashMap<>();
+
+    private static final Map<String, BasicColor> BY_VALUE_IGNORE_CASE = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        for (final BasicColor basicColor : values()) {
+            final String name = basicColor.name();
+            BY_VALUE.put(name, basicColor);
+            BY_VALUE.put(name.charAt(0) + name.substring(1).toLowerCase(), basicColor);
+            BY_VALUE_IGNORE_CASE.put(name, basicColor);
+        }
+    }
+
     @Getter
     private final String rgb;
 
@@ -29,10 +47,21 @@ public enum BasicColor {
         this.rgb = rgb;
     }
 
+    /**
+     * Parse a basic color ignoring case. Common spellings are looked up without allocating.
+     *
+     * @param color the color
+     * @return {@link BasicColor}
+     * @throws IllegalArgumentException if the color is not valid
+     */
     public static BasicColor parse(final String color) {
-        return Arrays.stream(values())
-                .filter(basicColor -> basicColor.toString().equals(color.toUpperCase()))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Color " + color + " is not valid"));
+        BasicColor basicColor = BY_VALUE.get(color);
+        if (basicColor == null && color != null) {
+            basicColor = BY_VALUE_IGNORE_CASE.get(color);
+        }
+        if (basicColor == null) {
+            throw new IllegalArgumentException("Color " + color + " is not valid");
+        }
+        return basicColor;
     }
 }
@@ -1,17 +1,17 @@
 package com.andrei.restapi.model;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
 /**
- * Color swatch model.
+ * Color swatch model. Catalog snapshots hold swatches in a flat table, from which swatches are created whenever a
+ * product is.
  */
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
+@Value
 @Builder
+@JsonDeserialize(builder = ColorSwatch.ColorSwatchBuilder.class)
 public class ColorSwatch {
 
     private String color;
@@ -19,4 +19,8 @@ public class ColorSwatch {
     private String rgbColor;
 
     private String skuid;
+
+    @JsonPOJOBuilder(withPrefix = "")
+    public static class ColorSwatchBuilder {
+    }
 }
@@ -0,0 +1,117 @@
+package com.andrei.restapi.model;
+
+import lombok.Value;
+
+/**
+ * Immutable amount of money held as a whole number of minor units (e.g. pence) of a {@link Currency}.
+ */
+@Value
+public class Money {
+
+    public static final int MINOR_UNITS_PER_MAJOR_UNIT = 100;
+
+    private static final int FRACTION_DIGITS = 2;
+
+    private final long minorUnits;
+
+    private final Currency currency;
+
+    public static Money of(final long minorUnits, final Currency currency) {
+        return new Money(minorUnits, currency);
+    }
+
+    /**
+     * Parse a decimal amount such as {@code "12"}, {@code "12.5"} or {@code "12.50"}, rounding any further fraction
+     * digits half up to minor units.
+     *
+     * @param amount   the amount in major units
+     * @param currency the currency
+     * @return {@link Money}
+     * @throws NumberFormatException if the amount is not a non-negative decimal
+     */
+    public static Money parse(final CharSequence amount, final Currency currency) {
+        return new Money(parseMinorUnits(amount), currency);
+    }
+
+    /**
+     * Parse a decimal amount in major units into minor units without allocating. Fraction digits beyond minor units are
+     * rounded half up, so {@code "1.005"} is 101 minor units.
+     *
+     * @param amount the amount in major units, surrounding whitespace is ignored
+     * @return the amount in minor units
+     * @throws NumberFormatException if the amount is not a non-negative decimal
+     */
+    public static long parseMinorUnits(final CharSequence amount) {
+        int start = 0;
+        int end = amount.length();
+        while (start < end && amount.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && amount.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        long majorUnits = 0;
+        long fraction = 0;
+        int fractionDigits = -1;
+        int digits = 0;
+        boolean roundUp = false;
+        for (int i = start; i < end; i++) {
+            final char c = amount.charAt(i);
+            if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else if (c < '0' || c > '9') {
+                throw new NumberFormatException("Amount " + amount + " is not valid");
+            } else if (fractionDigits < 0) {
+                majorUnits = majorUnits * 10 + (c - '0');
+                if (majorUnits > Long.MAX_VALUE / MINOR_UNITS_PER_MAJOR_UNIT - 1) {
+                    throw new NumberFormatException("Amount " + amount + " is too large");
+                }
+                digits++;
+            } else if (fractionDigits < FRACTION_DIGITS) {
+                fraction = fraction * 10 + (c - '0');
+                fractionDigits++;
+                digits++;
+            } else {
+                // Only the first digit beyond minor units decides rounding half up
+                roundUp |= fractionDigits == FRACTION_DIGITS && c >= '5';
+                fractionDigits++;
+                digits++;
+            }
+        }
+
+        if (digits == 0) {
+            throw new NumberFormatException("Amount " + amount + " is not valid");
+        }
+        for (int i = Math.max(fractionDigits, 0); i < FRACTION_DIGITS; i++) {
+            fraction *= 10;
+        }
+        return majorUnits * MINOR_UNITS_PER_MAJOR_UNIT + fraction + (roundUp ? 1 : 0);
+    }
+
+    public Money minus(final Money other) {
+        checkCurrency(other);
+        return new Money(minorUnits - other.minorUnits, currency);
+    }
+
+    /**
+     * Get the percentage this amount is of the given amount, truncated towards zero. A total of zero or less has no
+     * meaningful percentage, so it yields zero instead of failing.
+     *
+     * @param total the amount that is 100%
+     * @return the percentage, or zero if the total is not positive
+     */
+    public int percentageOf(final Money total) {
+        checkCurrency(total);
+        if (total.minorUnits <= 0) {
+            return 0;
+        }
+        return (int) (minorUnits * 100 / total.minorUnits);
+    }
+
+    private void checkCurrency(final Money other) {
+        if (currency != other.currency) {
+            throw new IllegalArgumentException("Currency " + other.currency + " does not match " + currency);
+        }
+    }
+}
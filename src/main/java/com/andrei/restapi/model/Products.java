@@ -1,5 +1,6 @@
 package com.andrei.restapi.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -17,4 +18,10 @@ import java.util.List;
 public class Products {
 
     private List<Product> products;
+
+    /**
+     * Cursor of the next page, absent on the last page and when products are not paged.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
 }
@@ -17,4 +17,17 @@ import java.util.List;
 public class ExternalProducts {
 
     private List<ExternalProduct> products;
+
+    /**
+     * Number of products in the response, including those dropped while decoding. Null if every product of the
+     * response was kept.
+     */
+    private Integer receivedCount;
+
+    /**
+     * @return number of products in the response
+     */
+    public int countReceived() {
+        return receivedCount != null ? receivedCount : products.size();
+    }
 }
@@ -0,0 +1,18 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.external.ExternalProducts;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * External product API client that does not block the caller while the remote API responds.
+ */
+public interface AsyncExternalProductApiClient {
+
+    /**
+     * Get products from the external API, keeping only products with a price reduction.
+     *
+     * @return future of {@link ExternalProducts}
+     */
+    CompletableFuture<ExternalProducts> getProducts();
+}
@@ -0,0 +1,15 @@
+package com.andrei.restapi.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when the product ids of a batch get are missing or too many.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class BatchGetRequestNotValidException extends RuntimeException {
+
+    public BatchGetRequestNotValidException(final String message) {
+        super(message);
+    }
+}
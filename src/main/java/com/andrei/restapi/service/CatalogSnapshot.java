@@ -0,0 +1,32 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.PriceLabelType;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the upstream catalog, holding only reduced products sorted by highest reduction first as the
+ * rows of a {@link ProductTable}, and the {@link ProductsView} rendered from them for each {@link PriceLabelType}.
+ */
+@Value
+@Builder
+public class CatalogSnapshot {
+
+    private long version;
+
+    private Instant fetchedAt;
+
+    /**
+     * Columns of the reduced products, one row per product in the same order.
+     */
+    private ProductTable table;
+
+    private Map<PriceLabelType, ProductsView> views;
+
+    public ProductsView getView(final PriceLabelType priceLabelType) {
+        return views.get(priceLabelType);
+    }
+}
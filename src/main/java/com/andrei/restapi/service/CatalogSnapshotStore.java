@@ -0,0 +1,298 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.BasicColor;
+import com.andrei.restapi.model.Currency;
+import com.andrei.restapi.model.PriceLabelType;
+import com.andrei.restapi.model.Products;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Persists the last published {@link CatalogSnapshot} to a binary file, so a restarted service can serve it right away
+ * and while the external API is down. The file is written to a temporary file, forced to disk and moved into place
+ * atomically, so a crash never leaves a partial file behind. It is read through a memory-mapped {@link FileChannel}.
+ * <p>
+ * The file holds the rows of the {@link ProductTable} in order and the precomputed JSON, product offsets, gzip and
+ * entity tags of each view, followed by a CRC32 of the content. The table is filled again row by row on load, which is
+ * cheap next to serializing and compressing the views, and no product objects are created.
+ */
+@Slf4j
+class CatalogSnapshotStore {
+
+    private static final int MAGIC = 0x50434154;
+
+    /**
+     * Bump when the layout of the file or the mapping of products changes, so files of older releases are ignored.
+     */
+    private static final int FORMAT_VERSION = 2;
+
+    private static final int NULL_LENGTH = -1;
+
+    private static final int CRC_LENGTH = Long.BYTES;
+
+    private final Path file;
+
+    private final ExecutorService writer;
+
+    private final AtomicReference<CatalogSnapshot> pending = new AtomicReference<>();
+
+    CatalogSnapshotStore(final Path file) {
+        this.file = file;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "catalog-snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Save the snapshot in the background. Snapshots published while a save is in progress replace each other, so only
+     * the latest is written.
+     *
+     * @param snapshot the snapshot
+     */
+    void saveAsync(final CatalogSnapshot snapshot) {
+        if (pending.getAndSet(snapshot) == null) {
+            writer.execute(() -> {
+                final CatalogSnapshot latest = pending.getAndSet(null);
+                try {
+                    save(latest);
+                } catch (final IOException | RuntimeException e) {
+                    log.warn("Unable to save catalog version {} to {}", latest.getVersion(), file, e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Save the snapshot, replacing the saved one atomically.
+     *
+     * @param snapshot the snapshot
+     * @throws IOException if unable to write the file
+     */
+    void save(final CatalogSnapshot snapshot) throws IOException {
+        final Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        final Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final CRC32 crc = new CRC32();
+            final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc)));
+            write(output, snapshot);
+            output.flush();
+
+            final ByteBuffer trailer = ByteBuffer.allocate(CRC_LENGTH).putLong(crc.getValue());
+            trailer.flip();
+            while (trailer.hasRemaining()) {
+                channel.write(trailer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Load the saved snapshot. A missing, corrupt or outdated file is ignored.
+     *
+     * @param priceFormatter formats the prices of products created from the table
+     * @return the snapshot, or empty if none could be loaded
+     */
+    Optional<CatalogSnapshot> load(final PriceFormatter priceFormatter) {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            final CatalogSnapshot snapshot = read(buffer, priceFormatter);
+            log.info("Loaded catalog version {} fetched at {} from {}", snapshot.getVersion(), snapshot.getFetchedAt(), file);
+            return Optional.of(snapshot);
+        } catch (final IOException | RuntimeException e) {
+            log.warn("Ignoring catalog snapshot file {}", file, e);
+            return Optional.empty();
+        }
+    }
+
+    private static void write(final DataOutputStream output, final CatalogSnapshot snapshot) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+        output.writeLong(snapshot.getVersion());
+        output.writeLong(snapshot.getFetchedAt().toEpochMilli());
+
+        final ProductTable table = snapshot.getTable();
+        output.writeInt(table.size());
+        for (int row = 0; row < table.size(); row++) {
+            writeRow(output, table, row);
+        }
+
+        output.writeInt(snapshot.getViews().size());
+        for (final Map.Entry<PriceLabelType, ProductsView> view : snapshot.getViews().entrySet()) {
+            writeString(output, view.getKey().getValue());
+            writeString(output, view.getValue().getEtag());
+            writeBytes(output, view.getValue().getJson());
+            writeInts(output, view.getValue().getProductJsonOffsets());
+            writeString(output, view.getValue().getGzipEtag());
+            writeBytes(output, view.getValue().getGzipJson());
+        }
+    }
+
+    private static void writeRow(final DataOutputStream output, final ProductTable table, final int row)
+            throws IOException {
+        writeString(output, table.getProductId(row));
+        writeString(output, table.getTitle(row));
+        output.writeLong(table.getWasPrice(row));
+        output.writeLong(table.getThenPrice(row));
+        output.writeLong(table.getNowPrice(row));
+        writeString(output, table.getCurrency(row).name());
+
+        output.writeInt(table.getColorSwatchCount(row));
+        for (int swatch = 0; swatch < table.getColorSwatchCount(row); swatch++) {
+            writeString(output, table.getColor(row, swatch));
+            writeString(output, table.getBasicColor(row, swatch).name());
+            writeString(output, table.getSkuId(row, swatch));
+        }
+    }
+
+    private static void writeString(final DataOutputStream output, final String value) throws IOException {
+        writeBytes(output, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeBytes(final DataOutputStream output, final byte[] value) throws IOException {
+        if (value == null) {
+            output.writeInt(NULL_LENGTH);
+            return;
+        }
+        output.writeInt(value.length);
+        output.write(value);
+    }
+
+    private static void writeInts(final DataOutputStream output, final int[] values) throws IOException {
+        if (values == null) {
+            output.writeInt(NULL_LENGTH);
+            return;
+        }
+        output.writeInt(values.length);
+        for (final int value : values) {
+            output.writeInt(value);
+        }
+    }
+
+    private static CatalogSnapshot read(final ByteBuffer buffer, final PriceFormatter priceFormatter)
+            throws IOException {
+        if (buffer.limit() < CRC_LENGTH) {
+            throw new IOException("File is truncated");
+        }
+        final int contentLength = buffer.limit() - CRC_LENGTH;
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(contentLength));
+        if (crc.getValue() != buffer.getLong(contentLength)) {
+            throw new IOException("Checksum does not match");
+        }
+        buffer.limit(contentLength);
+
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a catalog snapshot file");
+        }
+        final int formatVersion = buffer.getInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Format version " + formatVersion + " is not supported");
+        }
+        final long version = buffer.getLong();
+        final Instant fetchedAt = Instant.ofEpochMilli(buffer.getLong());
+
+        final int rowCount = buffer.getInt();
+        final ProductTable.Builder builder = ProductTable.builder(rowCount, priceFormatter);
+        for (int row = 0; row < rowCount; row++) {
+            readRow(buffer, builder);
+        }
+        final ProductTable table = builder.build();
+
+        final int viewCount = buffer.getInt();
+        final Map<PriceLabelType, ProductsView> views = new EnumMap<>(PriceLabelType.class);
+        for (int i = 0; i < viewCount; i++) {
+            final PriceLabelType priceLabelType = PriceLabelType.parse(readString(buffer));
+            views.put(priceLabelType, ProductsView.builder()
+                    .products(Products.builder().products(table.getProducts(priceLabelType)).build())
+                    .etag(readString(buffer))
+                    .json(readBytes(buffer))
+                    .productJsonOffsets(readInts(buffer))
+                    .gzipEtag(readString(buffer))
+                    .gzipJson(readBytes(buffer))
+                    .build());
+        }
+
+        return CatalogSnapshot.builder()
+                .version(version)
+                .fetchedAt(fetchedAt)
+                .table(table)
+                .views(Collections.unmodifiableMap(views))
+                .build();
+    }
+
+    private static void readRow(final ByteBuffer buffer, final ProductTable.Builder builder) {
+        final String productId = readString(buffer);
+        final String title = readString(buffer);
+        final long wasPrice = buffer.getLong();
+        final long thenPrice = buffer.getLong();
+        final long nowPrice = buffer.getLong();
+        builder.addRow(productId, title, wasPrice, thenPrice, nowPrice, Currency.valueOf(readString(buffer)));
+
+        final int colorSwatchCount = buffer.getInt();
+        for (int i = 0; i < colorSwatchCount; i++) {
+            final String color = readString(buffer);
+            final BasicColor basicColor = BasicColor.valueOf(readString(buffer));
+            builder.addColorSwatch(color, basicColor, readString(buffer));
+        }
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        final byte[] bytes = readBytes(buffer);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(final ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static int[] readInts(final ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        final int[] values = new int[length];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + length * Integer.BYTES);
+        return values;
+    }
+}
@@ -0,0 +1,15 @@
+package com.andrei.restapi.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a cursor points to a catalog version that is no longer retained.
+ */
+@ResponseStatus(HttpStatus.GONE)
+public class CatalogVersionExpiredException extends RuntimeException {
+
+    public CatalogVersionExpiredException(final long version) {
+        super("Catalog version " + version + " has expired, start again without a cursor");
+    }
+}
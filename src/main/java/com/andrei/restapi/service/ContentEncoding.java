@@ -0,0 +1,83 @@
+package com.andrei.restapi.service;
+
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content encodings product views are precomputed in.
+ */
+public enum ContentEncoding {
+    IDENTITY("identity") {
+        @Override
+        byte[] encode(final byte[] content) {
+            return content;
+        }
+    },
+    GZIP("gzip") {
+        @Override
+        byte[] encode(final byte[] content) {
+            final ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 4);
+            // The default level, as every view of every label type is compressed again on each refresh
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(content);
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return compressed.toByteArray();
+        }
+    };
+
+    @Getter
+    private final String value;
+
+    ContentEncoding(final String value) {
+        this.value = value;
+    }
+
+    abstract byte[] encode(byte[] content);
+
+    /**
+     * Choose the encoding to respond with from an {@code Accept-Encoding} header. Gzip is chosen when it is accepted
+     * with a non zero quality, either by name or by wildcard.
+     *
+     * @param acceptEncoding the header value, may be null
+     * @return {@link ContentEncoding}
+     */
+    public static ContentEncoding negotiate(final String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return IDENTITY;
+        }
+
+        boolean wildcard = false;
+        for (final String coding : acceptEncoding.split(",")) {
+            final String[] parameters = coding.split(";");
+            final String name = parameters[0].trim();
+            final boolean accepted = !isZeroQuality(parameters);
+            if (name.equalsIgnoreCase(GZIP.value) || name.equalsIgnoreCase("x-gzip")) {
+                return accepted ? GZIP : IDENTITY;
+            }
+            if (name.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return wildcard ? GZIP : IDENTITY;
+    }
+
+    private static boolean isZeroQuality(final String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            final String parameter = parameters[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) == 0;
+                } catch (final NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,57 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.configuration.ServingProperties;
+import com.andrei.restapi.model.external.ExternalProducts;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Calls {@link ExternalProductApiClient} on a dedicated bounded executor, so callers are not blocked while the
+ * external API responds. Calls beyond the pool and queue capacity fail fast instead of queueing without bound.
+ */
+@Component
+public class ExecutorAsyncExternalProductApiClient implements AsyncExternalProductApiClient {
+
+    private final ExternalProductApiClient externalProductApiClient;
+
+    private final ThreadPoolExecutor executor;
+
+    public ExecutorAsyncExternalProductApiClient(final ExternalProductApiClient externalProductApiClient,
+                                                 final ServingProperties servingProperties) {
+        this.externalProductApiClient = externalProductApiClient;
+        final AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(servingProperties.getAsyncPoolSize(), servingProperties.getAsyncPoolSize(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(servingProperties.getAsyncQueueCapacity()),
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "external-product-api-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Get products from the external API.
+     *
+     * @return future of {@link ExternalProducts}, failed with {@link RejectedExecutionException} if the executor is full
+     */
+    @Override
+    public CompletableFuture<ExternalProducts> getProducts() {
+        try {
+            return CompletableFuture.supplyAsync(externalProductApiClient::getProducts, executor);
+        } catch (final RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
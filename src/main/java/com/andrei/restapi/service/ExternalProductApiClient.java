@@ -6,9 +6,10 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 
 /**
- * External product API client. Fetches products from remote API.
+ * External product API client. Fetches products from remote API, keeping only products with a price reduction.
  */
-@FeignClient(name = "external-product-api-client", url = "${externalProductApiUrl}")
+@FeignClient(name = "external-product-api-client", url = "${externalProductApiUrl}",
+        configuration = ExternalProductApiClientConfiguration.class)
 public interface ExternalProductApiClient {
 
     @RequestMapping(method = RequestMethod.GET)
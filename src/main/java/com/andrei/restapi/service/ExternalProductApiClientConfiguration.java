@@ -0,0 +1,64 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.configuration.UpstreamProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Client;
+import feign.Request;
+import feign.codec.Decoder;
+import feign.okhttp.OkHttpClient;
+import feign.optionals.OptionalDecoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.ConnectionPool;
+import okhttp3.Protocol;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.context.annotation.Bean;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feign configuration for {@link ExternalProductApiClient}. Not annotated with {@code @Configuration} so it only
+ * applies to this client.
+ */
+public class ExternalProductApiClientConfiguration {
+
+    @Bean
+    public Decoder feignDecoder(final ObjectMapper objectMapper,
+                                final ObjectFactory<HttpMessageConverters> messageConverters) {
+        final Decoder springDecoder = new OptionalDecoder(new ResponseEntityDecoder(new SpringDecoder(messageConverters)));
+        return new ExternalProductsDecoder(objectMapper.getFactory(), springDecoder);
+    }
+
+    /**
+     * OkHttp client keeping connections to the external API alive in a pool. Responses are requested gzip compressed
+     * and decompressed transparently, and HTTP/2 is used when the server offers it.
+     */
+    @Bean
+    public Client feignClient(final UpstreamProperties upstreamProperties, final MeterRegistry meterRegistry) {
+        final ConnectionPool connectionPool = new ConnectionPool(upstreamProperties.getMaxIdleConnections(),
+                upstreamProperties.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS);
+
+        return new OkHttpClient(new okhttp3.OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .connectTimeout(upstreamProperties.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .readTimeout(upstreamProperties.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .protocols(upstreamProperties.isHttp2()
+                        ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                        : List.of(Protocol.HTTP_1_1))
+                .eventListenerFactory(new OkHttpConnectionMetrics(meterRegistry, connectionPool,
+                        upstreamProperties.getMaxIdleConnections()))
+                .build());
+    }
+
+    /**
+     * Timeouts Feign passes with each request, matching those of the OkHttp client so it is used as is.
+     */
+    @Bean
+    public Request.Options feignRequestOptions(final UpstreamProperties upstreamProperties) {
+        return new Request.Options((int) upstreamProperties.getConnectTimeout().toMillis(),
+                (int) upstreamProperties.getReadTimeout().toMillis());
+    }
+}
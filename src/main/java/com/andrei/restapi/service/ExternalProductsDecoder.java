@@ -0,0 +1,39 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.external.ExternalProducts;
+import com.fasterxml.jackson.core.JsonFactory;
+import feign.Response;
+import feign.codec.Decoder;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collections;
+
+/**
+ * Decodes {@link ExternalProducts} responses with an {@link ExternalProductsReader}, dropping products without a price
+ * reduction while parsing. Other response types are decoded by the delegate decoder.
+ */
+public class ExternalProductsDecoder implements Decoder {
+
+    private final ExternalProductsReader externalProductsReader;
+
+    private final Decoder delegate;
+
+    public ExternalProductsDecoder(final JsonFactory jsonFactory, final Decoder delegate) {
+        this.externalProductsReader = new ExternalProductsReader(jsonFactory);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Object decode(final Response response, final Type type) throws IOException {
+        if (type != ExternalProducts.class) {
+            return delegate.decode(response, type);
+        }
+
+        if (response.body() == null) {
+            return ExternalProducts.builder().products(Collections.emptyList()).receivedCount(0).build();
+        }
+
+        return externalProductsReader.read(response.body().asInputStream());
+    }
+}
@@ -0,0 +1,231 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.external.ExternalColorSwatch;
+import com.andrei.restapi.model.external.ExternalPrice;
+import com.andrei.restapi.model.external.ExternalProduct;
+import com.andrei.restapi.model.external.ExternalProducts;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.andrei.restapi.model.external.ExternalPrice.NOW_PRICE_TO_FIELD_NAME;
+
+/**
+ * Reads {@link ExternalProducts} with a streaming {@link JsonParser}, dropping products without a price reduction
+ * while parsing and counting every product received. Once the price of a product has been read and shows no reduction,
+ * the remaining fields of that product are skipped without being bound. The now price is read as text whether it is a
+ * string or a {@code {to}} object, so no {@link com.fasterxml.jackson.databind.JsonNode} tree is built for it. Color
+ * names and currency codes are taken from a {@link StringPool}, so the products of every response share one instance
+ * of each.
+ * <p>
+ * The body is read as it arrives, so it is never held whole. Used by the Feign {@link ExternalProductsDecoder}.
+ */
+public class ExternalProductsReader {
+
+    private static final String PRODUCTS_FIELD_NAME = "products";
+
+    private static final int MAX_POOLED_STRINGS = 10_000;
+
+    private final JsonFactory jsonFactory;
+
+    private final StringPool stringPool = new StringPool(MAX_POOLED_STRINGS);
+
+    public ExternalProductsReader(final JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Read {@link ExternalProducts} from a JSON body, dropping products without a price reduction.
+     *
+     * @param body the JSON body, closed when read
+     * @return {@link ExternalProducts}
+     * @throws IOException if the body can not be read or is not valid
+     */
+    public ExternalProducts read(final InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return readProducts(parser);
+        }
+    }
+
+    private ExternalProducts readProducts(final JsonParser parser) throws IOException {
+        final List<ExternalProduct> products = new ArrayList<>();
+        int receivedCount = 0;
+
+        expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+            if (PRODUCTS_FIELD_NAME.equals(fieldName) && token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    receivedCount++;
+                    final ExternalProduct product = parser.currentToken() == JsonToken.START_OBJECT
+                            ? readProduct(parser)
+                            : null;
+                    if (product != null) {
+                        products.add(product);
+                    }
+                    parser.skipChildren();
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return ExternalProducts.builder().products(products).receivedCount(receivedCount).build();
+    }
+
+    /**
+     * Read a product, returning null if it has no price reduction.
+     */
+    private ExternalProduct readProduct(final JsonParser parser) throws IOException {
+        String productId = null;
+        String title = null;
+        ExternalPrice price = null;
+        List<ExternalColorSwatch> colorSwatches = Collections.emptyList();
+        boolean reduced = true;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+            if (!reduced) {
+                parser.skipChildren();
+                continue;
+            }
+
+            switch (fieldName) {
+                case "productId":
+                    productId = parser.getValueAsString();
+                    break;
+                case "title":
+                    title = parser.getValueAsString();
+                    break;
+                case "price":
+                    price = token == JsonToken.START_OBJECT ? readPrice(parser) : null;
+                    reduced = isReduced(parser, price);
+                    break;
+                case "colorSwatches":
+                    colorSwatches = token == JsonToken.START_ARRAY
+                            ? readColorSwatches(parser)
+                            : Collections.emptyList();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (!reduced || price == null) {
+            return null;
+        }
+
+        return ExternalProduct.builder()
+                .productId(productId)
+                .title(title)
+                .price(price)
+                .colorSwatches(colorSwatches)
+                .build();
+    }
+
+    private ExternalPrice readPrice(final JsonParser parser) throws IOException {
+        final ExternalPrice.ExternalPriceBuilder price = ExternalPrice.builder();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+            switch (fieldName) {
+                case "was":
+                    price.was(parser.getValueAsString());
+                    break;
+                case "then":
+                    price.then(parser.getValueAsString());
+                    break;
+                case "then2":
+                    price.then2(parser.getValueAsString());
+                    break;
+                case "currency":
+                    price.currency(stringPool.intern(parser.getValueAsString()));
+                    break;
+                case "now":
+                    final String now = token == JsonToken.START_OBJECT
+                            ? readNowPriceTo(parser)
+                            : parser.getValueAsString();
+                    price.now(now == null ? null : TextNode.valueOf(now));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        return price.build();
+    }
+
+    private String readNowPriceTo(final JsonParser parser) throws IOException {
+        String to = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            if (NOW_PRICE_TO_FIELD_NAME.equals(fieldName)) {
+                to = parser.getValueAsString();
+            }
+            parser.skipChildren();
+        }
+        return to;
+    }
+
+    private List<ExternalColorSwatch> readColorSwatches(final JsonParser parser) throws IOException {
+        final List<ExternalColorSwatch> colorSwatches = new ArrayList<>();
+
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            final ExternalColorSwatch.ExternalColorSwatchBuilder colorSwatch = ExternalColorSwatch.builder();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                switch (fieldName) {
+                    case "color":
+                        colorSwatch.color(stringPool.intern(parser.getValueAsString()));
+                        break;
+                    case "basicColor":
+                        colorSwatch.basicColor(stringPool.intern(parser.getValueAsString()));
+                        break;
+                    case "skuId":
+                        colorSwatch.skuId(parser.getValueAsString());
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            colorSwatches.add(colorSwatch.build());
+        }
+
+        return colorSwatches;
+    }
+
+    private boolean isReduced(final JsonParser parser, final ExternalPrice price) throws IOException {
+        if (price == null) {
+            return false;
+        }
+        try {
+            return PriceFacts.of(price).hasPriceReduction();
+        } catch (final RuntimeException e) {
+            throw new JsonParseException(parser, "Invalid price " + price, e);
+        }
+    }
+
+    private static void expect(final JsonParser parser, final JsonToken actual, final JsonToken expected)
+            throws IOException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but was " + actual);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.andrei.restapi.service;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of the most recent calls, to compute a percentile over. Calls are expected to be infrequent, so recording
+ * and computing the percentile lock the window.
+ */
+class LatencyWindow {
+
+    private final long[] latencies;
+
+    private final int minimumSamples;
+
+    private int samples;
+
+    private int next;
+
+    LatencyWindow(final int size, final int minimumSamples) {
+        this.latencies = new long[size];
+        this.minimumSamples = minimumSamples;
+    }
+
+    synchronized void record(final long latencyNanos) {
+        latencies[next] = latencyNanos;
+        next = (next + 1) % latencies.length;
+        samples = Math.min(samples + 1, latencies.length);
+    }
+
+    /**
+     * Get the latency at the given percentile of the recorded calls.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the latency in nanoseconds, or -1 if fewer than the minimum number of calls were recorded
+     */
+    synchronized long percentile(final double percentile) {
+        if (samples < minimumSamples) {
+            return -1;
+        }
+        final long[] sorted = Arrays.copyOf(latencies, samples);
+        Arrays.sort(sorted);
+        final int index = (int) Math.ceil(percentile / 100 * samples) - 1;
+        return sorted[Math.max(0, Math.min(index, samples - 1))];
+    }
+}
@@ -0,0 +1,454 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.PriceLabelType;
+import com.andrei.restapi.model.external.ExternalColorSwatch;
+import com.andrei.restapi.model.external.ExternalPrice;
+import com.andrei.restapi.model.external.ExternalProduct;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import static com.andrei.restapi.model.external.ExternalPrice.NOW_PRICE_TO_FIELD_NAME;
+
+/**
+ * Products of the last catalog refresh keyed by product id, each with a hash of the external product it was parsed
+ * from. A refresh only parses and serializes products that are new or whose content hash changed, and merges them into
+ * the previous order instead of sorting every product. The JSON of
+ * unchanged products is copied from the views of the last refresh, which are reused whole when the products with a
+ * price reduction are the same as last time, saving their serialization and compression.
+ * <p>
+ * Entries keep only the hash and reduction of a product, and its row in the last committed {@link ProductTable}: a
+ * parsed product is held from {@link #diff(List)} until the refresh is committed, after which unchanged rows are copied
+ * from the table instead of being mapped again.
+ * <p>
+ * Refreshes are expected to run one at a time. {@link #diff(List)} and {@link #commit(Changes, ProductTable, Map)}
+ * synchronize, so views created in between are visible to the next refresh on any thread.
+ */
+final class MappedProductCache {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final int NULL_LENGTH = -1;
+
+    private static final int NOT_CACHED = -1;
+
+    private Map<String, Entry> entries = Collections.emptyMap();
+
+    private List<Entry> reducedEntries = Collections.emptyList();
+
+    private ProductTable table;
+
+    private Map<PriceLabelType, ProductsView> views = Collections.emptyMap();
+
+    /**
+     * Compare the external products with those of the last committed refresh.
+     *
+     * @param externalProducts the external products, in upstream order
+     * @return {@link Changes} with the reduced products ordered highest reduction first
+     * @throws IllegalArgumentException if a price of a changed product is not valid
+     */
+    synchronized Changes diff(final List<ExternalProduct> externalProducts) {
+        final Map<String, Entry> nextEntries = new HashMap<>(Math.max(16, externalProducts.size() * 4 / 3 + 1));
+        final List<Entry> reduced = new ArrayList<>();
+        final Map<Entry, Integer> positions = new IdentityHashMap<>();
+        final List<Entry> changed = new ArrayList<>();
+        int unchangedCount = 0;
+        int changedCount = 0;
+        int addedCount = 0;
+        int matchedCount = 0;
+        boolean uniqueIds = true;
+
+        for (final ExternalProduct externalProduct : externalProducts) {
+            final long contentHash = contentHash(externalProduct);
+            final Entry previous = entries.get(externalProduct.getProductId());
+            final Entry entry;
+            if (previous != null && previous.contentHash == contentHash) {
+                entry = previous;
+                unchangedCount++;
+            } else {
+                entry = new Entry(contentHash, externalProduct);
+                if (previous == null) {
+                    addedCount++;
+                } else {
+                    changedCount++;
+                }
+            }
+            if (previous != null) {
+                matchedCount++;
+            }
+
+            uniqueIds &= nextEntries.put(externalProduct.getProductId(), entry) == null;
+            if (entry.isReduced()) {
+                reduced.add(entry);
+                uniqueIds &= positions.put(entry, reduced.size() - 1) == null;
+                if (entry != previous) {
+                    changed.add(entry);
+                }
+            }
+        }
+
+        final List<Entry> merged = uniqueIds ? merge(positions, changed) : null;
+        final boolean sameReducedEntries = merged != null && changed.isEmpty() && merged.size() == reducedEntries.size();
+        if (sameReducedEntries) {
+            return new Changes(nextEntries, merged, null, table, views, table, views,
+                    unchangedCount, changedCount, addedCount, entries.size() - matchedCount);
+        }
+        final List<Entry> sorted = merged != null ? merged : sort(reduced);
+        return new Changes(nextEntries, sorted, previousIndexes(sorted), table, views, null, null,
+                unchangedCount, changedCount, addedCount, entries.size() - matchedCount);
+    }
+
+    /**
+     * Keep the products of a refresh for the next one, once its views are created. The parsed products of the refresh
+     * are released, their rows of the table are used from now on.
+     *
+     * @param changes the changes returned by {@link #diff(List)}
+     * @param table   the table of the products with a price reduction, in the order of the reduced entries
+     * @param views   the views created from the products
+     */
+    synchronized void commit(final Changes changes, final ProductTable table,
+                             final Map<PriceLabelType, ProductsView> views) {
+        for (int row = 0; row < changes.reducedEntries.size(); row++) {
+            final Entry entry = changes.reducedEntries.get(row);
+            entry.row = row;
+            entry.pricedProduct = null;
+        }
+        this.entries = changes.entries;
+        this.reducedEntries = changes.reducedEntries;
+        this.table = table;
+        this.views = views;
+    }
+
+    /**
+     * Merge the changed products, sorted on their own, into the unchanged products in their previous order. Equal
+     * reductions are ordered by upstream position, as a full sort would.
+     *
+     * @return the merged order, or null if unchanged products moved relative to each other upstream, in which case all
+     * products are sorted
+     */
+    private List<Entry> merge(final Map<Entry, Integer> positions, final List<Entry> changed) {
+        final List<Entry> unchanged = new ArrayList<>(positions.size() - changed.size());
+        for (final Entry entry : reducedEntries) {
+            if (positions.containsKey(entry)) {
+                if (!unchanged.isEmpty() && compare(unchanged.get(unchanged.size() - 1), entry, positions) > 0) {
+                    return null;
+                }
+                unchanged.add(entry);
+            }
+        }
+        final List<Entry> changedSorted = sort(changed);
+
+        final List<Entry> merged = new ArrayList<>(positions.size());
+        int left = 0;
+        int right = 0;
+        while (left < unchanged.size() || right < changedSorted.size()) {
+            if (right >= changedSorted.size() || (left < unchanged.size()
+                    && compare(unchanged.get(left), changedSorted.get(right), positions) <= 0)) {
+                merged.add(unchanged.get(left++));
+            } else {
+                merged.add(changedSorted.get(right++));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Index of each entry in the last committed order, so its JSON can be found in the last views.
+     */
+    private int[] previousIndexes(final List<Entry> sorted) {
+        final Map<Entry, Integer> previousPositions = new IdentityHashMap<>(reducedEntries.size());
+        for (int i = 0; i < reducedEntries.size(); i++) {
+            previousPositions.put(reducedEntries.get(i), i);
+        }
+
+        final int[] previousIndexes = new int[sorted.size()];
+        for (int i = 0; i < previousIndexes.length; i++) {
+            previousIndexes[i] = previousPositions.getOrDefault(sorted.get(i), NOT_CACHED);
+        }
+        return previousIndexes;
+    }
+
+    private static int compare(final Entry first, final Entry second, final Map<Entry, Integer> positions) {
+        final int byReduction = Long.compare(second.getReduction(), first.getReduction());
+        return byReduction != 0 ? byReduction : Integer.compare(positions.get(first), positions.get(second));
+    }
+
+    /**
+     * Sort entries given in upstream order, highest reduction first.
+     */
+    private static List<Entry> sort(final List<Entry> entries) {
+        return PriceReductionOrder.highestFirst(entries, Entry::getReduction);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the fields an external product is mapped from. Each string is prefixed by its length, so
+     * values cannot run into each other.
+     */
+    static long contentHash(final ExternalProduct externalProduct) {
+        long hash = hash(FNV_OFFSET_BASIS, externalProduct.getProductId());
+        hash = hash(hash, externalProduct.getTitle());
+
+        final ExternalPrice price = externalProduct.getPrice();
+        if (price == null) {
+            hash = mix(hash, NULL_LENGTH);
+        } else {
+            hash = hash(hash, price.getWas());
+            hash = hash(hash, price.getThen());
+            hash = hash(hash, price.getThen2());
+            hash = hash(hash, price.getCurrency());
+            hash = hash(hash, nowPrice(price.getNow()));
+        }
+
+        final List<ExternalColorSwatch> colorSwatches = externalProduct.getColorSwatches();
+        if (colorSwatches == null) {
+            return mix(hash, NULL_LENGTH);
+        }
+        hash = mix(hash, colorSwatches.size());
+        for (final ExternalColorSwatch colorSwatch : colorSwatches) {
+            hash = hash(hash, colorSwatch.getColor());
+            hash = hash(hash, colorSwatch.getBasicColor());
+            hash = hash(hash, colorSwatch.getSkuId());
+        }
+        return hash;
+    }
+
+    /**
+     * Only the to price of a now price object is used, so the rest of the object does not change the hash.
+     */
+    private static String nowPrice(final JsonNode now) {
+        if (now == null || now.isNull()) {
+            return null;
+        }
+        return now.isObject() ? now.path(NOW_PRICE_TO_FIELD_NAME).asText(null) : now.asText();
+    }
+
+    private static long hash(final long hash, final String value) {
+        if (value == null) {
+            return mix(hash, NULL_LENGTH);
+        }
+        long result = mix(hash, value.length());
+        for (int i = 0; i < value.length(); i++) {
+            result = mix(result, value.charAt(i));
+        }
+        return result;
+    }
+
+    private static long mix(final long hash, final int value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+
+    /**
+     * A product of the catalog, reused by later refreshes while the content hash stays the same.
+     */
+    static final class Entry {
+
+        private final long contentHash;
+
+        private final boolean reduced;
+
+        private final long reduction;
+
+        /**
+         * The parsed product with a price reduction until the refresh that parsed it is committed, otherwise null.
+         */
+        private PricedProduct pricedProduct;
+
+        /**
+         * Row of the product in the last committed table, or {@link #NOT_CACHED} if not committed yet.
+         */
+        private int row = NOT_CACHED;
+
+        /**
+         * @throws IllegalArgumentException if a price is not valid
+         */
+        private Entry(final long contentHash, final ExternalProduct externalProduct) {
+            final PriceFacts priceFacts = PriceFacts.of(externalProduct.getPrice());
+            this.contentHash = contentHash;
+            this.reduced = priceFacts.hasPriceReduction();
+            this.reduction = priceFacts.getReduction();
+            this.pricedProduct = reduced ? new PricedProduct(externalProduct, priceFacts) : null;
+        }
+
+        private boolean isReduced() {
+            return reduced;
+        }
+
+        private long getReduction() {
+            return reduction;
+        }
+    }
+
+    /**
+     * Result of comparing a refresh with the last committed one.
+     */
+    @Getter
+    static final class Changes {
+
+        @Getter(AccessLevel.NONE)
+        private final Map<String, Entry> entries;
+
+        /**
+         * Products with a price reduction, highest reduction first.
+         */
+        private final List<Entry> reducedEntries;
+
+        /**
+         * Index of each reduced entry in the last committed order, or {@link #NOT_CACHED} if new or changed.
+         */
+        @Getter(AccessLevel.NONE)
+        private final int[] previousIndexes;
+
+        /**
+         * Table of the last commit, whose rows the reduced entries not parsed by this refresh point at.
+         */
+        @Getter(AccessLevel.NONE)
+        private final ProductTable previousTable;
+
+        @Getter(AccessLevel.NONE)
+        private final Map<PriceLabelType, ProductsView> previousViews;
+
+        /**
+         * Table of the last refresh if its products with a price reduction are the same, otherwise null.
+         */
+        private final ProductTable unchangedTable;
+
+        /**
+         * Views of the last refresh if its products with a price reduction are the same, otherwise null.
+         */
+        private final Map<PriceLabelType, ProductsView> unchangedViews;
+
+        /**
+         * Start of the JSON of each product in the JSON written for each view, followed by the end of the last product
+         * plus one.
+         */
+        @Getter(AccessLevel.NONE)
+        private final Map<PriceLabelType, int[]> jsonOffsets = new EnumMap<>(PriceLabelType.class);
+
+        private final int unchanged;
+
+        private final int changed;
+
+        private final int added;
+
+        private final int removed;
+
+        private Changes(final Map<String, Entry> entries, final List<Entry> reducedEntries,
+                        final int[] previousIndexes,
+                        final ProductTable previousTable,
+                        final Map<PriceLabelType, ProductsView> previousViews,
+                        final ProductTable unchangedTable,
+                        final Map<PriceLabelType, ProductsView> unchangedViews,
+                        final int unchanged, final int changed, final int added, final int removed) {
+            this.entries = entries;
+            this.reducedEntries = reducedEntries;
+            this.previousIndexes = previousIndexes;
+            this.previousTable = previousTable;
+            this.previousViews = previousViews;
+            this.unchangedTable = unchangedTable;
+            this.unchangedViews = unchangedViews;
+            this.unchanged = unchanged;
+            this.changed = changed;
+            this.added = added;
+            this.removed = removed;
+        }
+
+        /**
+         * Build the table of the products with a price reduction. Rows of unchanged products are copied from the table
+         * of the last commit, only new and changed products are mapped.
+         *
+         * @param priceFormatter formats the prices of products created from the table
+         * @return {@link ProductTable}
+         * @throws IllegalArgumentException if a basic color of a new or changed product is not valid
+         */
+        ProductTable createTable(final PriceFormatter priceFormatter) {
+            final ProductTable.Builder builder = ProductTable.builder(reducedEntries.size(), priceFormatter,
+                    previousTable);
+            for (final Entry entry : reducedEntries) {
+                if (entry.pricedProduct != null) {
+                    builder.add(entry.pricedProduct);
+                } else {
+                    builder.add(previousTable, entry.row);
+                }
+            }
+            return builder.build();
+        }
+
+        /**
+         * Get the product offsets recorded by {@link #writeJson(PriceLabelType, byte[], byte[], IntFunction)}.
+         *
+         * @return start of the JSON of each product followed by the end of the last product plus one, or null if the
+         * JSON of the view was not written
+         */
+        int[] getJsonOffsets(final PriceLabelType priceLabelType) {
+            return jsonOffsets.get(priceLabelType);
+        }
+
+        /**
+         * Write the JSON of the products with a price reduction of a view between the given prefix and suffix. The JSON
+         * of unchanged products is copied from the last view, only new and changed products are serialized.
+         *
+         * @param priceLabelType the label type of the view
+         * @param prefix         JSON up to and including the start of the products array
+         * @param suffix         JSON from the end of the products array
+         * @param serializer     serializes the product of a row of the reduced entries
+         * @return the JSON of the view
+         */
+        byte[] writeJson(final PriceLabelType priceLabelType, final byte[] prefix, final byte[] suffix,
+                         final IntFunction<byte[]> serializer) {
+            final ProductsView previousView = previousViews.get(priceLabelType);
+            final byte[] previousJson = previousView == null ? null : previousView.getJson();
+            final int[] previousOffsets = previousView == null ? null : previousView.getProductJsonOffsets();
+            final boolean cached = previousJson != null && previousOffsets != null;
+
+            final byte[][] serialized = new byte[reducedEntries.size()][];
+            int length = prefix.length + suffix.length + Math.max(0, reducedEntries.size() - 1);
+            for (int i = 0; i < reducedEntries.size(); i++) {
+                if (cached && previousIndexes[i] != NOT_CACHED) {
+                    length += length(previousOffsets, previousIndexes[i]);
+                } else {
+                    serialized[i] = serializer.apply(i);
+                    length += serialized[i].length;
+                }
+            }
+
+            final byte[] json = new byte[length];
+            final int[] offsets = new int[reducedEntries.size() + 1];
+            System.arraycopy(prefix, 0, json, 0, prefix.length);
+            int offset = prefix.length;
+            for (int i = 0; i < reducedEntries.size(); i++) {
+                if (i > 0) {
+                    json[offset++] = ',';
+                }
+                offsets[i] = offset;
+                if (serialized[i] == null) {
+                    final int productLength = length(previousOffsets, previousIndexes[i]);
+                    System.arraycopy(previousJson, previousOffsets[previousIndexes[i]], json, offset, productLength);
+                    offset += productLength;
+                } else {
+                    System.arraycopy(serialized[i], 0, json, offset, serialized[i].length);
+                    offset += serialized[i].length;
+                }
+            }
+            offsets[reducedEntries.size()] = offset + 1;
+            System.arraycopy(suffix, 0, json, offset, suffix.length);
+
+            jsonOffsets.put(priceLabelType, offsets);
+            return json;
+        }
+
+        private static int length(final int[] offsets, final int index) {
+            return offsets[index + 1] - offsets[index] - 1;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.andrei.restapi.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics of the connection pool of the external product API client: connections in use and idle, and how long a call
+ * waits to acquire a connection, tagged by whether a pooled connection was reused or a new one was opened.
+ */
+class OkHttpConnectionMetrics implements EventListener.Factory {
+
+    static final String CONNECTIONS = "products.upstream.connections";
+
+    static final String CONNECTION_ACQUIRE = "products.upstream.connection.acquire";
+
+    private final Timer reusedAcquire;
+
+    private final Timer newAcquire;
+
+    OkHttpConnectionMetrics(final MeterRegistry registry, final ConnectionPool connectionPool,
+                            final int maxIdleConnections) {
+        Gauge.builder(CONNECTIONS, connectionPool, pool -> pool.connectionCount() - pool.idleConnectionCount())
+                .description("Pooled connections to the external API")
+                .tag("state", "active")
+                .register(registry);
+        Gauge.builder(CONNECTIONS, connectionPool, ConnectionPool::idleConnectionCount)
+                .description("Pooled connections to the external API")
+                .tag("state", "idle")
+                .register(registry);
+        Gauge.builder(CONNECTIONS + ".max.idle", () -> maxIdleConnections)
+                .description("Maximum number of idle connections kept in the pool")
+                .register(registry);
+        this.reusedAcquire = acquireTimer(registry, "reused");
+        this.newAcquire = acquireTimer(registry, "new");
+    }
+
+    @Override
+    public EventListener create(final Call call) {
+        return new AcquireListener();
+    }
+
+    private static Timer acquireTimer(final MeterRegistry registry, final String connection) {
+        return Timer.builder(CONNECTION_ACQUIRE)
+                .description("Time from the start of a call until it has a connection to the external API")
+                .tag("connection", connection)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Times connection acquisition of a single call.
+     */
+    private final class AcquireListener extends EventListener {
+
+        private long callStart;
+
+        private boolean connected;
+
+        @Override
+        public void callStart(final Call call) {
+            callStart = System.nanoTime();
+        }
+
+        @Override
+        public void connectStart(final Call call, final InetSocketAddress address, final Proxy proxy) {
+            connected = true;
+        }
+
+        @Override
+        public void connectionAcquired(final Call call, final Connection connection) {
+            (connected ? newAcquire : reusedAcquire).record(System.nanoTime() - callStart, TimeUnit.NANOSECONDS);
+        }
+    }
+}
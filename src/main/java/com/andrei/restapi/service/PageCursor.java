@@ -0,0 +1,99 @@
+package com.andrei.restapi.service;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the next page in a catalog version, bound to the filter of the pages it links. Encoded as an opaque URL
+ * safe string so clients can not depend on its contents.
+ */
+@Value
+class PageCursor {
+
+    private static final char SEPARATOR = ':';
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Fingerprint of the empty filter, also assumed for cursors issued before cursors carried one.
+     */
+    static final long NO_FILTER = 0;
+
+    private long version;
+
+    private int offset;
+
+    /**
+     * {@link #fingerprint(ProductFilter)} of the filter the cursor was returned with.
+     */
+    private long filter;
+
+    String encode() {
+        final String cursor = Long.toString(version) + SEPARATOR + offset + SEPARATOR + Long.toHexString(filter);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Check that the cursor was returned with the given filter, so its offset points into the same result set.
+     *
+     * @throws {@link PageRequestNotValidException} if the cursor was returned with another filter
+     */
+    void checkFilter(final ProductFilter productFilter) {
+        if (filter != fingerprint(productFilter)) {
+            throw new PageRequestNotValidException("Cursor " + encode() + " was returned with other filters");
+        }
+    }
+
+    /**
+     * Decode a cursor returned by {@link #encode()}.
+     *
+     * @param cursor the encoded cursor
+     * @return {@link PageCursor}
+     * @throws {@link PageRequestNotValidException} if the cursor is not valid
+     */
+    static PageCursor decode(final String cursor) {
+        try {
+            final String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            final int separator = decoded.indexOf(SEPARATOR);
+            final int filterSeparator = decoded.indexOf(SEPARATOR, separator + 1);
+            final int offsetEnd = filterSeparator < 0 ? decoded.length() : filterSeparator;
+            final long filter = filterSeparator < 0
+                    ? NO_FILTER
+                    : Long.parseUnsignedLong(decoded.substring(filterSeparator + 1), 16);
+            final PageCursor pageCursor = new PageCursor(Long.parseLong(decoded.substring(0, separator)),
+                    Integer.parseInt(decoded.substring(separator + 1, offsetEnd)), filter);
+            if (pageCursor.getOffset() < 0) {
+                throw new PageRequestNotValidException("Cursor " + cursor + " is not valid");
+            }
+            return pageCursor;
+        } catch (final IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new PageRequestNotValidException("Cursor " + cursor + " is not valid");
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the conditions of a filter, stable across restarts as cursors outlive them with restored
+     * catalogs. The filter is already normalized: colors are parsed and amounts are in minor units.
+     *
+     * @return the fingerprint, {@link #NO_FILTER} for the empty filter
+     */
+    static long fingerprint(final ProductFilter productFilter) {
+        if (productFilter.isEmpty()) {
+            return NO_FILTER;
+        }
+        final String conditions = (productFilter.getColor() == null ? "" : productFilter.getColor().name()) + SEPARATOR
+                + productFilter.getMinDiscount() + SEPARATOR
+                + productFilter.getMinReduction() + SEPARATOR
+                + productFilter.getMinNowPrice() + SEPARATOR
+                + productFilter.getMaxNowPrice();
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < conditions.length(); i++) {
+            hash = (hash ^ conditions.charAt(i)) * FNV_PRIME;
+        }
+        return hash == NO_FILTER ? 1 : hash;
+    }
+}
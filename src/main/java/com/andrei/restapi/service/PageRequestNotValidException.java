@@ -0,0 +1,15 @@
+package com.andrei.restapi.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a page limit or cursor is not valid.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class PageRequestNotValidException extends RuntimeException {
+
+    public PageRequestNotValidException(final String message) {
+        super(message);
+    }
+}
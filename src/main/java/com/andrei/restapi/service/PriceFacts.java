@@ -0,0 +1,108 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.Currency;
+import com.andrei.restapi.model.Money;
+import com.andrei.restapi.model.external.ExternalPrice;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.commons.lang3.StringUtils;
+
+import static com.andrei.restapi.model.external.ExternalPrice.NOW_PRICE_TO_FIELD_NAME;
+import static com.andrei.restapi.service.ProductTable.NO_PRICE;
+
+/**
+ * Prices of an {@link ExternalPrice} parsed once into {@link Money}. Only prices with a reduction are parsed in full.
+ */
+final class PriceFacts {
+
+    private static final PriceFacts NO_REDUCTION = new PriceFacts(null, null, null);
+
+    private final Money wasPrice;
+
+    private final Money thenPrice;
+
+    private final Money nowPrice;
+
+    private final long reduction;
+
+    private PriceFacts(final Money wasPrice, final Money thenPrice, final Money nowPrice) {
+        this.wasPrice = wasPrice;
+        this.thenPrice = thenPrice;
+        this.nowPrice = nowPrice;
+        this.reduction = wasPrice == null ? 0 : wasPrice.minus(nowPrice).getMinorUnits();
+    }
+
+    /**
+     * Parse the prices of an external price. The then price is taken from then2 if present, otherwise from then.
+     *
+     * @param externalPrice the external price
+     * @return {@link PriceFacts}
+     * @throws IllegalArgumentException if a price is not valid or the now price of a was price is missing
+     */
+    static PriceFacts of(final ExternalPrice externalPrice) {
+        final long wasPrice = parsePrice(externalPrice.getWas());
+        if (wasPrice == NO_PRICE) {
+            return NO_REDUCTION;
+        }
+
+        final long nowPrice = parseNowPrice(externalPrice.getNow());
+        if (nowPrice == NO_PRICE) {
+            throw new IllegalArgumentException("Price " + externalPrice + " has a was price but no now price");
+        }
+        if (wasPrice == nowPrice) {
+            return NO_REDUCTION;
+        }
+
+        final long thenPrice = StringUtils.isBlank(externalPrice.getThen2())
+                ? parsePrice(externalPrice.getThen())
+                : parsePrice(externalPrice.getThen2());
+
+        final Currency currency = Currency.valueOf(externalPrice.getCurrency());
+        return new PriceFacts(Money.of(wasPrice, currency),
+                thenPrice == NO_PRICE ? null : Money.of(thenPrice, currency),
+                Money.of(nowPrice, currency));
+    }
+
+    boolean hasPriceReduction() {
+        return reduction != 0;
+    }
+
+    boolean hasThenPrice() {
+        return thenPrice != null;
+    }
+
+    Money getWasPrice() {
+        return wasPrice;
+    }
+
+    Money getThenPrice() {
+        return thenPrice;
+    }
+
+    Money getNowPrice() {
+        return nowPrice;
+    }
+
+    /**
+     * @return was price minus now price in minor units, or zero if there is no reduction
+     */
+    long getReduction() {
+        return reduction;
+    }
+
+    private static long parseNowPrice(final JsonNode nowNode) {
+        if (nowNode == null) {
+            return NO_PRICE;
+        }
+        if (nowNode.isObject()) {
+            return parsePrice(nowNode.path(NOW_PRICE_TO_FIELD_NAME).asText(null));
+        }
+        return parsePrice(nowNode.asText());
+    }
+
+    private static long parsePrice(final String price) {
+        if (StringUtils.isBlank(price)) {
+            return NO_PRICE;
+        }
+        return Money.parseMinorUnits(price);
+    }
+}
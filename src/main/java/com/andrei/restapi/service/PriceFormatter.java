@@ -0,0 +1,120 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.Currency;
+import com.andrei.restapi.model.Money;
+import org.springframework.stereotype.Component;
+
+/**
+ * Formats prices and price labels. Safe to share between threads: each thread writes into its own reusable
+ * {@link StringBuilder} and currency symbol prefixes are computed once.
+ * <p>
+ * Whole prices of 10 or more are formatted without decimals and with grouping (e.g. {@code £1,250}), other prices with
+ * two decimals and no leading zero below one (e.g. {@code £9.99}, {@code £.50}).
+ */
+@Component
+public class PriceFormatter {
+
+    private static final long INTEGER_FORMAT_THRESHOLD = 10 * Money.MINOR_UNITS_PER_MAJOR_UNIT;
+
+    private static final String WAS = "Was ";
+
+    private static final String THEN = ", then ";
+
+    private static final String NOW = ", now ";
+
+    private static final String PERCENT_OFF_NOW = "% off - now ";
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final String[] CURRENCY_PREFIXES = new String[Currency.values().length];
+
+    static {
+        for (final Currency currency : Currency.values()) {
+            CURRENCY_PREFIXES[currency.ordinal()] = currency.getSymbol();
+        }
+    }
+
+    private final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_CAPACITY));
+
+    public String formatPrice(final Money price) {
+        return appendPrice(buffer(), price).toString();
+    }
+
+    /**
+     * Format a label such as {@code Was £10, now £5.00}.
+     */
+    public String formatWasNow(final Money wasPrice, final Money nowPrice) {
+        final StringBuilder buffer = buffer().append(WAS);
+        appendPrice(buffer, wasPrice).append(NOW);
+        return appendPrice(buffer, nowPrice).toString();
+    }
+
+    /**
+     * Format a label such as {@code Was £10, then £8.00, now £5.00}.
+     */
+    public String formatWasThenNow(final Money wasPrice, final Money thenPrice, final Money nowPrice) {
+        final StringBuilder buffer = buffer().append(WAS);
+        appendPrice(buffer, wasPrice).append(THEN);
+        appendPrice(buffer, thenPrice).append(NOW);
+        return appendPrice(buffer, nowPrice).toString();
+    }
+
+    /**
+     * Format a label such as {@code 50% off - now £5.00}.
+     */
+    public String formatPercentDiscount(final int percentDiscount, final Money nowPrice) {
+        final StringBuilder buffer = buffer().append(percentDiscount).append(PERCENT_OFF_NOW);
+        return appendPrice(buffer, nowPrice).toString();
+    }
+
+    /**
+     * Append a formatted price to the given builder.
+     *
+     * @return the given builder
+     */
+    public StringBuilder appendPrice(final StringBuilder target, final Money price) {
+        target.append(CURRENCY_PREFIXES[price.getCurrency().ordinal()]);
+        long minorUnits = price.getMinorUnits();
+        if (minorUnits < 0) {
+            target.append('-');
+            minorUnits = -minorUnits;
+        }
+
+        final long majorUnits = minorUnits / Money.MINOR_UNITS_PER_MAJOR_UNIT;
+        final int fraction = (int) (minorUnits % Money.MINOR_UNITS_PER_MAJOR_UNIT);
+        if (price.getMinorUnits() >= INTEGER_FORMAT_THRESHOLD && fraction == 0) {
+            return appendGrouped(target, majorUnits);
+        }
+
+        if (majorUnits != 0) {
+            target.append(majorUnits);
+        }
+        target.append('.');
+        if (fraction < 10) {
+            target.append('0');
+        }
+        return target.append(fraction);
+    }
+
+    private StringBuilder buffer() {
+        final StringBuilder buffer = buffers.get();
+        buffer.setLength(0);
+        return buffer;
+    }
+
+    private static StringBuilder appendGrouped(final StringBuilder target, final long value) {
+        if (value < 1000) {
+            return target.append(value);
+        }
+
+        appendGrouped(target, value / 1000).append(',');
+        final int group = (int) (value % 1000);
+        if (group < 100) {
+            target.append('0');
+        }
+        if (group < 10) {
+            target.append('0');
+        }
+        return target.append(group);
+    }
+}
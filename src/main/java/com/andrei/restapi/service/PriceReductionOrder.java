@@ -0,0 +1,96 @@
+package com.andrei.restapi.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Orders products by price reduction using a precomputed primitive key array instead of a comparator that parses
+ * prices on every comparison.
+ */
+final class PriceReductionOrder {
+
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    private PriceReductionOrder() {
+    }
+
+    /**
+     * Get the indexes of the given reductions ordered from highest to lowest reduction. The sort is stable, products
+     * with equal reductions keep their original order.
+     *
+     * @param reductions the price reduction of each product in minor units
+     * @return indexes into {@code reductions}, highest reduction first
+     */
+    static int[] highestFirst(final long[] reductions) {
+        final int size = reductions.length;
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+
+        for (int from = 0; from < size; from += INSERTION_SORT_THRESHOLD) {
+            insertionSort(order, from, Math.min(from + INSERTION_SORT_THRESHOLD, size), reductions);
+        }
+
+        int[] buffer = new int[size];
+        for (int width = INSERTION_SORT_THRESHOLD; width < size; width *= 2) {
+            for (int from = 0; from < size; from += 2 * width) {
+                final int middle = Math.min(from + width, size);
+                final int to = Math.min(from + 2 * width, size);
+                merge(order, buffer, from, middle, to, reductions);
+            }
+            final int[] merged = buffer;
+            buffer = order;
+            order = merged;
+        }
+
+        return order;
+    }
+
+    /**
+     * Order the given elements from highest to lowest reduction. The sort is stable.
+     *
+     * @param elements  the elements
+     * @param reduction the price reduction of an element in minor units
+     * @return a new list of the elements, highest reduction first
+     */
+    static <T> List<T> highestFirst(final List<T> elements, final ToLongFunction<T> reduction) {
+        final long[] reductions = new long[elements.size()];
+        for (int i = 0; i < reductions.length; i++) {
+            reductions[i] = reduction.applyAsLong(elements.get(i));
+        }
+
+        final int[] order = highestFirst(reductions);
+        final List<T> sorted = new ArrayList<>(order.length);
+        for (final int index : order) {
+            sorted.add(elements.get(index));
+        }
+        return sorted;
+    }
+
+    private static void insertionSort(final int[] order, final int from, final int to, final long[] reductions) {
+        for (int i = from + 1; i < to; i++) {
+            final int index = order[i];
+            int j = i - 1;
+            while (j >= from && reductions[order[j]] < reductions[index]) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = index;
+        }
+    }
+
+    private static void merge(final int[] source, final int[] target, final int from, final int middle, final int to,
+                              final long[] reductions) {
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && reductions[source[left]] >= reductions[source[right]])) {
+                target[i] = source[left++];
+            } else {
+                target[i] = source[right++];
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.external.ExternalProduct;
+import lombok.Value;
+
+/**
+ * External product together with its parsed {@link PriceFacts}.
+ */
+@Value
+class PricedProduct {
+
+    private ExternalProduct externalProduct;
+
+    private PriceFacts priceFacts;
+}
@@ -0,0 +1,272 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.configuration.CatalogProperties;
+import com.andrei.restapi.model.external.ExternalProducts;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Holds the current {@link CatalogSnapshot}. Requests read the published snapshot without locking or upstream I/O,
+ * refreshes build a new snapshot and publish it with an atomic swap.
+ */
+@Slf4j
+class ProductCatalog {
+
+    private final Supplier<ExternalProducts> fetcher;
+
+    private final Supplier<CompletableFuture<ExternalProducts>> asyncFetcher;
+
+    private final SnapshotFactory snapshotFactory;
+
+    private final CatalogProperties properties;
+
+    private final Clock clock;
+
+    private final ExecutorService revalidationExecutor;
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+
+    private final AtomicReference<List<CatalogSnapshot>> retainedSnapshots = new AtomicReference<>(Collections.emptyList());
+
+    private final AtomicBoolean revalidating = new AtomicBoolean();
+
+    private final SingleFlight<CatalogSnapshot> refreshFlight = new SingleFlight<>();
+
+    private final AtomicLong versions = new AtomicLong();
+
+    ProductCatalog(final Supplier<ExternalProducts> fetcher,
+                   final Supplier<CompletableFuture<ExternalProducts>> asyncFetcher,
+                   final SnapshotFactory snapshotFactory,
+                   final CatalogProperties properties) {
+        this(fetcher, asyncFetcher, snapshotFactory, properties, Clock.systemUTC());
+    }
+
+    ProductCatalog(final Supplier<ExternalProducts> fetcher,
+                   final Supplier<CompletableFuture<ExternalProducts>> asyncFetcher,
+                   final SnapshotFactory snapshotFactory,
+                   final CatalogProperties properties,
+                   final Clock clock) {
+        this.fetcher = fetcher;
+        this.asyncFetcher = asyncFetcher;
+        this.snapshotFactory = snapshotFactory;
+        this.properties = properties;
+        this.clock = clock;
+        this.revalidationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "catalog-revalidation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Get the snapshot to serve a request from. A fresh snapshot is returned as is, a stale one within the
+     * stale-while-revalidate window is returned while a background refresh is triggered. Otherwise the catalog is
+     * refreshed on the calling thread, falling back to the stale snapshot on error when configured to.
+     *
+     * @return {@link CatalogSnapshot}
+     * @throws {@link ProductServiceException} if no snapshot can be served
+     */
+    CatalogSnapshot getSnapshot() {
+        final CatalogSnapshot current = snapshot.get();
+        if (isServable(current)) {
+            return current;
+        }
+
+        try {
+            return refresh();
+        } catch (final ProductServiceException e) {
+            return fallBackToStale(current, e);
+        }
+    }
+
+    /**
+     * Get the snapshot to serve a request from like {@link #getSnapshot()}, but refresh the catalog without blocking the
+     * calling thread.
+     *
+     * @return future of {@link CatalogSnapshot}, failed with {@link ProductServiceException} if no snapshot can be served
+     */
+    CompletableFuture<CatalogSnapshot> getSnapshotAsync() {
+        final CatalogSnapshot current = snapshot.get();
+        if (isServable(current)) {
+            return CompletableFuture.completedFuture(current);
+        }
+
+        return refreshFlight.executeAsync(() -> asyncFetcher.get()
+                .handle((externalProducts, failure) -> {
+                    if (failure != null) {
+                        throw new ProductServiceException("Unable to retrieve products from API", failure);
+                    }
+                    return publish(externalProducts);
+                }))
+                .handle((refreshed, failure) -> {
+                    if (failure == null) {
+                        return refreshed;
+                    }
+                    if (failure instanceof ProductServiceException) {
+                        return fallBackToStale(current, (ProductServiceException) failure);
+                    }
+                    throw new ProductServiceException("Unable to refresh catalog", failure);
+                });
+    }
+
+    /**
+     * Fetch the upstream catalog and publish a new snapshot. Concurrent refreshes, including those of requests when
+     * caching is disabled, share a single upstream fetch and its result or failure.
+     *
+     * @return the published {@link CatalogSnapshot}
+     * @throws {@link ProductServiceException} if unable to retrieve products from remote API
+     */
+    CatalogSnapshot refresh() {
+        return refreshFlight.execute(this::fetchAndPublish);
+    }
+
+    /**
+     * Publish a snapshot restored from disk at startup, unless one has been fetched already. The restored snapshot is
+     * served like a fetched one of the same age, so it is refreshed according to the TTL and stale-while-revalidate
+     * window and outlives a failed refresh only when serving stale on error.
+     *
+     * @param restored the restored snapshot
+     */
+    void restore(final CatalogSnapshot restored) {
+        if (!snapshot.compareAndSet(null, restored)) {
+            return;
+        }
+        retainedSnapshots.set(List.of(restored));
+        versions.accumulateAndGet(restored.getVersion(), Math::max);
+    }
+
+    /**
+     * @return the single flight coalescing refreshes, for metrics
+     */
+    SingleFlight<CatalogSnapshot> getRefreshFlight() {
+        return refreshFlight;
+    }
+
+    private CatalogSnapshot fetchAndPublish() {
+        final ExternalProducts externalProducts;
+        try {
+            externalProducts = fetcher.get();
+        } catch (final Exception e) {
+            throw new ProductServiceException("Unable to retrieve products from API", e);
+        }
+        return publish(externalProducts);
+    }
+
+    /**
+     * Build and publish a snapshot of the fetched products. A product that can not be mapped fails the refresh like an
+     * upstream error, so the current snapshot keeps being served.
+     */
+    private CatalogSnapshot publish(final ExternalProducts externalProducts) {
+        final CatalogSnapshot refreshed;
+        try {
+            refreshed = snapshotFactory.create(versions.incrementAndGet(), clock.instant(), externalProducts);
+        } catch (final RuntimeException e) {
+            throw new ProductServiceException("Unable to build catalog from products", e);
+        }
+        snapshot.set(refreshed);
+        retainedSnapshots.updateAndGet(retained -> retain(retained, refreshed));
+        return refreshed;
+    }
+
+    /**
+     * Find a recently published snapshot by version, so pages of one version can be served after a refresh.
+     *
+     * @param version the catalog version
+     * @return the snapshot, or empty if the version is no longer retained
+     */
+    Optional<CatalogSnapshot> findSnapshot(final long version) {
+        for (final CatalogSnapshot retained : retainedSnapshots.get()) {
+            if (retained.getVersion() == version) {
+                return Optional.of(retained);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Refresh the catalog, logging instead of throwing on failure. Used by the scheduled refresher.
+     */
+    void refreshQuietly() {
+        try {
+            refresh();
+        } catch (final Exception e) {
+            log.warn("Scheduled catalog refresh failed", e);
+        }
+    }
+
+    /**
+     * Whether the snapshot can be served without refreshing first: it is fresh, or it is stale within the
+     * stale-while-revalidate window in which case a background refresh is triggered.
+     */
+    private boolean isServable(final CatalogSnapshot current) {
+        if (current == null) {
+            return false;
+        }
+        if (properties.getTtl().isZero()) {
+            return false;
+        }
+        final Duration age = Duration.between(current.getFetchedAt(), clock.instant());
+        if (age.compareTo(properties.getTtl()) < 0) {
+            return true;
+        }
+        if (age.compareTo(properties.getTtl().plus(properties.getStaleWhileRevalidate())) < 0) {
+            revalidate();
+            return true;
+        }
+        return false;
+    }
+
+    private CatalogSnapshot fallBackToStale(final CatalogSnapshot current, final ProductServiceException e) {
+        if (current != null && properties.isServeStaleOnError()) {
+            log.warn("Serving stale catalog version {} after failed refresh", current.getVersion(), e);
+            return current;
+        }
+        throw e;
+    }
+
+    private List<CatalogSnapshot> retain(final List<CatalogSnapshot> retained, final CatalogSnapshot refreshed) {
+        final int size = Math.min(retained.size() + 1, Math.max(properties.getRetainedVersions(), 1));
+        final List<CatalogSnapshot> updated = new ArrayList<>(size);
+        updated.add(refreshed);
+        for (int i = 0; updated.size() < size; i++) {
+            updated.add(retained.get(i));
+        }
+        return Collections.unmodifiableList(updated);
+    }
+
+    private void revalidate() {
+        if (!revalidating.compareAndSet(false, true)) {
+            return;
+        }
+        revalidationExecutor.execute(() -> {
+            try {
+                refreshQuietly();
+            } finally {
+                revalidating.set(false);
+            }
+        });
+    }
+
+    /**
+     * Builds a snapshot from the fetched upstream catalog.
+     */
+    @FunctionalInterface
+    interface SnapshotFactory {
+
+        CatalogSnapshot create(long version, Instant fetchedAt, ExternalProducts externalProducts);
+    }
+}
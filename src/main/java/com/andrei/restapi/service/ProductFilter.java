@@ -0,0 +1,79 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.BasicColor;
+import com.andrei.restapi.model.Money;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Conditions products must all meet to be returned. Absent conditions match every product. Prices are in minor units.
+ */
+@Value
+@Builder
+public class ProductFilter {
+
+    public static final ProductFilter NONE = ProductFilter.builder().build();
+
+    /**
+     * Basic color of at least one color swatch.
+     */
+    private BasicColor color;
+
+    /**
+     * Minimum percentage of the was price taken off.
+     */
+    private Integer minDiscount;
+
+    /**
+     * Minimum was price minus now price, negative to include price increases.
+     */
+    private Long minReduction;
+
+    private Long minNowPrice;
+
+    private Long maxNowPrice;
+
+    public boolean isEmpty() {
+        return color == null && minDiscount == null && minReduction == null && minNowPrice == null && maxNowPrice == null;
+    }
+
+    /**
+     * Parse a basic color ignoring case.
+     *
+     * @throws {@link ProductFilterNotValidException} if the color is not valid
+     */
+    public static BasicColor parseColor(final String color) {
+        try {
+            return BasicColor.parse(color);
+        } catch (final IllegalArgumentException e) {
+            throw new ProductFilterNotValidException("Color " + color + " is not valid");
+        }
+    }
+
+    /**
+     * Parse an amount in major units, such as {@code 10} or {@code 9.99}, into minor units.
+     *
+     * @throws {@link ProductFilterNotValidException} if the amount is not valid
+     */
+    public static long parseAmount(final String amount) {
+        try {
+            return Money.parseMinorUnits(amount);
+        } catch (final NumberFormatException e) {
+            throw new ProductFilterNotValidException("Amount " + amount + " is not valid");
+        }
+    }
+
+    /**
+     * Parse an amount in major units like {@link #parseAmount(String)}, also accepting a leading minus sign, such as
+     * {@code -5}, for reductions that are price increases.
+     *
+     * @throws {@link ProductFilterNotValidException} if the amount is not valid
+     */
+    public static long parseSignedAmount(final String amount) {
+        final String trimmed = amount.trim();
+        if (trimmed.startsWith("-")) {
+            return -parseAmount(trimmed.substring(1));
+        }
+        return parseAmount(trimmed);
+    }
+}
@@ -0,0 +1,191 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.BasicColor;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Secondary indexes of a {@link ProductTable} answering a {@link ProductFilter} without scanning every row: one bitset
+ * of rows per {@link BasicColor}, and the rows ordered by reduction, discount and now price with their sorted keys, so a
+ * minimum or maximum selects a contiguous range by binary search.
+ * <p>
+ * A query walks the smallest of the selected ranges and bitsets, and checks the other conditions against the columns of
+ * the candidate rows, or scans the columns in row order when even the smallest range is a large part of the table.
+ * Built once per catalog refresh, immutable afterwards.
+ */
+final class ProductFilterIndex {
+
+    /**
+     * A query whose smallest range holds more than this fraction of the rows scans the columns instead.
+     */
+    private static final int SCAN_FRACTION = 8;
+
+    private final ProductTable table;
+
+    private final BitSet[] colorRows;
+
+    private final int[] colorRowCounts;
+
+    private final SortedKeys reductions;
+
+    private final SortedKeys discounts;
+
+    private final SortedKeys nowPrices;
+
+    private ProductFilterIndex(final ProductTable table) {
+        this.table = table;
+        final int size = table.size();
+        final BasicColor[] basicColors = BasicColor.values();
+        this.colorRows = new BitSet[basicColors.length];
+        this.colorRowCounts = new int[basicColors.length];
+        for (int color = 0; color < basicColors.length; color++) {
+            colorRows[color] = new BitSet(size);
+        }
+
+        final long[] reductionKeys = new long[size];
+        final long[] discountKeys = new long[size];
+        final long[] nowPriceKeys = new long[size];
+        for (int row = 0; row < size; row++) {
+            for (int swatch = 0; swatch < table.getColorSwatchCount(row); swatch++) {
+                colorRows[table.getBasicColor(row, swatch).ordinal()].set(row);
+            }
+            reductionKeys[row] = table.getReduction(row);
+            discountKeys[row] = table.getPercentDiscount(row);
+            nowPriceKeys[row] = table.getNowPrice(row);
+        }
+        for (int color = 0; color < basicColors.length; color++) {
+            colorRowCounts[color] = colorRows[color].cardinality();
+        }
+        this.reductions = new SortedKeys(reductionKeys);
+        this.discounts = new SortedKeys(discountKeys);
+        this.nowPrices = new SortedKeys(nowPriceKeys);
+    }
+
+    static ProductFilterIndex of(final ProductTable table) {
+        return new ProductFilterIndex(table);
+    }
+
+    /**
+     * Find the rows of products that meet the filter.
+     *
+     * @param filter the filter
+     * @return the rows in ascending order, which is the order of the catalog
+     */
+    int[] find(final ProductFilter filter) {
+        final BitSet color = filter.getColor() == null ? null : colorRows[filter.getColor().ordinal()];
+        final long minReduction = filter.getMinReduction() == null ? Long.MIN_VALUE : filter.getMinReduction();
+        final long minDiscount = filter.getMinDiscount() == null ? Long.MIN_VALUE : filter.getMinDiscount();
+        final long minNowPrice = filter.getMinNowPrice() == null ? Long.MIN_VALUE : filter.getMinNowPrice();
+        final long maxNowPrice = filter.getMaxNowPrice() == null ? Long.MAX_VALUE : filter.getMaxNowPrice();
+
+        final int reductionTo = reductions.countAtLeast(minReduction);
+        final int discountTo = discounts.countAtLeast(minDiscount);
+        final int nowPriceFrom = nowPrices.countAbove(maxNowPrice);
+        final int nowPriceTo = nowPrices.countAtLeast(minNowPrice);
+        if (nowPriceFrom >= nowPriceTo) {
+            return new int[0];
+        }
+
+        final int smallestRange = Math.min(Math.min(reductionTo, discountTo), nowPriceTo - nowPriceFrom);
+        if (color != null && colorRowCounts[filter.getColor().ordinal()] <= smallestRange) {
+            final int[] rows = new int[colorRowCounts[filter.getColor().ordinal()]];
+            int count = 0;
+            for (int row = color.nextSetBit(0); row >= 0; row = color.nextSetBit(row + 1)) {
+                if (matches(row, null, minReduction, minDiscount, minNowPrice, maxNowPrice)) {
+                    rows[count++] = row;
+                }
+            }
+            return Arrays.copyOf(rows, count);
+        }
+        if (smallestRange > table.size() / SCAN_FRACTION) {
+            // Walking a wide range jumps around the columns, reading them in row order is faster
+            final int[] rows = new int[smallestRange];
+            int count = 0;
+            for (int row = 0; row < table.size() && count < rows.length; row++) {
+                if (matches(row, color, minReduction, minDiscount, minNowPrice, maxNowPrice)) {
+                    rows[count++] = row;
+                }
+            }
+            return Arrays.copyOf(rows, count);
+        }
+
+        final SortedKeys driver;
+        final int from;
+        final int to;
+        if (smallestRange == reductionTo) {
+            driver = reductions;
+            from = 0;
+            to = reductionTo;
+        } else if (smallestRange == discountTo) {
+            driver = discounts;
+            from = 0;
+            to = discountTo;
+        } else {
+            driver = nowPrices;
+            from = nowPriceFrom;
+            to = nowPriceTo;
+        }
+        // Rows of a range are in key order, a bitset puts them back in catalog order
+        final BitSet matching = new BitSet(table.size());
+        for (int i = from; i < to; i++) {
+            final int row = driver.rows[i];
+            if (matches(row, color, minReduction, minDiscount, minNowPrice, maxNowPrice)) {
+                matching.set(row);
+            }
+        }
+        return matching.stream().toArray();
+    }
+
+    private boolean matches(final int row, final BitSet color, final long minReduction, final long minDiscount,
+                            final long minNowPrice, final long maxNowPrice) {
+        final long nowPrice = table.getNowPrice(row);
+        return (color == null || color.get(row))
+                && table.getReduction(row) >= minReduction
+                && table.getPercentDiscount(row) >= minDiscount
+                && nowPrice >= minNowPrice
+                && nowPrice <= maxNowPrice;
+    }
+
+    /**
+     * Rows ordered from highest to lowest key, with the keys in the same order.
+     */
+    private static final class SortedKeys {
+
+        private final int[] rows;
+
+        private final long[] keys;
+
+        private SortedKeys(final long[] keysByRow) {
+            this.rows = PriceReductionOrder.highestFirst(keysByRow);
+            this.keys = new long[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                keys[i] = keysByRow[rows[i]];
+            }
+        }
+
+        /**
+         * @return the number of keys greater than or equal to the value, which come first
+         */
+        private int countAtLeast(final long value) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (keys[middle] >= value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @return the number of keys greater than the value, which come first
+         */
+        private int countAbove(final long value) {
+            return value == Long.MAX_VALUE ? 0 : countAtLeast(value + 1);
+        }
+    }
+}
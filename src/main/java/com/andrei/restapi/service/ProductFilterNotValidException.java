@@ -0,0 +1,15 @@
+package com.andrei.restapi.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a product filter is not valid.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class ProductFilterNotValidException extends RuntimeException {
+
+    public ProductFilterNotValidException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,69 @@
+package com.andrei.restapi.service;
+
+import java.util.Arrays;
+
+/**
+ * Hash index from product id to row of a {@link ProductTable}, with open addressing over two int arrays: the row and
+ * the id hash of each slot. Only an id whose hash matches is compared, so a lookup decodes a single id of the table.
+ * If ids repeat, the first row, which has the highest price reduction, is found. Built once per catalog refresh,
+ * immutable afterwards.
+ */
+final class ProductIdIndex {
+
+    private static final int EMPTY = -1;
+
+    private final ProductTable table;
+
+    private final int[] slotRows;
+
+    private final int[] slotHashes;
+
+    private final int mask;
+
+    private ProductIdIndex(final ProductTable table) {
+        this.table = table;
+        // At most half full, so probe sequences stay short
+        final int capacity = Integer.highestOneBit(Math.max(2, table.size()) * 2 - 1) << 1;
+        this.slotRows = new int[capacity];
+        this.slotHashes = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(slotRows, EMPTY);
+        for (int row = 0; row < table.size(); row++) {
+            final String productId = table.getProductId(row);
+            if (productId != null && find(productId) == EMPTY) {
+                final int hash = hash(productId);
+                int slot = hash & mask;
+                while (slotRows[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                slotRows[slot] = row;
+                slotHashes[slot] = hash;
+            }
+        }
+    }
+
+    static ProductIdIndex of(final ProductTable table) {
+        return new ProductIdIndex(table);
+    }
+
+    /**
+     * Find the row of a product id.
+     *
+     * @param productId the product id
+     * @return the row, or -1 if no product has the id
+     */
+    int find(final String productId) {
+        final int hash = hash(productId);
+        for (int slot = hash & mask; slotRows[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (slotHashes[slot] == hash && productId.equals(table.getProductId(slotRows[slot]))) {
+                return slotRows[slot];
+            }
+        }
+        return EMPTY;
+    }
+
+    private static int hash(final String productId) {
+        final int hash = productId.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+}
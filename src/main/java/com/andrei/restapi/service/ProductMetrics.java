@@ -0,0 +1,269 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.PriceLabelType;
+import com.andrei.restapi.model.PriceLabelTypeNotValidException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Metrics of the product request path. Meters used per request are registered up front, so recording is a field read
+ * and an increment rather than a registry lookup.
+ */
+@Component
+public class ProductMetrics {
+
+    static final String UPSTREAM_REQUESTS = "products.upstream.requests";
+
+    static final String CATALOG_STAGE = "products.catalog.stage";
+
+    static final String CATALOG_PRODUCTS_IN = "products.catalog.products.in";
+
+    static final String CATALOG_PRODUCTS_OUT = "products.catalog.products.out";
+
+    static final String CATALOG_VIEW_SIZE = "products.catalog.view.size";
+
+    static final String CATALOG_REFRESH_CALLS = "products.catalog.refresh.calls";
+
+    static final String CATALOG_REFRESH_COALESCED = "products.catalog.refresh.coalesced";
+
+    static final String CATALOG_REFRESH_WAITING = "products.catalog.refresh.waiting";
+
+    static final String CATALOG_REFRESH_PRODUCTS = "products.catalog.refresh.products";
+
+    static final String CATALOG_REFRESH_UNCHANGED_RATIO = "products.catalog.refresh.unchanged.ratio";
+
+    static final String REQUESTS = "products.requests";
+
+    static final String ERRORS = "products.errors";
+
+    private static final String OUTCOME_SUCCESS = "success";
+
+    private static final String OUTCOME_ERROR = "error";
+
+    private final MeterRegistry registry;
+
+    private final Timer upstreamSuccess;
+
+    private final Timer upstreamError;
+
+    private final Map<Stage, Timer> stages = new EnumMap<>(Stage.class);
+
+    private final Map<PriceLabelType, Counter> requests = new EnumMap<>(PriceLabelType.class);
+
+    private final Counter priceLabelTypeNotValidErrors;
+
+    private final Counter productServiceErrors;
+
+    private final AtomicLong productsIn = new AtomicLong();
+
+    private final AtomicLong productsOut = new AtomicLong();
+
+    private final Map<PriceLabelType, Map<ContentEncoding, AtomicLong>> viewSizes = new EnumMap<>(PriceLabelType.class);
+
+    private final Counter refreshUnchanged;
+
+    private final Counter refreshChanged;
+
+    private final Counter refreshAdded;
+
+    private final Counter refreshRemoved;
+
+    private final AtomicLong lastRefreshUnchanged = new AtomicLong();
+
+    private final AtomicLong lastRefreshProducts = new AtomicLong();
+
+    public ProductMetrics(final MeterRegistry registry) {
+        this.registry = registry;
+        this.upstreamSuccess = upstreamTimer(OUTCOME_SUCCESS);
+        this.upstreamError = upstreamTimer(OUTCOME_ERROR);
+        for (final Stage stage : Stage.values()) {
+            stages.put(stage, Timer.builder(CATALOG_STAGE)
+                    .description("Time to build a catalog snapshot, per stage")
+                    .tag("stage", stage.getValue())
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        for (final PriceLabelType priceLabelType : PriceLabelType.values()) {
+            requests.put(priceLabelType, Counter.builder(REQUESTS)
+                    .description("Product requests, per label type")
+                    .tag("labelType", priceLabelType.getValue())
+                    .register(registry));
+
+            final Map<ContentEncoding, AtomicLong> sizes = new EnumMap<>(ContentEncoding.class);
+            for (final ContentEncoding contentEncoding : ContentEncoding.values()) {
+                sizes.put(contentEncoding, new AtomicLong());
+                Gauge.builder(CATALOG_VIEW_SIZE, sizes.get(contentEncoding), AtomicLong::get)
+                        .description("Size of the precomputed response body of the current catalog")
+                        .baseUnit("bytes")
+                        .tag("labelType", priceLabelType.getValue())
+                        .tag("encoding", contentEncoding.getValue())
+                        .register(registry);
+            }
+            viewSizes.put(priceLabelType, sizes);
+        }
+        this.priceLabelTypeNotValidErrors = errorCounter(PriceLabelTypeNotValidException.class);
+        this.productServiceErrors = errorCounter(ProductServiceException.class);
+        this.refreshUnchanged = refreshProductsCounter("unchanged");
+        this.refreshChanged = refreshProductsCounter("changed");
+        this.refreshAdded = refreshProductsCounter("added");
+        this.refreshRemoved = refreshProductsCounter("removed");
+
+        Gauge.builder(CATALOG_PRODUCTS_IN, productsIn, AtomicLong::get)
+                .description("Products received from the external API in the current catalog")
+                .register(registry);
+        Gauge.builder(CATALOG_PRODUCTS_OUT, productsOut, AtomicLong::get)
+                .description("Products with a price reduction served from the current catalog")
+                .register(registry);
+        Gauge.builder(CATALOG_REFRESH_UNCHANGED_RATIO, this, ProductMetrics::getLastRefreshUnchangedRatio)
+                .description("Share of the products of the last catalog refresh reused without mapping")
+                .register(registry);
+    }
+
+    /**
+     * Time a call to the external API, tagged by outcome.
+     */
+    <T> T recordUpstream(final Supplier<T> call) {
+        final Timer.Sample sample = Timer.start(registry);
+        try {
+            final T result = call.get();
+            sample.stop(upstreamSuccess);
+            return result;
+        } catch (final RuntimeException | Error e) {
+            sample.stop(upstreamError);
+            throw e;
+        }
+    }
+
+    /**
+     * Time an asynchronous call to the external API from the time it is started until it completes, tagged by outcome.
+     */
+    <T> CompletableFuture<T> recordUpstreamAsync(final Supplier<CompletableFuture<T>> call) {
+        final Timer.Sample sample = Timer.start(registry);
+        return call.get().whenComplete((result, failure) -> sample.stop(failure == null ? upstreamSuccess : upstreamError));
+    }
+
+    /**
+     * Time a stage of building a catalog snapshot.
+     */
+    <T> T recordStage(final Stage stage, final Supplier<T> call) {
+        return stages.get(stage).record(call);
+    }
+
+    void recordCatalog(final int externalProducts, final int reducedProducts) {
+        productsIn.set(externalProducts);
+        productsOut.set(reducedProducts);
+    }
+
+    /**
+     * Record the size of a catalog restored from disk, which only holds the products with a price reduction.
+     */
+    void recordRestoredCatalog(final int reducedProducts) {
+        productsOut.set(reducedProducts);
+    }
+
+    /**
+     * Count the products of a refresh by how they changed since the previous refresh.
+     */
+    void recordCatalogChanges(final MappedProductCache.Changes changes) {
+        refreshUnchanged.increment(changes.getUnchanged());
+        refreshChanged.increment(changes.getChanged());
+        refreshAdded.increment(changes.getAdded());
+        refreshRemoved.increment(changes.getRemoved());
+        lastRefreshUnchanged.set(changes.getUnchanged());
+        lastRefreshProducts.set(changes.getUnchanged() + changes.getChanged() + changes.getAdded());
+    }
+
+    void recordView(final PriceLabelType priceLabelType, final ProductsView view) {
+        final Map<ContentEncoding, AtomicLong> sizes = viewSizes.get(priceLabelType);
+        for (final ContentEncoding contentEncoding : ContentEncoding.values()) {
+            sizes.get(contentEncoding).set(view.getBody(contentEncoding).length);
+        }
+    }
+
+    void recordRequest(final PriceLabelType priceLabelType) {
+        requests.get(priceLabelType).increment();
+    }
+
+    /**
+     * Count a request that failed with the given exception. Exceptions other than {@link PriceLabelTypeNotValidException}
+     * and {@link ProductServiceException} are counted under their own class name.
+     */
+    public void recordError(final Throwable exception) {
+        if (exception instanceof PriceLabelTypeNotValidException) {
+            priceLabelTypeNotValidErrors.increment();
+        } else if (exception instanceof ProductServiceException) {
+            productServiceErrors.increment();
+        } else {
+            errorCounter(exception.getClass()).increment();
+        }
+    }
+
+    /**
+     * Expose the upstream calls made and coalesced by the catalog refresh single flight.
+     */
+    void bindRefreshFlight(final SingleFlight<?> refreshFlight) {
+        FunctionCounter.builder(CATALOG_REFRESH_CALLS, refreshFlight, SingleFlight::getCalls)
+                .description("Catalog refreshes that called the external API")
+                .register(registry);
+        FunctionCounter.builder(CATALOG_REFRESH_COALESCED, refreshFlight, SingleFlight::getCoalescedWaiters)
+                .description("Catalog refreshes that waited for a refresh in flight instead")
+                .register(registry);
+        Gauge.builder(CATALOG_REFRESH_WAITING, refreshFlight, SingleFlight::getWaiting)
+                .description("Callers waiting for the catalog refresh in flight")
+                .register(registry);
+    }
+
+    private double getLastRefreshUnchangedRatio() {
+        final long products = lastRefreshProducts.get();
+        return products == 0 ? 0 : (double) lastRefreshUnchanged.get() / products;
+    }
+
+    private Counter refreshProductsCounter(final String change) {
+        return Counter.builder(CATALOG_REFRESH_PRODUCTS)
+                .description("Products of catalog refreshes, per change since the previous refresh")
+                .tag("change", change)
+                .register(registry);
+    }
+
+    private Timer upstreamTimer(final String outcome) {
+        return Timer.builder(UPSTREAM_REQUESTS)
+                .description("Calls to the external product API")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Counter errorCounter(final Class<?> exceptionClass) {
+        return Counter.builder(ERRORS)
+                .description("Failed product requests, per exception")
+                .tag("exception", exceptionClass.getSimpleName())
+                .register(registry);
+    }
+
+    /**
+     * Stages of building a catalog snapshot.
+     */
+    enum Stage {
+        DIFF("diff"),
+        MAP("map"),
+        SERIALIZE("serialize");
+
+        @Getter
+        private final String value;
+
+        Stage(final String value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.andrei.restapi.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when no product with a price reduction has the requested id.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class ProductNotFoundException extends RuntimeException {
+
+    public ProductNotFoundException(final String productId) {
+        super("Product " + productId + " not found");
+    }
+}
@@ -0,0 +1,318 @@
+package com.andrei.restapi.service;
+
+import java.io.ByteArrayOutputStream;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Inverted index over the titles of a {@link ProductTable}. Titles are split into terms of letters and digits, case
+ * folded and stripped of accents. The terms are sorted, so a prefix selects a contiguous range of them by binary search,
+ * and the rows of each term are stored ascending as variable length deltas in one shared byte array.
+ * <p>
+ * All terms of a query must match a title. The last term also matches as a prefix, unless the query ends with a
+ * separator, so a query typed so far finds the titles it can complete to. Rows are ranked by the sum of the inverse
+ * document frequencies of the matched terms, scaled down for a completed prefix by how much of the term it covers, and
+ * by the number of terms of the title, and then by row, which is the order of highest price reduction. Built once per
+ * catalog refresh, immutable afterwards.
+ */
+final class ProductSearchIndex {
+
+    /**
+     * Weight of a term completing a prefix, against the term typed in full.
+     */
+    private static final float PREFIX_WEIGHT = 0.5f;
+
+    private final int size;
+
+    private final String[] terms;
+
+    /**
+     * Rows of term {@code i} are encoded from {@code postingOffsets[i]} to {@code postingOffsets[i + 1]}.
+     */
+    private final byte[] postings;
+
+    private final int[] postingOffsets;
+
+    private final int[] documentFrequencies;
+
+    /**
+     * Number of distinct terms of the title of each row, at most 255.
+     */
+    private final byte[] titleTermCounts;
+
+    private ProductSearchIndex(final ProductTable table) {
+        this.size = table.size();
+        this.titleTermCounts = new byte[size];
+        final Map<String, RowList> rowsByTerm = new HashMap<>();
+        for (int row = 0; row < size; row++) {
+            final List<String> titleTerms = tokenize(table.getTitle(row));
+            int titleTermCount = 0;
+            for (final String term : titleTerms) {
+                if (rowsByTerm.computeIfAbsent(term, key -> new RowList()).add(row)) {
+                    titleTermCount++;
+                }
+            }
+            titleTermCounts[row] = (byte) Math.min(titleTermCount, 255);
+        }
+
+        this.terms = rowsByTerm.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        this.postingOffsets = new int[terms.length + 1];
+        this.documentFrequencies = new int[terms.length];
+        final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        for (int term = 0; term < terms.length; term++) {
+            final RowList rows = rowsByTerm.get(terms[term]);
+            int previousRow = 0;
+            for (int i = 0; i < rows.count; i++) {
+                writeVarInt(encoded, rows.rows[i] - previousRow);
+                previousRow = rows.rows[i];
+            }
+            documentFrequencies[term] = rows.count;
+            postingOffsets[term + 1] = encoded.size();
+        }
+        this.postings = encoded.toByteArray();
+    }
+
+    static ProductSearchIndex of(final ProductTable table) {
+        return new ProductSearchIndex(table);
+    }
+
+    /**
+     * Split text into case folded terms of letters and digits, without accents.
+     *
+     * @param text the text, may be null
+     * @return the terms in the order of the text
+     */
+    static List<String> tokenize(final String text) {
+        final List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        final String normalized = Normalizer.normalize(text, Normalizer.Form.NFD);
+        final StringBuilder token = new StringBuilder();
+        for (int i = 0; i < normalized.length(); i++) {
+            final char c = normalized.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK && token.length() > 0) {
+                tokens.add(token.toString().toLowerCase(Locale.ROOT));
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString().toLowerCase(Locale.ROOT));
+        }
+        return tokens;
+    }
+
+    /**
+     * Find the rows whose titles match the query, most relevant first.
+     *
+     * @param query the query
+     * @return the rows, empty if the query has no terms
+     */
+    int[] search(final String query) {
+        final List<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty()) {
+            return new int[0];
+        }
+        final boolean lastIsPrefix = Character.isLetterOrDigit(query.charAt(query.length() - 1))
+                || Character.getType(query.charAt(query.length() - 1)) == Character.NON_SPACING_MARK;
+
+        // Intersect from the shortest posting list, so the candidates only shrink
+        final List<ScoredRows> matches = new ArrayList<>(queryTerms.size());
+        for (int i = 0; i < queryTerms.size(); i++) {
+            final ScoredRows termMatches = match(queryTerms.get(i), lastIsPrefix && i == queryTerms.size() - 1);
+            if (termMatches.count == 0) {
+                return new int[0];
+            }
+            matches.add(termMatches);
+        }
+        matches.sort((first, second) -> Integer.compare(first.count, second.count));
+        ScoredRows candidates = matches.get(0);
+        for (int i = 1; i < matches.size() && candidates.count > 0; i++) {
+            candidates = candidates.intersect(matches.get(i));
+        }
+        return rank(candidates);
+    }
+
+    private ScoredRows match(final String queryTerm, final boolean prefix) {
+        final int from = lowerBound(queryTerm);
+        if (!prefix) {
+            return from < terms.length && terms[from].equals(queryTerm)
+                    ? decode(from, idf(from))
+                    : new ScoredRows(new int[0], new float[0], 0);
+        }
+        int to = from;
+        while (to < terms.length && terms[to].startsWith(queryTerm)) {
+            to++;
+        }
+        if (to - from == 1) {
+            return decode(from, score(from, queryTerm));
+        }
+
+        // A row can match several completions, it keeps the score of the best
+        int count = 0;
+        for (int term = from; term < to; term++) {
+            count += documentFrequencies[term];
+        }
+        final long[] scoredRows = new long[count];
+        int next = 0;
+        for (int term = from; term < to; term++) {
+            final float score = score(term, queryTerm);
+            final ScoredRows termRows = decode(term, score);
+            for (int i = 0; i < termRows.count; i++) {
+                scoredRows[next++] = (long) termRows.rows[i] << 32 | Float.floatToIntBits(score);
+            }
+        }
+        Arrays.sort(scoredRows);
+        final int[] rows = new int[count];
+        final float[] scores = new float[count];
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            final int row = (int) (scoredRows[i] >>> 32);
+            if (distinct > 0 && rows[distinct - 1] == row) {
+                distinct--;
+            }
+            rows[distinct] = row;
+            scores[distinct] = Float.intBitsToFloat((int) scoredRows[i]);
+            distinct++;
+        }
+        return new ScoredRows(rows, scores, distinct);
+    }
+
+    private int[] rank(final ScoredRows candidates) {
+        // Scores are positive, so their bits order like them, and the complement of the row puts lower rows first
+        final long[] ranked = new long[candidates.count];
+        for (int i = 0; i < candidates.count; i++) {
+            final int row = candidates.rows[i];
+            final float score = candidates.scores[i] / (float) Math.sqrt(Math.max(1, titleTermCounts[row] & 0xFF));
+            ranked[i] = (long) Float.floatToIntBits(score) << 32 | (Integer.MAX_VALUE - row);
+        }
+        Arrays.sort(ranked);
+        final int[] rows = new int[ranked.length];
+        for (int i = 0; i < ranked.length; i++) {
+            rows[i] = Integer.MAX_VALUE - (int) ranked[ranked.length - 1 - i];
+        }
+        return rows;
+    }
+
+    private ScoredRows decode(final int term, final float score) {
+        final int[] rows = new int[documentFrequencies[term]];
+        final float[] scores = new float[rows.length];
+        int position = postingOffsets[term];
+        int row = 0;
+        for (int i = 0; i < rows.length; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = postings[position++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            row += delta;
+            rows[i] = row;
+            scores[i] = score;
+        }
+        return new ScoredRows(rows, scores, rows.length);
+    }
+
+    private float score(final int term, final String queryTerm) {
+        return terms[term].length() == queryTerm.length()
+                ? idf(term)
+                : idf(term) * PREFIX_WEIGHT * queryTerm.length() / terms[term].length();
+    }
+
+    private float idf(final int term) {
+        return (float) Math.log(1 + (double) size / documentFrequencies[term]);
+    }
+
+    private int lowerBound(final String term) {
+        int low = 0;
+        int high = terms.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (terms[middle].compareTo(term) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static void writeVarInt(final ByteArrayOutputStream out, final int value) {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            out.write((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out.write(remaining);
+    }
+
+    /**
+     * Rows of a term while the index is built, ascending and distinct.
+     */
+    private static final class RowList {
+
+        private int[] rows = new int[4];
+
+        private int count;
+
+        private boolean add(final int row) {
+            if (count > 0 && rows[count - 1] == row) {
+                return false;
+            }
+            if (count == rows.length) {
+                rows = Arrays.copyOf(rows, count * 2);
+            }
+            rows[count++] = row;
+            return true;
+        }
+    }
+
+    /**
+     * Ascending rows with the score of each.
+     */
+    private static final class ScoredRows {
+
+        private final int[] rows;
+
+        private final float[] scores;
+
+        private final int count;
+
+        private ScoredRows(final int[] rows, final float[] scores, final int count) {
+            this.rows = rows;
+            this.scores = scores;
+            this.count = count;
+        }
+
+        /**
+         * @return the rows in both, with the sum of their scores
+         */
+        private ScoredRows intersect(final ScoredRows other) {
+            final int[] rows = new int[count];
+            final float[] scores = new float[count];
+            int matched = 0;
+            int j = 0;
+            for (int i = 0; i < count && j < other.count; i++) {
+                while (j < other.count && other.rows[j] < this.rows[i]) {
+                    j++;
+                }
+                if (j < other.count && other.rows[j] == this.rows[i]) {
+                    rows[matched] = this.rows[i];
+                    scores[matched] = this.scores[i] + other.scores[j];
+                    matched++;
+                }
+            }
+            return new ScoredRows(rows, scores, matched);
+        }
+    }
+}
@@ -1,20 +1,34 @@
 package com.andrei.restapi.service;
 
+import com.andrei.restapi.configuration.CatalogProperties;
 import com.andrei.restapi.model.*;
 import com.andrei.restapi.model.external.ExternalColorSwatch;
 import com.andrei.restapi.model.external.ExternalPrice;
 import com.andrei.restapi.model.external.ExternalProduct;
 import com.andrei.restapi.model.external.ExternalProducts;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.text.DecimalFormat;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
-
-import static com.andrei.restapi.model.external.ExternalPrice.NOW_PRICE_TO_FIELD_NAME;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * Product service.
@@ -22,171 +36,585 @@ import static com.andrei.restapi.model.external.ExternalPrice.NOW_PRICE_TO_FIELD
 @Service
 public class ProductService {
 
-    private static final int DECIMAL_FORMAT_THRESHOLD = 10;
+    private static final PriceLabelType DEFAULT_PRICE_LABEL_TYPE = PriceLabelType.SHOW_WAS_NOW;
+
+    private static final String ETAG_DIGEST_ALGORITHM = "SHA-256";
+
+    private final ObjectMapper objectMapper;
+
+    private final PriceFormatter priceFormatter;
 
-    private static final String WAS_NOW_FORMAT = "Was %s, now %s";
+    private final ProductCatalog productCatalog;
 
-    private static final String WAS_THEN_NOW_FORMAT = "Was %s, then %s, now %s";
+    private final ProductMetrics productMetrics;
 
-    private static final String PERCENT_DISCOUNT_FORMAT = "%s off - now %s";
+    private final CatalogSnapshotStore snapshotStore;
 
-    private static final DecimalFormat DECIMAL_FORMAT = new DecimalFormat(".00");
+    private final MappedProductCache mappedProductCache = new MappedProductCache();
 
-    private static final DecimalFormat INTEGER_FORMAT = new DecimalFormat();
+    private final int maxBatchGetIds;
 
-    private final ExternalProductApiClient externalProductApiClient;
+    /**
+     * Serialized products view without products, split where the products array is spliced in. Null if the JSON of
+     * products cannot be spliced, e.g. when the output is indented, in which case views are serialized whole.
+     */
+    private final byte[] productsJsonPrefix;
 
+    private final byte[] productsJsonSuffix;
 
-    public ProductService(final ExternalProductApiClient externalProductApiClient) {
-        this.externalProductApiClient = externalProductApiClient;
+    /**
+     * Whether products are written straight from the {@link ProductTable}, which is the case unless the object mapper
+     * is configured to serialize products differently, e.g. with a naming strategy.
+     */
+    private final boolean writesProductsFromTable;
+
+    public ProductService(final ExternalProductApiClient externalProductApiClient,
+                          final AsyncExternalProductApiClient asyncExternalProductApiClient,
+                          final CatalogProperties catalogProperties,
+                          final ObjectMapper objectMapper,
+                          final PriceFormatter priceFormatter,
+                          final ProductMetrics productMetrics,
+                          final UpstreamResilience upstreamResilience) {
+        this.objectMapper = objectMapper;
+        this.priceFormatter = priceFormatter;
+        this.productMetrics = productMetrics;
+        this.maxBatchGetIds = catalogProperties.getMaxBatchGetIds();
+
+        final byte[] emptyProductsJson = serialize(Products.builder().products(Collections.emptyList()).build());
+        final int productsArrayEnd = indexOfEmptyArray(emptyProductsJson) + 1;
+        this.productsJsonPrefix = productsArrayEnd > 0 ? Arrays.copyOfRange(emptyProductsJson, 0, productsArrayEnd) : null;
+        this.productsJsonSuffix = productsArrayEnd > 0
+                ? Arrays.copyOfRange(emptyProductsJson, productsArrayEnd, emptyProductsJson.length)
+                : null;
+        this.writesProductsFromTable = writesProductsLikeObjectMapper();
+
+        final Supplier<ExternalProducts> fetcher =
+                () -> productMetrics.recordUpstream(externalProductApiClient::getProducts);
+        final Supplier<CompletableFuture<ExternalProducts>> asyncFetcher =
+                () -> productMetrics.recordUpstreamAsync(asyncExternalProductApiClient::getProducts);
+        // Hedging needs a second call in flight, so blocking refreshes wait for hedged asynchronous calls
+        this.productCatalog = new ProductCatalog(
+                () -> upstreamResilience.isHedging()
+                        ? upstreamResilience.executeAsync(asyncFetcher).join()
+                        : upstreamResilience.execute(fetcher),
+                () -> upstreamResilience.executeAsync(asyncFetcher),
+                this::createSnapshot, catalogProperties);
+
+        this.snapshotStore = StringUtils.isBlank(catalogProperties.getSnapshotFile())
+                ? null
+                : new CatalogSnapshotStore(Paths.get(catalogProperties.getSnapshotFile()));
+        if (snapshotStore != null) {
+            snapshotStore.load(priceFormatter).ifPresent(this::restoreSnapshot);
+        }
+        productMetrics.bindRefreshFlight(productCatalog.getRefreshFlight());
     }
 
     /**
-     * Get products that have a price reduction and show highest product with highest reduction first.
+     * Get products that have a price reduction and show highest product with highest reduction first. The products are
+     * created from the {@link ProductTable} as they are read, responses should be written from
+     * {@link #getProductsView(Optional)} instead.
      *
      * @param priceLabel the price label type
      * @return {@link Products}
      * @throws {@link ProductServiceException} if unable to retrieve products from remote API
      */
     public Products getProducts(final Optional<PriceLabelType> priceLabel) {
-        final ExternalProducts externalProducts;
-        try {
-            externalProducts = externalProductApiClient.getProducts();
-        } catch (final Exception e) {
-            throw new ProductServiceException("Unable to retrieve products from API", e);
-        }
+        return getProductsView(priceLabel).getProducts();
+    }
 
-        final List<Product> products = externalProducts.getProducts().stream()
-                .filter(externalProduct -> getPriceReduction(externalProduct.getPrice()) != 0)
-                .sorted(this::comparePriceReduction)
-                .map(externalProduct -> mapExternalProductToProduct(externalProduct, priceLabel))
-                .collect(Collectors.toList());
+    /**
+     * Get the precomputed view of products that have a price reduction, including its serialized JSON.
+     *
+     * @param priceLabel the price label type
+     * @return {@link ProductsView}
+     * @throws {@link ProductServiceException} if unable to retrieve products from remote API
+     */
+    public ProductsView getProductsView(final Optional<PriceLabelType> priceLabel) {
+        final PriceLabelType priceLabelType = priceLabel.orElse(DEFAULT_PRICE_LABEL_TYPE);
+        final ProductsView view = productCatalog.getSnapshot().getView(priceLabelType);
+        productMetrics.recordRequest(priceLabelType);
+        return view;
+    }
 
-        return Products.builder().products(products).build();
+    /**
+     * Get a page of products that have a price reduction. Without a limit or cursor this is the precomputed view of
+     * all products, tagged with an entity tag and precompressed. Otherwise the page is sliced from the sorted products of
+     * the catalog version the cursor was issued for, so pages stay consistent across refreshes, and its JSON is copied
+     * product by product from the precomputed view.
+     *
+     * @param priceLabel the price label type
+     * @param limit      the maximum number of products in the page, all remaining products if empty
+     * @param cursor     the cursor returned with the previous page, the first page if empty
+     * @return {@link ProductsView}
+     * @throws {@link ProductServiceException} if unable to retrieve products from remote API
+     * @throws {@link PageRequestNotValidException} if the limit or cursor is not valid, or the cursor was returned with
+     * other filters
+     * @throws {@link CatalogVersionExpiredException} if the catalog version of the cursor is no longer retained
+     */
+    public ProductsView getProductsView(final Optional<PriceLabelType> priceLabel, final Optional<Integer> limit,
+                                        final Optional<String> cursor) {
+        return getProductsView(priceLabel, ProductFilter.NONE, limit, cursor);
     }
 
-    private int comparePriceReduction(final ExternalProduct externalProduct1, final ExternalProduct externalProduct2) {
-        return (int) Math.floor(getPriceReduction(externalProduct2.getPrice()) - getPriceReduction(externalProduct1.getPrice()));
+    /**
+     * Get a page of the products that have a price reduction and meet the filter, like
+     * {@link #getProductsView(Optional, Optional, Optional)}. Filtered products are found with the indexes of the
+     * {@link ProductTable} built at refresh time, and only their JSON is copied. Cursors are only valid with the filter
+     * of the page they were returned with.
+     *
+     * @param priceLabel the price label type
+     * @param filter     the filter, {@link ProductFilter#NONE} for all products
+     * @param limit      the maximum number of products in the page, all remaining products if empty
+     * @param cursor     the cursor returned with the previous page, the first page if empty
+     * @return {@link ProductsView}
+     * @throws {@link ProductServiceException} if unable to retrieve products from remote API
+     * @throws {@link PageRequestNotValidException} if the limit or cursor is not valid, or the cursor was returned with
+     * other filters
+     * @throws {@link CatalogVersionExpiredException} if the catalog version of the cursor is no longer retained
+     */
+    public ProductsView getProductsView(final Optional<PriceLabelType> priceLabel, final ProductFilter filter,
+                                        final Optional<Integer> limit, final Optional<String> cursor) {
+        final Optional<PageCursor> pageCursor = parsePageRequest(limit, cursor, filter);
+        final CatalogSnapshot snapshot = pageCursor.isPresent()
+                ? findSnapshot(pageCursor.get())
+                : productCatalog.getSnapshot();
+
+        return selectView(snapshot, priceLabel, filter, limit, pageCursor);
     }
 
-    private double getPriceReduction(final ExternalPrice externalPrice) {
-        if (!extractWasPrice(externalPrice).isPresent()) {
-            return 0;
-        }
+    /**
+     * Get the product with a price reduction of the given id, found with the id index of the {@link ProductTable}
+     * built at refresh time.
+     *
+     * @param productId  the product id
+     * @param priceLabel the price label type
+     * @return {@link Product}
+     * @throws {@link ProductServiceException} if unable to retrieve products from remote API
+     * @throws {@link ProductNotFoundException} if no product with a price reduction has the id
+     */
+    public Product getProduct(final String productId, final Optional<PriceLabelType> priceLabel) {
+        return findProduct(productCatalog.getSnapshot(), productId, priceLabel);
+    }
 
-        final double nowPrice = extractNowPrice(externalPrice);
-        final double wasPrice = extractWasPrice(externalPrice).get();
-        return wasPrice - nowPrice;
+    /**
+     * Get the product with a price reduction of the given id like {@link #getProduct(String, Optional)}, without
+     * blocking the calling thread while the catalog is refreshed from the remote API.
+     *
+     * @param productId  the product id
+     * @param priceLabel the price label type
+     * @return future of {@link Product}, failed with {@link ProductServiceException} if unable to retrieve products
+     * from remote API or with {@link ProductNotFoundException} if no product with a price reduction has the id
+     */
+    public CompletableFuture<Product> getProductAsync(final String productId,
+                                                      final Optional<PriceLabelType> priceLabel) {
+        return productCatalog.getSnapshotAsync().thenApply(snapshot -> findProduct(snapshot, productId, priceLabel));
     }
 
-    private Product mapExternalProductToProduct(final ExternalProduct externalProduct,
-                                                final Optional<PriceLabelType> priceLabelType) {
-        return Product.builder()
-                .productId(externalProduct.getProductId())
-                .title(externalProduct.getTitle())
-                .colorSwatches(extractColorSwatches(externalProduct.getColorSwatches()))
-                .nowPrice(extractFormattedNowPrice(externalProduct.getPrice()))
-                .priceLabel(extractPriceLabel(priceLabelType, externalProduct.getPrice()))
-                .build();
+    /**
+     * Get the products with a price reduction of the given ids, like {@link #getProduct(String, Optional)}, in the
+     * order of the ids. Ids of no such product are skipped. The JSON of the products is copied from the precomputed
+     * view.
+     *
+     * @param productIds the product ids
+     * @param priceLabel the price label type
+     * @return {@link ProductsView}
+     * @throws {@link ProductServiceException} if unable to retrieve products from remote API
+     * @throws {@link BatchGetRequestNotValidException} if there are no ids or more than the configured maximum
+     */
+    public ProductsView batchGetProducts(final List<String> productIds, final Optional<PriceLabelType> priceLabel) {
+        validateBatchGetRequest(productIds);
+        return batchGet(productCatalog.getSnapshot(), productIds, priceLabel);
     }
 
-    private List<ColorSwatch> extractColorSwatches(final List<ExternalColorSwatch> externalColorSwatches) {
-        return externalColorSwatches.stream()
-                .map(this::mapExternalColorSwatchToColorSwatch)
-                .collect(Collectors.toList());
+    /**
+     * Get the products with a price reduction of the given ids like {@link #batchGetProducts(List, Optional)}, without
+     * blocking the calling thread while the catalog is refreshed from the remote API.
+     *
+     * @param productIds the product ids
+     * @param priceLabel the price label type
+     * @return future of {@link ProductsView}, failed with {@link ProductServiceException} if unable to retrieve
+     * products from remote API
+     * @throws {@link BatchGetRequestNotValidException} if there are no ids or more than the configured maximum
+     */
+    public CompletableFuture<ProductsView> batchGetProductsAsync(final List<String> productIds,
+                                                                 final Optional<PriceLabelType> priceLabel) {
+        validateBatchGetRequest(productIds);
+        return productCatalog.getSnapshotAsync().thenApply(snapshot -> batchGet(snapshot, productIds, priceLabel));
     }
 
-    private ColorSwatch mapExternalColorSwatchToColorSwatch(final ExternalColorSwatch externalColorSwatch) {
-        return ColorSwatch.builder()
-                .color(externalColorSwatch.getColor())
-                .rgbColor(BasicColor.parse(externalColorSwatch.getBasicColor()).getRgb())
-                .skuid(externalColorSwatch.getSkuId())
-                .build();
+    /**
+     * Search the products that have a price reduction by title. Matches are found with the search index of the
+     * {@link ProductTable} built at refresh time and ranked by relevance, then by highest price reduction. The last
+     * term of the query also matches titles it is a prefix of, unless the query ends with a separator.
+     *
+     * @param query      the query
+     * @param priceLabel the price label type
+     * @param limit      the maximum number of products, all matching products if empty
+     * @return {@link ProductsView}
+     * @throws {@link ProductServiceException} if unable to retrieve products from remote API
+     * @throws {@link SearchQueryNotValidException} if the query is blank
+     * @throws {@link PageRequestNotValidException} if the limit is not valid
+     */
+    public ProductsView searchProducts(final String query, final Optional<PriceLabelType> priceLabel,
+                                       final Optional<Integer> limit) {
+        validateSearchRequest(query, limit);
+        return search(productCatalog.getSnapshot(), query, priceLabel, limit);
+    }
+
+    /**
+     * Search products like {@link #searchProducts(String, Optional, Optional)}, without blocking the calling thread
+     * while the catalog is refreshed from the remote API.
+     *
+     * @param query      the query
+     * @param priceLabel the price label type
+     * @param limit      the maximum number of products, all matching products if empty
+     * @return future of {@link ProductsView}, failed with {@link ProductServiceException} if unable to retrieve
+     * products from remote API
+     * @throws {@link SearchQueryNotValidException} if the query is blank
+     * @throws {@link PageRequestNotValidException} if the limit is not valid
+     */
+    public CompletableFuture<ProductsView> searchProductsAsync(final String query,
+                                                               final Optional<PriceLabelType> priceLabel,
+                                                               final Optional<Integer> limit) {
+        validateSearchRequest(query, limit);
+        return productCatalog.getSnapshotAsync().thenApply(snapshot -> search(snapshot, query, priceLabel, limit));
+    }
+
+    /**
+     * Get a page of products like {@link #getProductsView(Optional, Optional, Optional)}, without blocking the calling
+     * thread while the catalog is refreshed from the remote API.
+     *
+     * @param priceLabel the price label type
+     * @param limit      the maximum number of products in the page, all remaining products if empty
+     * @param cursor     the cursor returned with the previous page, the first page if empty
+     * @return future of {@link ProductsView}, failed with {@link ProductServiceException} if unable to retrieve
+     * products from remote API
+     * @throws {@link PageRequestNotValidException} if the limit or cursor is not valid, or the cursor was returned with
+     * other filters
+     * @throws {@link CatalogVersionExpiredException} if the catalog version of the cursor is no longer retained
+     */
+    public CompletableFuture<ProductsView> getProductsViewAsync(final Optional<PriceLabelType> priceLabel,
+                                                                final Optional<Integer> limit,
+                                                                final Optional<String> cursor) {
+        return getProductsViewAsync(priceLabel, ProductFilter.NONE, limit, cursor);
     }
 
-    private String extractPriceLabel(final Optional<PriceLabelType> priceLabelType, final ExternalPrice externalPrice) {
-        final PriceLabelType labelType = priceLabelType.orElse(PriceLabelType.SHOW_WAS_NOW);
+    /**
+     * Get a page of the products that have a price reduction and meet the filter, like
+     * {@link #getProductsView(Optional, ProductFilter, Optional, Optional)}, without blocking the calling thread while
+     * the catalog is refreshed from the remote API.
+     *
+     * @param priceLabel the price label type
+     * @param filter     the filter, {@link ProductFilter#NONE} for all products
+     * @param limit      the maximum number of products in the page, all remaining products if empty
+     * @param cursor     the cursor returned with the previous page, the first page if empty
+     * @return future of {@link ProductsView}, failed with {@link ProductServiceException} if unable to retrieve
+     * products from remote API
+     * @throws {@link PageRequestNotValidException} if the limit or cursor is not valid, or the cursor was returned with
+     * other filters
+     * @throws {@link CatalogVersionExpiredException} if the catalog version of the cursor is no longer retained
+     */
+    public CompletableFuture<ProductsView> getProductsViewAsync(final Optional<PriceLabelType> priceLabel,
+                                                                final ProductFilter filter,
+                                                                final Optional<Integer> limit,
+                                                                final Optional<String> cursor) {
+        final Optional<PageCursor> pageCursor = parsePageRequest(limit, cursor, filter);
+        final CompletableFuture<CatalogSnapshot> snapshot = pageCursor.isPresent()
+                ? CompletableFuture.completedFuture(findSnapshot(pageCursor.get()))
+                : productCatalog.getSnapshotAsync();
+
+        return snapshot.thenApply(catalogSnapshot -> selectView(catalogSnapshot, priceLabel, filter, limit,
+                pageCursor));
+    }
 
-        final String nowPrice = extractFormattedNowPrice(externalPrice);
+    /**
+     * Get the single flight that coalesces concurrent catalog refreshes, exposing how many upstream calls were made and
+     * how many callers waited for a call in flight instead.
+     *
+     * @return {@link SingleFlight}
+     */
+    public SingleFlight<CatalogSnapshot> getCatalogRefreshFlight() {
+        return productCatalog.getRefreshFlight();
+    }
 
-        switch (labelType) {
-            case SHOW_WAS_THEN_NOW:
-                if (!(StringUtils.isBlank(externalPrice.getThen2()) && StringUtils.isBlank(externalPrice.getThen()))) {
-                    return String.format(WAS_THEN_NOW_FORMAT, extractFormattedWasPrice(externalPrice),
-                            extractFormattedThenPrice(externalPrice), nowPrice);
+    /**
+     * Refresh the catalog snapshot in the background so requests are served without upstream I/O.
+     */
+    @Scheduled(fixedDelayString = "#{@catalogProperties.refreshInterval.toMillis()}")
+    public void refreshCatalog() {
+        productCatalog.refreshQuietly();
+    }
+
+    private static Optional<PageCursor> parsePageRequest(final Optional<Integer> limit, final Optional<String> cursor,
+                                                         final ProductFilter filter) {
+        if (limit.isPresent() && limit.get() < 1) {
+            throw new PageRequestNotValidException("Limit " + limit.get() + " must be positive");
+        }
+        final Optional<PageCursor> pageCursor = cursor.map(PageCursor::decode);
+        pageCursor.ifPresent(presentCursor -> presentCursor.checkFilter(filter));
+        return pageCursor;
+    }
 
-                }
-            case SHOW_WAS_NOW:
-                return String.format(WAS_NOW_FORMAT, extractFormattedWasPrice(externalPrice), nowPrice);
+    private Product findProduct(final CatalogSnapshot snapshot, final String productId,
+                                final Optional<PriceLabelType> priceLabel) {
+        final PriceLabelType priceLabelType = priceLabel.orElse(DEFAULT_PRICE_LABEL_TYPE);
+        productMetrics.recordRequest(priceLabelType);
 
-            case SHOW_PERC_DISCOUNT:
-                return String.format(PERCENT_DISCOUNT_FORMAT, extractPercentageDiscount(externalPrice), nowPrice);
+        final ProductTable table = snapshot.getTable();
+        final int row = table.findRow(productId);
+        if (row < 0) {
+            throw new ProductNotFoundException(productId);
+        }
+        return table.getProduct(row, priceLabelType);
+    }
 
-            default:
-                throw new IllegalStateException("Label type " + labelType + " not recognised");
+    private void validateBatchGetRequest(final List<String> productIds) {
+        if (productIds == null || productIds.isEmpty() || productIds.size() > maxBatchGetIds) {
+            throw new BatchGetRequestNotValidException("Between 1 and " + maxBatchGetIds + " product ids are required");
         }
     }
 
-    private String extractFormattedNowPrice(final ExternalPrice externalPrice) {
-        return formatPrice(extractNowPrice(externalPrice), Currency.valueOf(externalPrice.getCurrency()));
+    private ProductsView batchGet(final CatalogSnapshot snapshot, final List<String> productIds,
+                                  final Optional<PriceLabelType> priceLabel) {
+        final PriceLabelType priceLabelType = priceLabel.orElse(DEFAULT_PRICE_LABEL_TYPE);
+        productMetrics.recordRequest(priceLabelType);
+
+        final int[] rows = new int[productIds.size()];
+        int count = 0;
+        for (final String productId : productIds) {
+            final int row = productId == null ? -1 : snapshot.getTable().findRow(productId);
+            if (row >= 0) {
+                rows[count++] = row;
+            }
+        }
+        return createView(snapshot, priceLabelType, Arrays.copyOf(rows, count), null);
+    }
+
+    private static void validateSearchRequest(final String query, final Optional<Integer> limit) {
+        if (StringUtils.isBlank(query)) {
+            throw new SearchQueryNotValidException("Query must not be blank");
+        }
+        parsePageRequest(limit, Optional.empty(), ProductFilter.NONE);
+    }
+
+    private ProductsView search(final CatalogSnapshot snapshot, final String query,
+                                final Optional<PriceLabelType> priceLabel, final Optional<Integer> limit) {
+        final PriceLabelType priceLabelType = priceLabel.orElse(DEFAULT_PRICE_LABEL_TYPE);
+        productMetrics.recordRequest(priceLabelType);
+
+        final int[] rows = snapshot.getTable().search(query);
+        final int count = limit.map(maxCount -> Math.min(maxCount, rows.length)).orElse(rows.length);
+        return createView(snapshot, priceLabelType, Arrays.copyOf(rows, count), null);
+    }
+
+    private CatalogSnapshot findSnapshot(final PageCursor pageCursor) {
+        return productCatalog.findSnapshot(pageCursor.getVersion())
+                .orElseThrow(() -> new CatalogVersionExpiredException(pageCursor.getVersion()));
     }
 
-    private double extractNowPrice(final ExternalPrice externalPrice) {
-        String nowPriceText = "";
+    private ProductsView selectView(final CatalogSnapshot snapshot, final Optional<PriceLabelType> priceLabel,
+                                    final ProductFilter filter, final Optional<Integer> limit,
+                                    final Optional<PageCursor> pageCursor) {
+        final PriceLabelType priceLabelType = priceLabel.orElse(DEFAULT_PRICE_LABEL_TYPE);
+        productMetrics.recordRequest(priceLabelType);
+        final ProductsView view = snapshot.getView(priceLabelType);
+        if (filter.isEmpty() && !limit.isPresent() && !pageCursor.isPresent()) {
+            return view;
+        }
 
-        final JsonNode nowNode = externalPrice.getNow();
-        if (nowNode.isTextual()) {
-            nowPriceText = externalPrice.getNow().asText();
+        final int[] rows = filter.isEmpty() ? null : snapshot.getTable().find(filter);
+        final int size = rows == null ? snapshot.getTable().size() : rows.length;
+        final int from = Math.min(pageCursor.map(PageCursor::getOffset).orElse(0), size);
+        final int to = limit.map(pageLimit -> (int) Math.min((long) from + pageLimit, size)).orElse(size);
+        final String nextCursor = to < size
+                ? new PageCursor(snapshot.getVersion(), to, PageCursor.fingerprint(filter)).encode()
+                : null;
+
+        final int[] pageRows = new int[to - from];
+        for (int i = 0; i < pageRows.length; i++) {
+            pageRows[i] = rows == null ? from + i : rows[from + i];
         }
-        if (nowNode.isObject()) {
-            nowPriceText = nowNode.get(NOW_PRICE_TO_FIELD_NAME).asText();
+        return createView(snapshot, priceLabelType, pageRows, nextCursor);
+    }
+
+    /**
+     * Create the view of the given rows of a snapshot. The JSON of each product is copied from the view of the label
+     * type, whose products are in the order of the rows, so products are only created if the view is read as objects.
+     */
+    private ProductsView createView(final CatalogSnapshot snapshot, final PriceLabelType priceLabelType,
+                                    final int[] rows, final String nextCursor) {
+        final Products products = Products.builder()
+                .products(snapshot.getTable().getProducts(rows, priceLabelType))
+                .nextCursor(nextCursor)
+                .build();
+        final ProductsView view = snapshot.getView(priceLabelType);
+        if (!view.hasProductJson() || productsJsonPrefix == null) {
+            return createView(products);
         }
 
-        return Double.parseDouble(nowPriceText);
+        byte[] prefix = productsJsonPrefix;
+        byte[] suffix = productsJsonSuffix;
+        if (nextCursor != null) {
+            final byte[] emptyProductsJson = serialize(Products.builder()
+                    .products(Collections.emptyList())
+                    .nextCursor(nextCursor)
+                    .build());
+            final int productsArrayEnd = indexOfEmptyArray(emptyProductsJson) + 1;
+            prefix = Arrays.copyOfRange(emptyProductsJson, 0, productsArrayEnd);
+            suffix = Arrays.copyOfRange(emptyProductsJson, productsArrayEnd, emptyProductsJson.length);
+        }
+        return ProductsView.builder()
+                .products(products)
+                .json(view.joinProductJson(rows, prefix, suffix))
+                .build();
     }
 
-    private String extractFormattedWasPrice(final ExternalPrice externalPrice) {
-        final Optional<Double> wasPriceOp = extractWasPrice(externalPrice);
-        if (wasPriceOp.isPresent()) {
-            return formatPrice(wasPriceOp.get(), Currency.valueOf(externalPrice.getCurrency()));
+    /**
+     * Create the snapshot of a refresh. Only products that are new or changed since the previous refresh are parsed and
+     * serialized, the others are reused from {@link MappedProductCache}, as are the table and views if no product
+     * changed.
+     */
+    CatalogSnapshot createSnapshot(final long version, final Instant fetchedAt,
+                                   final ExternalProducts externalProducts) {
+        final MappedProductCache.Changes changes = productMetrics.recordStage(ProductMetrics.Stage.DIFF,
+                () -> mappedProductCache.diff(externalProducts.getProducts()));
+        final List<MappedProductCache.Entry> reducedEntries = changes.getReducedEntries();
+        productMetrics.recordCatalog(externalProducts.countReceived(), reducedEntries.size());
+        productMetrics.recordCatalogChanges(changes);
+
+        final ProductTable table = changes.getUnchangedTable() != null
+                ? changes.getUnchangedTable()
+                : productMetrics.recordStage(ProductMetrics.Stage.MAP, () -> changes.createTable(priceFormatter));
+        final Map<PriceLabelType, ProductsView> views = changes.getUnchangedViews() != null
+                ? changes.getUnchangedViews()
+                : createViews(changes, table);
+        views.forEach(productMetrics::recordView);
+        mappedProductCache.commit(changes, table, views);
+
+        final CatalogSnapshot snapshot = CatalogSnapshot.builder()
+                .version(version)
+                .fetchedAt(fetchedAt)
+                .table(table)
+                .views(views)
+                .build();
+        if (snapshotStore != null) {
+            snapshotStore.saveAsync(snapshot);
         }
+        return snapshot;
+    }
 
-        return "";
+    private void restoreSnapshot(final CatalogSnapshot snapshot) {
+        productCatalog.restore(snapshot);
+        productMetrics.recordRestoredCatalog(snapshot.getTable().size());
+        snapshot.getViews().forEach(productMetrics::recordView);
     }
 
-    private Optional<Double> extractWasPrice(final ExternalPrice externalPrice) {
-        final String wasPrice = externalPrice.getWas();
-        if (StringUtils.isBlank(wasPrice)) {
-            return Optional.empty();
+    private Map<PriceLabelType, ProductsView> createViews(final MappedProductCache.Changes changes,
+                                                          final ProductTable table) {
+        final Map<PriceLabelType, ProductsView> views = new EnumMap<>(PriceLabelType.class);
+        for (final PriceLabelType priceLabelType : PriceLabelType.values()) {
+            views.put(priceLabelType, createView(changes, table, priceLabelType));
         }
-        return Optional.of(Double.parseDouble(wasPrice));
+        return Collections.unmodifiableMap(views);
     }
 
-    private String extractFormattedThenPrice(final ExternalPrice externalPrice) {
-        if (!StringUtils.isBlank(externalPrice.getThen2())) {
-            return formatPrice(Double.parseDouble(externalPrice.getThen2()), Currency.valueOf(externalPrice.getCurrency()));
-        } else if (!StringUtils.isBlank(externalPrice.getThen())) {
-            return formatPrice(Double.parseDouble(externalPrice.getThen()), Currency.valueOf(externalPrice.getCurrency()));
+    private ProductsView createView(final MappedProductCache.Changes changes, final ProductTable table,
+                                    final PriceLabelType priceLabelType) {
+        final Products view = Products.builder().products(table.getProducts(priceLabelType)).build();
+        final byte[] json = productMetrics.recordStage(ProductMetrics.Stage.SERIALIZE, () -> productsJsonPrefix == null
+                ? serialize(view)
+                : changes.writeJson(priceLabelType, productsJsonPrefix, productsJsonSuffix,
+                        row -> serialize(table, row, priceLabelType)));
+        final String contentHash = hash(json);
+        return ProductsView.builder()
+                .products(view)
+                .json(json)
+                .productJsonOffsets(changes.getJsonOffsets(priceLabelType))
+                .etag(createETag(priceLabelType, ContentEncoding.IDENTITY, contentHash))
+                .gzipJson(ContentEncoding.GZIP.encode(json))
+                .gzipEtag(createETag(priceLabelType, ContentEncoding.GZIP, contentHash))
+                .build();
+    }
+
+    private ProductsView createView(final Products products) {
+        return ProductsView.builder().products(products).json(serialize(products)).build();
+    }
+
+    private byte[] serialize(final ProductTable table, final int row, final PriceLabelType priceLabelType) {
+        if (!writesProductsFromTable) {
+            return serialize(table.getProduct(row, priceLabelType));
+        }
+        final ByteArrayBuilder buffer = new ByteArrayBuilder();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(buffer)) {
+            table.writeProduct(generator, row, priceLabelType);
+        } catch (final IOException e) {
+            throw new ProductServiceException("Unable to serialize products", e);
         }
+        return buffer.toByteArray();
+    }
 
-        return "";
+    /**
+     * Check that products written from a table match those serialized by the object mapper, for a product with null
+     * fields and every label type.
+     */
+    private boolean writesProductsLikeObjectMapper() {
+        final ExternalProduct probe = ExternalProduct.builder()
+                .productId("probe")
+                .price(ExternalPrice.builder().was("3.00").then("2.00").now(new TextNode("1.00")).currency("GBP").build())
+                .colorSwatches(List.of(ExternalColorSwatch.builder().color("Red").basicColor("Red").skuId("1").build(),
+                        ExternalColorSwatch.builder().basicColor("Multi").build()))
+                .build();
+        final ProductTable table = ProductTable.of(List.of(new PricedProduct(probe, PriceFacts.of(probe.getPrice()))),
+                priceFormatter);
+        final ByteArrayBuilder buffer = new ByteArrayBuilder();
+        for (final PriceLabelType priceLabelType : PriceLabelType.values()) {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(buffer)) {
+                table.writeProduct(generator, 0, priceLabelType);
+            } catch (final IOException e) {
+                return false;
+            }
+            if (!Arrays.equals(buffer.toByteArray(), serialize(table.getProduct(0, priceLabelType)))) {
+                return false;
+            }
+            buffer.reset();
+        }
+        return true;
     }
 
-    private String formatPrice(final double price, final Currency currency) {
-        if (price >= DECIMAL_FORMAT_THRESHOLD && Math.floor(price) == price) {
-            return currency.getSymbol() + INTEGER_FORMAT.format(price);
+    private byte[] serialize(final Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (final JsonProcessingException e) {
+            throw new ProductServiceException("Unable to serialize products", e);
         }
-        return currency.getSymbol() + DECIMAL_FORMAT.format(price);
     }
 
-    private String extractPercentageDiscount(final ExternalPrice externalPrice) {
-        if (!extractWasPrice(externalPrice).isPresent()) {
-            return "";
+    private static int indexOfEmptyArray(final byte[] json) {
+        for (int i = 0; i < json.length - 1; i++) {
+            if (json[i] == '[' && json[i + 1] == ']') {
+                return i;
+            }
         }
+        return -1;
+    }
 
-        final double nowPrice = extractNowPrice(externalPrice);
-        final Double wasPrice = extractWasPrice(externalPrice).get();
-        final int percentDiscount = (int) (((wasPrice - nowPrice) / wasPrice) * 100);
-        return percentDiscount + "%";
+    /**
+     * Create a strong entity tag from the label type, the content encoding and a hash of the serialized content. Each
+     * encoding gets its own tag as the encoded bytes differ.
+     */
+    private static String createETag(final PriceLabelType priceLabelType, final ContentEncoding contentEncoding,
+                                     final String contentHash) {
+        final String etag = priceLabelType.getValue() + "-" + contentHash;
+        return "\"" + (contentEncoding == ContentEncoding.IDENTITY ? etag : etag + "-" + contentEncoding.getValue()) + "\"";
+    }
+
+    private static String hash(final byte[] json) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(ETAG_DIGEST_ALGORITHM);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Digest algorithm " + ETAG_DIGEST_ALGORITHM + " not available", e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest(json));
     }
 }
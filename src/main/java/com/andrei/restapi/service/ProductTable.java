@@ -0,0 +1,647 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.BasicColor;
+import com.andrei.restapi.model.ColorSwatch;
+import com.andrei.restapi.model.Currency;
+import com.andrei.restapi.model.Money;
+import com.andrei.restapi.model.PriceLabelType;
+import com.andrei.restapi.model.Product;
+import com.andrei.restapi.model.external.ExternalColorSwatch;
+import com.andrei.restapi.model.external.ExternalProduct;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Products with a price reduction of a catalog snapshot held column by column, one row per product in the order of
+ * the snapshot. Prices, reductions and discounts are primitive columns, product ids, titles, colors and sku ids are
+ * UTF-8 slices of one shared byte array, and the color swatches of all products are rows of one flat swatch table.
+ * Scanning a column reads consecutive memory instead of following references through product objects.
+ * <p>
+ * {@link Product} objects are not kept: they are created on access, and JSON is written straight from the columns. A
+ * table can be built from parsed products, from the rows of another table or from the columns of a saved snapshot.
+ * The {@link ProductIdIndex}, {@link ProductFilterIndex} and {@link ProductSearchIndex} of the table are built with it.
+ * Immutable once built.
+ */
+public final class ProductTable {
+
+    /**
+     * Price in minor units of a row without one, also used while parsing an external price that lacks one.
+     */
+    static final long NO_PRICE = Long.MIN_VALUE;
+
+    private static final int NULL_STRING = -1;
+
+    /**
+     * Capacities per row a table starts from when there is no previous table to size it after. The columns grow from
+     * there, so a cold start does not reserve memory for strings it may never hold.
+     */
+    private static final int INITIAL_STRING_BYTES_PER_ROW = 8;
+
+    private static final int INITIAL_STRINGS_PER_ROW = 2;
+
+    private static final int INITIAL_SWATCHES_PER_ROW = 1;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private static final BasicColor[] BASIC_COLORS = BasicColor.values();
+
+    private static final Currency[] CURRENCIES = Currency.values();
+
+    private static final String PRODUCT_ID = "productId";
+
+    private static final String TITLE = "title";
+
+    private static final String COLOR_SWATCHES = "colorSwatches";
+
+    private static final String COLOR = "color";
+
+    private static final String RGB_COLOR = "rgbColor";
+
+    private static final String SKUID = "skuid";
+
+    private static final String NOW_PRICE = "nowPrice";
+
+    private static final String PRICE_LABEL = "priceLabel";
+
+    private final PriceFormatter priceFormatter;
+
+    private final int size;
+
+    /**
+     * UTF-8 bytes of all strings, string {@code i} runs from {@code stringOffsets[i]} to {@code stringOffsets[i + 1]}.
+     */
+    private final byte[] strings;
+
+    private final int[] stringOffsets;
+
+    private final int[] productIds;
+
+    private final int[] titles;
+
+    private final long[] wasPrices;
+
+    /**
+     * Then price in minor units, or {@link #NO_PRICE} if the product has none.
+     */
+    private final long[] thenPrices;
+
+    private final long[] nowPrices;
+
+    private final long[] reductions;
+
+    private final int[] percentDiscounts;
+
+    private final byte[] currencies;
+
+    /**
+     * Swatches of row {@code i} are swatch rows {@code swatchOffsets[i]} to {@code swatchOffsets[i + 1]}.
+     */
+    private final int[] swatchOffsets;
+
+    private final int[] swatchColors;
+
+    private final byte[] swatchBasicColors;
+
+    private final int[] swatchSkuIds;
+
+    private final ProductIdIndex idIndex;
+
+    private final ProductFilterIndex filterIndex;
+
+    private final ProductSearchIndex searchIndex;
+
+    private ProductTable(final Builder builder) {
+        this.priceFormatter = builder.priceFormatter;
+        this.size = builder.size;
+        this.strings = Arrays.copyOf(builder.strings, builder.stringsLength);
+        this.stringOffsets = Arrays.copyOf(builder.stringOffsets, builder.stringCount + 1);
+        this.productIds = builder.productIds;
+        this.titles = builder.titles;
+        this.wasPrices = builder.wasPrices;
+        this.thenPrices = builder.thenPrices;
+        this.nowPrices = builder.nowPrices;
+        this.reductions = builder.reductions;
+        this.percentDiscounts = builder.percentDiscounts;
+        this.currencies = builder.currencies;
+        this.swatchOffsets = builder.swatchOffsets;
+        this.swatchColors = Arrays.copyOf(builder.swatchColors, builder.swatchCount);
+        this.swatchBasicColors = Arrays.copyOf(builder.swatchBasicColors, builder.swatchCount);
+        this.swatchSkuIds = Arrays.copyOf(builder.swatchSkuIds, builder.swatchCount);
+        this.idIndex = ProductIdIndex.of(this);
+        this.filterIndex = ProductFilterIndex.of(this);
+        this.searchIndex = ProductSearchIndex.of(this);
+    }
+
+    /**
+     * Build the table of the given products with a price reduction.
+     *
+     * @param reducedProducts the products, in the order of the rows
+     * @param priceFormatter  formats the prices of products created from the table
+     * @return {@link ProductTable}
+     * @throws IllegalArgumentException if a basic color is not valid
+     */
+    static ProductTable of(final List<PricedProduct> reducedProducts, final PriceFormatter priceFormatter) {
+        final Builder builder = builder(reducedProducts.size(), priceFormatter);
+        for (final PricedProduct pricedProduct : reducedProducts) {
+            builder.add(pricedProduct);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Start a table of the given number of rows, filled one row at a time.
+     *
+     * @param size           the number of rows
+     * @param priceFormatter formats the prices of products created from the table
+     * @return {@link Builder}
+     */
+    static Builder builder(final int size, final PriceFormatter priceFormatter) {
+        return new Builder(size, priceFormatter, (long) size * INITIAL_STRING_BYTES_PER_ROW,
+                (long) size * INITIAL_STRINGS_PER_ROW, (long) size * INITIAL_SWATCHES_PER_ROW);
+    }
+
+    /**
+     * Start a table of the given number of rows, with its strings and color swatches sized after those per row of a
+     * previous table, so a refresh of a similar catalog neither grows the columns nor reserves much more than it uses.
+     *
+     * @param size           the number of rows
+     * @param priceFormatter formats the prices of products created from the table
+     * @param sizingTable    the previous table, may be null or empty
+     * @return {@link Builder}
+     */
+    static Builder builder(final int size, final PriceFormatter priceFormatter, final ProductTable sizingTable) {
+        if (sizingTable == null || sizingTable.size == 0) {
+            return builder(size, priceFormatter);
+        }
+        return new Builder(size, priceFormatter, scale(sizingTable.strings.length, sizingTable.size, size),
+                scale(sizingTable.stringOffsets.length - 1, sizingTable.size, size),
+                scale(sizingTable.swatchColors.length, sizingTable.size, size));
+    }
+
+    /**
+     * Scale a count of a table to another number of rows, with a sixteenth of headroom.
+     */
+    private static long scale(final int count, final int tableSize, final int size) {
+        final long scaled = (long) count * size / tableSize;
+        return scaled + scaled / 16;
+    }
+
+    /**
+     * Grow a column by half rather than doubling it, so a full column overshoots what it holds by less.
+     */
+    private static int grow(final int capacity, final long required) {
+        final long grown = Math.max(required, capacity + (capacity >> 1));
+        if (grown > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Column of " + required + " entries is too large");
+        }
+        return (int) grown;
+    }
+
+    private static int capacity(final long estimate) {
+        return (int) Math.min(Integer.MAX_VALUE - 8, Math.max(MIN_CAPACITY, estimate));
+    }
+
+    int size() {
+        return size;
+    }
+
+    String getProductId(final int row) {
+        return string(productIds[row]);
+    }
+
+    String getTitle(final int row) {
+        return string(titles[row]);
+    }
+
+    /**
+     * @return was price minus now price in minor units
+     */
+    long getReduction(final int row) {
+        return reductions[row];
+    }
+
+    /**
+     * @return percentage of the was price taken off, truncated
+     */
+    int getPercentDiscount(final int row) {
+        return percentDiscounts[row];
+    }
+
+    /**
+     * @return was price in minor units
+     */
+    long getWasPrice(final int row) {
+        return wasPrices[row];
+    }
+
+    /**
+     * @return then price in minor units, or {@link #NO_PRICE} if the product has none
+     */
+    long getThenPrice(final int row) {
+        return thenPrices[row];
+    }
+
+    /**
+     * @return now price in minor units
+     */
+    long getNowPrice(final int row) {
+        return nowPrices[row];
+    }
+
+    Currency getCurrency(final int row) {
+        return CURRENCIES[currencies[row]];
+    }
+
+    int getColorSwatchCount(final int row) {
+        return swatchOffsets[row + 1] - swatchOffsets[row];
+    }
+
+    String getColor(final int row, final int swatch) {
+        return string(swatchColors[swatchOffsets[row] + swatch]);
+    }
+
+    BasicColor getBasicColor(final int row, final int swatch) {
+        return BASIC_COLORS[swatchBasicColors[swatchOffsets[row] + swatch]];
+    }
+
+    String getSkuId(final int row, final int swatch) {
+        return string(swatchSkuIds[swatchOffsets[row] + swatch]);
+    }
+
+    /**
+     * Create the product of a row as rendered for the given label type.
+     */
+    Product getProduct(final int row, final PriceLabelType priceLabelType) {
+        return Product.builder()
+                .productId(getProductId(row))
+                .title(getTitle(row))
+                .colorSwatches(getColorSwatches(row))
+                .nowPrice(priceFormatter.formatPrice(money(row, nowPrices)))
+                .priceLabel(getPriceLabel(row, priceLabelType))
+                .build();
+    }
+
+    /**
+     * Get the products of all rows as rendered for the given label type. Products are created as they are read.
+     */
+    List<Product> getProducts(final PriceLabelType priceLabelType) {
+        return new ProductList(null, priceLabelType);
+    }
+
+    /**
+     * Get the products of the given rows as rendered for the given label type. Products are created as they are read.
+     */
+    List<Product> getProducts(final int[] rows, final PriceLabelType priceLabelType) {
+        return new ProductList(rows, priceLabelType);
+    }
+
+    /**
+     * Find the row of a product id, using the id index.
+     *
+     * @param productId the product id
+     * @return the row, or -1 if no product has the id
+     */
+    int findRow(final String productId) {
+        return idIndex.find(productId);
+    }
+
+    /**
+     * Find the rows of products that meet the filter, using the filter index.
+     *
+     * @param filter the filter
+     * @return the rows in ascending order
+     */
+    int[] find(final ProductFilter filter) {
+        return filterIndex.find(filter);
+    }
+
+    /**
+     * Find the rows of products whose titles match the query, using the search index.
+     *
+     * @param query the query
+     * @return the rows, most relevant first
+     */
+    int[] search(final String query) {
+        return searchIndex.search(query);
+    }
+
+    /**
+     * Write the product of a row as rendered for the given label type, with the fields in the order of {@link Product}.
+     */
+    void writeProduct(final JsonGenerator generator, final int row, final PriceLabelType priceLabelType)
+            throws IOException {
+        generator.writeStartObject();
+        writeStringField(generator, PRODUCT_ID, productIds[row]);
+        writeStringField(generator, TITLE, titles[row]);
+        generator.writeArrayFieldStart(COLOR_SWATCHES);
+        for (int swatch = swatchOffsets[row]; swatch < swatchOffsets[row + 1]; swatch++) {
+            generator.writeStartObject();
+            writeStringField(generator, COLOR, swatchColors[swatch]);
+            generator.writeStringField(RGB_COLOR, BASIC_COLORS[swatchBasicColors[swatch]].getRgb());
+            writeStringField(generator, SKUID, swatchSkuIds[swatch]);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeStringField(NOW_PRICE, priceFormatter.formatPrice(money(row, nowPrices)));
+        generator.writeStringField(PRICE_LABEL, getPriceLabel(row, priceLabelType));
+        generator.writeEndObject();
+    }
+
+    private List<ColorSwatch> getColorSwatches(final int row) {
+        final int from = swatchOffsets[row];
+        final int to = swatchOffsets[row + 1];
+        if (from == to) {
+            return Collections.emptyList();
+        }
+        final ColorSwatch[] colorSwatches = new ColorSwatch[to - from];
+        for (int swatch = from; swatch < to; swatch++) {
+            colorSwatches[swatch - from] = ColorSwatch.builder()
+                    .color(string(swatchColors[swatch]))
+                    .rgbColor(BASIC_COLORS[swatchBasicColors[swatch]].getRgb())
+                    .skuid(string(swatchSkuIds[swatch]))
+                    .build();
+        }
+        return List.of(colorSwatches);
+    }
+
+    private String getPriceLabel(final int row, final PriceLabelType priceLabelType) {
+        switch (priceLabelType) {
+            case SHOW_WAS_THEN_NOW:
+                if (thenPrices[row] != NO_PRICE) {
+                    return priceFormatter.formatWasThenNow(money(row, wasPrices), money(row, thenPrices),
+                            money(row, nowPrices));
+                }
+            case SHOW_WAS_NOW:
+                return priceFormatter.formatWasNow(money(row, wasPrices), money(row, nowPrices));
+
+            case SHOW_PERC_DISCOUNT:
+                return priceFormatter.formatPercentDiscount(percentDiscounts[row], money(row, nowPrices));
+
+            default:
+                throw new IllegalStateException("Label type " + priceLabelType + " not recognised");
+        }
+    }
+
+    private Money money(final int row, final long[] prices) {
+        return Money.of(prices[row], CURRENCIES[currencies[row]]);
+    }
+
+    private String string(final int index) {
+        if (index == NULL_STRING) {
+            return null;
+        }
+        final int offset = stringOffsets[index];
+        return new String(strings, offset, stringOffsets[index + 1] - offset, StandardCharsets.UTF_8);
+    }
+
+    private void writeStringField(final JsonGenerator generator, final String name, final int index)
+            throws IOException {
+        generator.writeFieldName(name);
+        if (index == NULL_STRING) {
+            generator.writeNull();
+        } else {
+            final int offset = stringOffsets[index];
+            generator.writeUTF8String(strings, offset, stringOffsets[index + 1] - offset);
+        }
+    }
+
+    /**
+     * Read-only products of the table for one label type, of the given rows or of all rows if null.
+     */
+    private final class ProductList extends AbstractList<Product> implements RandomAccess {
+
+        private final int[] rows;
+
+        private final PriceLabelType priceLabelType;
+
+        private ProductList(final int[] rows, final PriceLabelType priceLabelType) {
+            this.rows = rows;
+            this.priceLabelType = priceLabelType;
+        }
+
+        @Override
+        public Product get(final int index) {
+            if (rows == null) {
+                return getProduct(index, priceLabelType);
+            }
+            if (index < 0 || index >= rows.length) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + rows.length);
+            }
+            return getProduct(rows[index], priceLabelType);
+        }
+
+        @Override
+        public int size() {
+            return rows == null ? size : rows.length;
+        }
+    }
+
+    /**
+     * Fills the columns row by row. Colors repeat across products, so each distinct color is stored once.
+     */
+    static final class Builder {
+
+        private final Map<String, Integer> colors = new HashMap<>();
+
+        private final PriceFormatter priceFormatter;
+
+        private final int size;
+
+        private byte[] strings;
+
+        private int stringsLength;
+
+        private int[] stringOffsets;
+
+        private int stringCount;
+
+        private final int[] productIds;
+
+        private final int[] titles;
+
+        private final long[] wasPrices;
+
+        private final long[] thenPrices;
+
+        private final long[] nowPrices;
+
+        private final long[] reductions;
+
+        private final int[] percentDiscounts;
+
+        private final byte[] currencies;
+
+        private final int[] swatchOffsets;
+
+        private int[] swatchColors;
+
+        private byte[] swatchBasicColors;
+
+        private int[] swatchSkuIds;
+
+        private int swatchCount;
+
+        private int row;
+
+        private Builder(final int size, final PriceFormatter priceFormatter, final long stringBytesEstimate,
+                        final long stringsEstimate, final long swatchesEstimate) {
+            this.priceFormatter = priceFormatter;
+            this.size = size;
+            this.strings = new byte[capacity(stringBytesEstimate)];
+            this.stringOffsets = new int[capacity(stringsEstimate + 1)];
+            this.productIds = new int[size];
+            this.titles = new int[size];
+            this.wasPrices = new long[size];
+            this.thenPrices = new long[size];
+            this.nowPrices = new long[size];
+            this.reductions = new long[size];
+            this.percentDiscounts = new int[size];
+            this.currencies = new byte[size];
+            this.swatchOffsets = new int[size + 1];
+            this.swatchColors = new int[capacity(swatchesEstimate)];
+            this.swatchBasicColors = new byte[swatchColors.length];
+            this.swatchSkuIds = new int[swatchColors.length];
+        }
+
+        /**
+         * Add the row of a product with a price reduction and its color swatches.
+         *
+         * @throws IllegalArgumentException if a basic color is not valid
+         */
+        Builder add(final PricedProduct pricedProduct) {
+            final ExternalProduct externalProduct = pricedProduct.getExternalProduct();
+            final PriceFacts priceFacts = pricedProduct.getPriceFacts();
+            addRow(externalProduct.getProductId(), externalProduct.getTitle(),
+                    priceFacts.getWasPrice().getMinorUnits(),
+                    priceFacts.hasThenPrice() ? priceFacts.getThenPrice().getMinorUnits() : NO_PRICE,
+                    priceFacts.getNowPrice().getMinorUnits(),
+                    priceFacts.getNowPrice().getCurrency());
+            for (final ExternalColorSwatch colorSwatch : externalProduct.getColorSwatches()) {
+                addColorSwatch(colorSwatch.getColor(), BasicColor.parse(colorSwatch.getBasicColor()),
+                        colorSwatch.getSkuId());
+            }
+            return this;
+        }
+
+        /**
+         * Copy a row of another table with its color swatches, without creating the product.
+         */
+        Builder add(final ProductTable table, final int tableRow) {
+            productIds[row] = copyString(table, table.productIds[tableRow]);
+            titles[row] = copyString(table, table.titles[tableRow]);
+            wasPrices[row] = table.wasPrices[tableRow];
+            thenPrices[row] = table.thenPrices[tableRow];
+            nowPrices[row] = table.nowPrices[tableRow];
+            reductions[row] = table.reductions[tableRow];
+            percentDiscounts[row] = table.percentDiscounts[tableRow];
+            currencies[row] = table.currencies[tableRow];
+            swatchOffsets[row] = swatchCount;
+            swatchOffsets[++row] = swatchCount;
+            for (int swatch = table.swatchOffsets[tableRow]; swatch < table.swatchOffsets[tableRow + 1]; swatch++) {
+                growSwatches();
+                swatchBasicColors[swatchCount] = table.swatchBasicColors[swatch];
+                swatchColors[swatchCount] = table.swatchColors[swatch] == NULL_STRING
+                        ? NULL_STRING
+                        : colors.computeIfAbsent(table.string(table.swatchColors[swatch]), this::addString);
+                swatchSkuIds[swatchCount] = copyString(table, table.swatchSkuIds[swatch]);
+                swatchOffsets[row] = ++swatchCount;
+            }
+            return this;
+        }
+
+        /**
+         * Start the next row, followed by its color swatches. The reduction and percent discount are derived from the
+         * prices.
+         *
+         * @param thenPrice then price in minor units, or {@link #NO_PRICE}
+         */
+        Builder addRow(final String productId, final String title, final long wasPrice, final long thenPrice,
+                       final long nowPrice, final Currency currency) {
+            productIds[row] = addString(productId);
+            titles[row] = addString(title);
+            wasPrices[row] = wasPrice;
+            thenPrices[row] = thenPrice;
+            nowPrices[row] = nowPrice;
+            final Money reduction = Money.of(wasPrice, currency).minus(Money.of(nowPrice, currency));
+            reductions[row] = reduction.getMinorUnits();
+            percentDiscounts[row] = reduction.percentageOf(Money.of(wasPrice, currency));
+            currencies[row] = (byte) currency.ordinal();
+            swatchOffsets[row] = swatchCount;
+            swatchOffsets[++row] = swatchCount;
+            return this;
+        }
+
+        /**
+         * Add a color swatch to the last row.
+         */
+        Builder addColorSwatch(final String color, final BasicColor basicColor, final String skuId) {
+            growSwatches();
+            swatchBasicColors[swatchCount] = (byte) basicColor.ordinal();
+            swatchColors[swatchCount] = color == null ? NULL_STRING : colors.computeIfAbsent(color, this::addString);
+            swatchSkuIds[swatchCount] = addString(skuId);
+            swatchOffsets[row] = ++swatchCount;
+            return this;
+        }
+
+        /**
+         * @throws IllegalStateException if fewer rows were added than the table has
+         */
+        ProductTable build() {
+            if (row != size) {
+                throw new IllegalStateException(row + " of " + size + " rows added");
+            }
+            return new ProductTable(this);
+        }
+
+        private void growSwatches() {
+            if (swatchCount == swatchColors.length) {
+                final int capacity = grow(swatchCount, swatchCount + 1L);
+                swatchColors = Arrays.copyOf(swatchColors, capacity);
+                swatchBasicColors = Arrays.copyOf(swatchBasicColors, capacity);
+                swatchSkuIds = Arrays.copyOf(swatchSkuIds, capacity);
+            }
+        }
+
+        private int addString(final String value) {
+            if (value == null) {
+                return NULL_STRING;
+            }
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            return addString(bytes, 0, bytes.length);
+        }
+
+        /**
+         * Copy a string of another table as UTF-8 bytes, without decoding it.
+         */
+        private int copyString(final ProductTable table, final int index) {
+            if (index == NULL_STRING) {
+                return NULL_STRING;
+            }
+            final int offset = table.stringOffsets[index];
+            return addString(table.strings, offset, table.stringOffsets[index + 1] - offset);
+        }
+
+        private int addString(final byte[] bytes, final int offset, final int length) {
+            if (stringsLength + length > strings.length) {
+                strings = Arrays.copyOf(strings, grow(strings.length, (long) stringsLength + length));
+            }
+            if (stringCount + 2 > stringOffsets.length) {
+                stringOffsets = Arrays.copyOf(stringOffsets, grow(stringOffsets.length, stringCount + 2L));
+            }
+            System.arraycopy(bytes, offset, strings, stringsLength, length);
+            stringOffsets[stringCount] = stringsLength;
+            stringsLength += length;
+            stringOffsets[stringCount + 1] = stringsLength;
+            return stringCount++;
+        }
+    }
+}
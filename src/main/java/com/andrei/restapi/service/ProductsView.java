@@ -0,0 +1,135 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.Products;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Value;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Products rendered for one price label type, together with their serialized JSON so responses can be written
+ * without mapping or serializing per request. Shared between requests and must not be modified.
+ * <p>
+ * The products are created from the {@link ProductTable} as they are read, so responses written from the JSON never
+ * create them.
+ */
+@Value
+@Builder
+public class ProductsView {
+
+    private Products products;
+
+    private byte[] json;
+
+    /**
+     * Start of the JSON of each product in the JSON of the view, followed by the end of the last product plus one, or
+     * null if the JSON of single products can not be copied out of the view.
+     */
+    @Getter(AccessLevel.NONE)
+    private int[] productJsonOffsets;
+
+    /**
+     * Quoted strong entity tag of the JSON, or null if the view is not tagged.
+     */
+    private String etag;
+
+    /**
+     * Gzip compressed JSON, or null if the view is not precompressed.
+     */
+    private byte[] gzipJson;
+
+    /**
+     * Quoted strong entity tag of the gzip compressed JSON, or null if the view is not precompressed.
+     */
+    private String gzipEtag;
+
+    /**
+     * @return whether the view can be served in the given encoding
+     */
+    public boolean isEncoded(final ContentEncoding contentEncoding) {
+        return contentEncoding == ContentEncoding.IDENTITY || gzipJson != null;
+    }
+
+    public byte[] getBody(final ContentEncoding contentEncoding) {
+        return contentEncoding == ContentEncoding.GZIP ? gzipJson : json;
+    }
+
+    public String getEtag(final ContentEncoding contentEncoding) {
+        return contentEncoding == ContentEncoding.GZIP ? gzipEtag : etag;
+    }
+
+    /**
+     * @return whether the JSON of each product can be copied out of the view
+     */
+    public boolean hasProductJson() {
+        return productJsonOffsets != null;
+    }
+
+    /**
+     * @return the number of products in the JSON of the view
+     * @throws IllegalStateException if the view has no product JSON
+     */
+    public int getProductJsonCount() {
+        return offsets().length - 1;
+    }
+
+    /**
+     * Write the JSON of the product at the given index of the view.
+     *
+     * @throws IllegalStateException if the view has no product JSON
+     */
+    public void writeProductJson(final int index, final OutputStream outputStream) throws IOException {
+        final int[] offsets = offsets();
+        outputStream.write(json, offsets[index], length(offsets, index));
+    }
+
+    int[] getProductJsonOffsets() {
+        return productJsonOffsets;
+    }
+
+    /**
+     * Join the JSON of the products at the given indexes of the view between the given prefix and suffix, without
+     * creating or serializing the products.
+     *
+     * @param indexes the indexes of the products, in the order to write them
+     * @param prefix  JSON up to and including the start of the products array
+     * @param suffix  JSON from the end of the products array
+     * @return the joined JSON
+     * @throws IllegalStateException if the view has no product JSON
+     */
+    byte[] joinProductJson(final int[] indexes, final byte[] prefix, final byte[] suffix) {
+        final int[] offsets = offsets();
+        int length = prefix.length + suffix.length + Math.max(0, indexes.length - 1);
+        for (final int index : indexes) {
+            length += length(offsets, index);
+        }
+
+        final byte[] joined = new byte[length];
+        System.arraycopy(prefix, 0, joined, 0, prefix.length);
+        int offset = prefix.length;
+        for (int i = 0; i < indexes.length; i++) {
+            if (i > 0) {
+                joined[offset++] = ',';
+            }
+            final int productLength = length(offsets, indexes[i]);
+            System.arraycopy(json, offsets[indexes[i]], joined, offset, productLength);
+            offset += productLength;
+        }
+        System.arraycopy(suffix, 0, joined, offset, suffix.length);
+        return joined;
+    }
+
+    private int[] offsets() {
+        if (productJsonOffsets == null) {
+            throw new IllegalStateException("View has no product JSON");
+        }
+        return productJsonOffsets;
+    }
+
+    private static int length(final int[] offsets, final int index) {
+        return offsets[index + 1] - offsets[index] - 1;
+    }
+}
@@ -0,0 +1,15 @@
+package com.andrei.restapi.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a product search query is not valid.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class SearchQueryNotValidException extends RuntimeException {
+
+    public SearchQueryNotValidException(final String message) {
+        super(message);
+    }
+}
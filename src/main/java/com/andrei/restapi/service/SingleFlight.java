@@ -0,0 +1,127 @@
+package com.andrei.restapi.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent executions of a call. The first caller runs the call on its own thread, callers arriving while
+ * it is in flight wait for it and share its result or failure instead of running the call again.
+ *
+ * @param <T> the result type
+ */
+public class SingleFlight<T> {
+
+    private final AtomicReference<CompletableFuture<T>> inFlight = new AtomicReference<>();
+
+    private final AtomicLong calls = new AtomicLong();
+
+    private final AtomicLong coalescedWaiters = new AtomicLong();
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    /**
+     * Run the call, or wait for the call already in flight.
+     *
+     * @param call the call
+     * @return the result of the call
+     */
+    T execute(final Supplier<T> call) {
+        final CompletableFuture<T> flight = new CompletableFuture<>();
+        final CompletableFuture<T> existing = inFlight.compareAndExchange(null, flight);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        calls.incrementAndGet();
+        try {
+            final T result = call.get();
+            flight.complete(result);
+            return result;
+        } catch (final RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.set(null);
+        }
+    }
+
+    /**
+     * Start the asynchronous call, or share the call already in flight. Synchronous and asynchronous callers share the
+     * same flight.
+     *
+     * @param call the call, returning a future of its result
+     * @return future of the result of the call
+     */
+    CompletableFuture<T> executeAsync(final Supplier<? extends CompletionStage<T>> call) {
+        final CompletableFuture<T> flight = new CompletableFuture<>();
+        final CompletableFuture<T> existing = inFlight.compareAndExchange(null, flight);
+        if (existing != null) {
+            coalescedWaiters.incrementAndGet();
+            waiting.incrementAndGet();
+            existing.whenComplete((result, failure) -> waiting.decrementAndGet());
+            return existing;
+        }
+
+        calls.incrementAndGet();
+        try {
+            call.get().whenComplete((result, failure) -> {
+                inFlight.set(null);
+                if (failure == null) {
+                    flight.complete(result);
+                } else {
+                    flight.completeExceptionally(failure instanceof CompletionException && failure.getCause() != null
+                            ? failure.getCause()
+                            : failure);
+                }
+            });
+        } catch (final RuntimeException | Error e) {
+            inFlight.set(null);
+            flight.completeExceptionally(e);
+        }
+        return flight;
+    }
+
+    /**
+     * @return number of calls run
+     */
+    public long getCalls() {
+        return calls.get();
+    }
+
+    /**
+     * @return number of callers that shared a call in flight instead of running it
+     */
+    public long getCoalescedWaiters() {
+        return coalescedWaiters.get();
+    }
+
+    /**
+     * @return number of callers currently waiting for a call in flight, synchronous or asynchronous
+     */
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    private T await(final CompletableFuture<T> flight) {
+        coalescedWaiters.incrementAndGet();
+        waiting.incrementAndGet();
+        try {
+            return flight.join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.andrei.restapi.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Canonical instances of strings with few distinct values, such as color names and currency codes, so equal values
+ * parsed from every response share one instance for as long as the catalog holds them. The pool is bounded: once full,
+ * values not already pooled are returned as they are.
+ */
+final class StringPool {
+
+    private final int maxSize;
+
+    private final ConcurrentMap<String, String> values = new ConcurrentHashMap<>();
+
+    StringPool(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get the pooled instance equal to the given value, pooling the value if there is none.
+     *
+     * @param value the value, may be null
+     * @return the pooled instance, or the value itself if it is null or the pool is full
+     */
+    String intern(final String value) {
+        if (value == null) {
+            return null;
+        }
+        final String pooled = values.get(value);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (values.size() >= maxSize) {
+            return value;
+        }
+        final String previous = values.putIfAbsent(value, value);
+        return previous == null ? value : previous;
+    }
+}
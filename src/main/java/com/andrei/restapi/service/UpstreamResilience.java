@@ -0,0 +1,249 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.configuration.UpstreamProperties;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Guards calls to the external product API. A circuit breaker fails calls fast while the API is failing or slow, so
+ * the catalog falls back to the last good snapshot without waiting for a timeout, and a bulkhead caps concurrent calls.
+ * Asynchronous calls can be hedged: when a call has not completed within a high percentile of recent latencies a second
+ * call is sent and whichever completes first is used.
+ */
+@Component
+public class UpstreamResilience {
+
+    static final String NAME = "external-product-api";
+
+    static final String HEDGES = "products.upstream.hedges";
+
+    private static final int LATENCY_WINDOW_SIZE = 100;
+
+    private static final int LATENCY_WINDOW_MINIMUM_SAMPLES = 20;
+
+    private final UpstreamProperties.CircuitBreaker circuitBreakerProperties;
+
+    private final UpstreamProperties.Bulkhead bulkheadProperties;
+
+    private final UpstreamProperties.Hedge hedgeProperties;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final Bulkhead bulkhead;
+
+    private final LatencyWindow latencies = new LatencyWindow(LATENCY_WINDOW_SIZE, LATENCY_WINDOW_MINIMUM_SAMPLES);
+
+    private final Counter hedgesSent;
+
+    private final Counter hedgesWon;
+
+    public UpstreamResilience(final UpstreamProperties upstreamProperties, final MeterRegistry meterRegistry) {
+        this.circuitBreakerProperties = upstreamProperties.getCircuitBreaker();
+        this.bulkheadProperties = upstreamProperties.getBulkhead();
+        this.hedgeProperties = upstreamProperties.getHedge();
+
+        final CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(circuitBreakerProperties.getFailureRateThreshold())
+                .slowCallRateThreshold(circuitBreakerProperties.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(circuitBreakerProperties.getSlowCallDurationThreshold())
+                .slidingWindowSize(circuitBreakerProperties.getSlidingWindowSize())
+                .minimumNumberOfCalls(circuitBreakerProperties.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(circuitBreakerProperties.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(circuitBreakerProperties.getPermittedNumberOfCallsInHalfOpenState())
+                .build());
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(NAME);
+
+        final BulkheadRegistry bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(bulkheadProperties.getMaxConcurrentCalls())
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        this.bulkhead = bulkheadRegistry.bulkhead(NAME);
+
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+        this.hedgesSent = Counter.builder(HEDGES)
+                .description("Hedged calls to the external API")
+                .tag("result", "sent")
+                .register(meterRegistry);
+        this.hedgesWon = Counter.builder(HEDGES)
+                .description("Hedged calls to the external API")
+                .tag("result", "won")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Call the external API on the calling thread, guarded by the circuit breaker and bulkhead.
+     *
+     * @param call the call
+     * @return the result of the call
+     * @throws CallNotPermittedException if the circuit is open
+     * @throws BulkheadFullException     if the maximum number of concurrent calls is reached
+     */
+    public <T> T execute(final Supplier<T> call) {
+        acquirePermission();
+        final long start = System.nanoTime();
+        try {
+            final T result = call.get();
+            onSuccess(System.nanoTime() - start);
+            return result;
+        } catch (final RuntimeException | Error e) {
+            onError(System.nanoTime() - start, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Call the external API asynchronously, guarded by the circuit breaker and bulkhead, and hedged when enabled. A
+     * hedged call is only sent while both permit it.
+     *
+     * @param call the call, returning a future of its result
+     * @return future of the result of the first call to succeed, or of the failure of the last call to fail
+     */
+    public <T> CompletableFuture<T> executeAsync(final Supplier<CompletableFuture<T>> call) {
+        final CompletableFuture<T> first = attempt(call);
+        if (!hedgeProperties.isEnabled()) {
+            return first;
+        }
+
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final AtomicInteger pending = new AtomicInteger(1);
+        final AtomicBoolean settled = new AtomicBoolean();
+        first.whenComplete((value, failure) -> complete(result, pending, settled, value, failure, false));
+        CompletableFuture.delayedExecutor(hedgeDelayNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+            if (result.isDone() || !tryAcquirePermission()) {
+                return;
+            }
+            pending.incrementAndGet();
+            hedgesSent.increment();
+            call(call).whenComplete((value, failure) -> complete(result, pending, settled, value, failure, true));
+        });
+        return result;
+    }
+
+    /**
+     * @return whether asynchronous calls are hedged, in which case callers should prefer
+     * {@link #executeAsync(Supplier)}
+     */
+    public boolean isHedging() {
+        return hedgeProperties.isEnabled();
+    }
+
+    CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    private <T> CompletableFuture<T> attempt(final Supplier<CompletableFuture<T>> call) {
+        try {
+            acquirePermission();
+        } catch (final RuntimeException | Error e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return call(call);
+    }
+
+    /**
+     * Make a call that has been permitted by the circuit breaker and bulkhead.
+     */
+    private <T> CompletableFuture<T> call(final Supplier<CompletableFuture<T>> call) {
+        final long start = System.nanoTime();
+        final CompletableFuture<T> attempt;
+        try {
+            attempt = call.get();
+        } catch (final RuntimeException | Error e) {
+            onError(System.nanoTime() - start, e);
+            return CompletableFuture.failedFuture(e);
+        }
+        return attempt.whenComplete((value, failure) -> {
+            if (failure == null) {
+                onSuccess(System.nanoTime() - start);
+            } else {
+                onError(System.nanoTime() - start, failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause()
+                        : failure);
+            }
+        });
+    }
+
+    /**
+     * Complete the result with the first call to succeed, or with the failure of the last call once all failed.
+     */
+    private <T> void complete(final CompletableFuture<T> result, final AtomicInteger pending, final AtomicBoolean settled,
+                              final T value, final Throwable failure, final boolean hedge) {
+        final int remaining = pending.decrementAndGet();
+        if ((failure == null || remaining == 0) && settled.compareAndSet(false, true)) {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+                return;
+            }
+            if (hedge) {
+                hedgesWon.increment();
+            }
+            result.complete(value);
+        }
+    }
+
+    private long hedgeDelayNanos() {
+        final long percentile = latencies.percentile(hedgeProperties.getPercentile());
+        return Math.max(percentile < 0 ? hedgeProperties.getInitialDelay().toNanos() : percentile,
+                hedgeProperties.getMinDelay().toNanos());
+    }
+
+    private void acquirePermission() {
+        if (circuitBreakerProperties.isEnabled() && !circuitBreaker.tryAcquirePermission()) {
+            throw CallNotPermittedException.createCallNotPermittedException(circuitBreaker);
+        }
+        if (bulkheadProperties.isEnabled() && !bulkhead.tryAcquirePermission()) {
+            if (circuitBreakerProperties.isEnabled()) {
+                circuitBreaker.releasePermission();
+            }
+            throw BulkheadFullException.createBulkheadFullException(bulkhead);
+        }
+    }
+
+    private boolean tryAcquirePermission() {
+        try {
+            acquirePermission();
+            return true;
+        } catch (final CallNotPermittedException | BulkheadFullException e) {
+            return false;
+        }
+    }
+
+    private void onSuccess(final long durationNanos) {
+        latencies.record(durationNanos);
+        if (bulkheadProperties.isEnabled()) {
+            bulkhead.onComplete();
+        }
+        if (circuitBreakerProperties.isEnabled()) {
+            circuitBreaker.onSuccess(durationNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void onError(final long durationNanos, final Throwable failure) {
+        if (bulkheadProperties.isEnabled()) {
+            bulkhead.onComplete();
+        }
+        if (circuitBreakerProperties.isEnabled()) {
+            circuitBreaker.onError(durationNanos, TimeUnit.NANOSECONDS, failure);
+        }
+    }
+}
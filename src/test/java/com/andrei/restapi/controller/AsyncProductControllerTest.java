@@ -0,0 +1,278 @@
+package com.andrei.restapi.controller;
+
+import com.andrei.restapi.model.BasicColor;
+import com.andrei.restapi.model.Product;
+import com.andrei.restapi.model.Products;
+import com.andrei.restapi.service.ProductFilter;
+import com.andrei.restapi.service.ProductNotFoundException;
+import com.andrei.restapi.service.ProductService;
+import com.andrei.restapi.service.ProductServiceException;
+import com.andrei.restapi.service.ProductsView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_COLOR;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_LIMIT;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_MAX_NOW_PRICE;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_MIN_DISCOUNT;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_MIN_NOW_PRICE;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_MIN_REDUCTION;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_QUERY;
+import static com.andrei.restapi.controller.ProductController.URL_PRODUCT;
+import static com.andrei.restapi.controller.ProductController.URL_PRODUCTS;
+import static com.andrei.restapi.controller.ProductController.URL_PRODUCTS_BATCH_GET;
+import static com.andrei.restapi.controller.ProductController.URL_PRODUCTS_SEARCH;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Unit tests for {@link AsyncProductController}.
+ */
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(value = AsyncProductController.class, properties = "serving.mode=async")
+class AsyncProductControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ProductService productService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Get products should release the request thread and return products when the future completes")
+    void getProductsShouldReleaseTheRequestThreadAndReturnProductsWhenTheFutureCompletes() throws Exception {
+        final Products products = Products.builder().products(List.of(Product.builder().productId("id").build())).build();
+        final CompletableFuture<ProductsView> productsView = new CompletableFuture<>();
+        when(productService.getProductsViewAsync(Optional.empty(), ProductFilter.NONE, Optional.empty(), Optional.empty())).thenReturn(productsView);
+
+        final MvcResult mvcResult = this.mockMvc.perform(get(URL_PRODUCTS))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        productsView.complete(ProductsView.builder()
+                .products(products)
+                .json(objectMapper.writeValueAsBytes(products))
+                .etag("\"etag\"")
+                .build());
+
+        final String responseText = this.mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(products, objectMapper.readValue(responseText, Products.class), "Products should match");
+    }
+
+    @Test
+    @DisplayName("Get products when filters are specified should pass the filter to the service and return filtered products")
+    void getProductsWhenFiltersAreSpecifiedShouldPassTheFilterToTheServiceAndReturnFilteredProducts() throws Exception {
+        final Products products = Products.builder().products(List.of(Product.builder().productId("id").build())).build();
+        final ProductFilter filter = ProductFilter.builder()
+                .color(BasicColor.RED)
+                .minDiscount(20)
+                .minReduction(500L)
+                .minNowPrice(999L)
+                .maxNowPrice(5000L)
+                .build();
+        when(productService.getProductsViewAsync(Optional.empty(), filter, Optional.empty(), Optional.empty()))
+                .thenReturn(CompletableFuture.completedFuture(ProductsView.builder()
+                        .products(products)
+                        .json(objectMapper.writeValueAsBytes(products))
+                        .build()));
+
+        final MvcResult mvcResult = this.mockMvc.perform(get(URL_PRODUCTS)
+                .param(QUERY_PARAM_COLOR, "red")
+                .param(QUERY_PARAM_MIN_DISCOUNT, "20")
+                .param(QUERY_PARAM_MIN_REDUCTION, "5")
+                .param(QUERY_PARAM_MIN_NOW_PRICE, "9.99")
+                .param(QUERY_PARAM_MAX_NOW_PRICE, "50.00"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        final String responseText = this.mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(products, objectMapper.readValue(responseText, Products.class), "Products should match");
+    }
+
+    @Test
+    @DisplayName("Get products when a filter is invalid should return bad request status")
+    void getProductsWhenAFilterIsInvalidShouldReturnBadRequestStatus() throws Exception {
+        this.mockMvc.perform(get(URL_PRODUCTS).param(QUERY_PARAM_COLOR, "teal"))
+                .andExpect(status().isBadRequest());
+        this.mockMvc.perform(get(URL_PRODUCTS).param(QUERY_PARAM_MIN_DISCOUNT, "half"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Get products when etag matches should return not modified status")
+    void getProductsWhenEtagMatchesShouldReturnNotModifiedStatus() throws Exception {
+        final Products products = Products.builder().products(List.of()).build();
+        when(productService.getProductsViewAsync(Optional.empty(), ProductFilter.NONE, Optional.empty(), Optional.empty()))
+                .thenReturn(CompletableFuture.completedFuture(ProductsView.builder()
+                        .products(products)
+                        .json(objectMapper.writeValueAsBytes(products))
+                        .etag("\"etag\"")
+                        .build()));
+
+        final MvcResult mvcResult = this.mockMvc.perform(get(URL_PRODUCTS).header(HttpHeaders.IF_NONE_MATCH, "\"etag\""))
+                .andReturn();
+
+        this.mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"etag\""));
+    }
+
+    @Test
+    @DisplayName("Get products when gzip etag matches should return not modified status without body")
+    void getProductsWhenGzipEtagMatchesShouldReturnNotModifiedStatusWithoutBody() throws Exception {
+        final Products products = Products.builder().products(List.of()).build();
+        when(productService.getProductsViewAsync(Optional.empty(), ProductFilter.NONE, Optional.empty(), Optional.empty()))
+                .thenReturn(CompletableFuture.completedFuture(ProductsView.builder()
+                        .products(products)
+                        .json(objectMapper.writeValueAsBytes(products))
+                        .etag("\"etag\"")
+                        .gzipJson(new byte[]{31, -117, 8, 0})
+                        .gzipEtag("\"etag-gzip\"")
+                        .build()));
+
+        final MvcResult mvcResult = this.mockMvc.perform(get(URL_PRODUCTS)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"etag\", \"etag-gzip\""))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        this.mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"etag-gzip\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    @DisplayName("Get products when future fails with product service exception should return internal server error status")
+    void getProductsWhenFutureFailsWithProductServiceExceptionShouldReturnInternalServerErrorStatus() throws Exception {
+        when(productService.getProductsViewAsync(Optional.empty(), ProductFilter.NONE, Optional.empty(), Optional.empty()))
+                .thenReturn(CompletableFuture.failedFuture(new ProductServiceException("failure", null)));
+
+        final MvcResult mvcResult = this.mockMvc.perform(get(URL_PRODUCTS)).andReturn();
+
+        this.mockMvc.perform(asyncDispatch(mvcResult)).andExpect(status().isInternalServerError());
+    }
+
+    @Test
+    @DisplayName("Search products should return products matching the query when the future completes")
+    void searchProductsShouldReturnProductsMatchingTheQueryWhenTheFutureCompletes() throws Exception {
+        final Products products = Products.builder().products(List.of(Product.builder().productId("id").title("Red dress").build())).build();
+        when(productService.searchProductsAsync("red dr", Optional.empty(), Optional.of(5)))
+                .thenReturn(CompletableFuture.completedFuture(ProductsView.builder()
+                        .products(products)
+                        .json(objectMapper.writeValueAsBytes(products))
+                        .build()));
+
+        final MvcResult mvcResult = this.mockMvc.perform(get(URL_PRODUCTS_SEARCH)
+                .param(QUERY_PARAM_QUERY, "red dr")
+                .param(QUERY_PARAM_LIMIT, "5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        final String responseText = this.mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(products, objectMapper.readValue(responseText, Products.class), "Products should match");
+    }
+
+    @Test
+    @DisplayName("Search products when query is missing should return bad request status")
+    void searchProductsWhenQueryIsMissingShouldReturnBadRequestStatus() throws Exception {
+        this.mockMvc.perform(get(URL_PRODUCTS_SEARCH)).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Get product should return the product of the id when the future completes")
+    void getProductShouldReturnTheProductOfTheIdWhenTheFutureCompletes() throws Exception {
+        final Product product = Product.builder().productId("id").priceLabel("50% off - now £10").build();
+        when(productService.getProductAsync("id", Optional.empty())).thenReturn(CompletableFuture.completedFuture(product));
+
+        final MvcResult mvcResult = this.mockMvc.perform(get(URL_PRODUCT, "id"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        final String responseText = this.mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(product, objectMapper.readValue(responseText, Product.class), "Product should match");
+    }
+
+    @Test
+    @DisplayName("Get product when future fails with product not found exception should return not found status")
+    void getProductWhenFutureFailsWithProductNotFoundExceptionShouldReturnNotFoundStatus() throws Exception {
+        when(productService.getProductAsync("missing", Optional.empty()))
+                .thenReturn(CompletableFuture.<Product>completedFuture(null).thenApply(product -> {
+                    throw new ProductNotFoundException("missing");
+                }));
+
+        final MvcResult mvcResult = this.mockMvc.perform(get(URL_PRODUCT, "missing")).andReturn();
+
+        this.mockMvc.perform(asyncDispatch(mvcResult)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Batch get products should return the products of the ids in the request body when the future completes")
+    void batchGetProductsShouldReturnTheProductsOfTheIdsInTheRequestBodyWhenTheFutureCompletes() throws Exception {
+        final Products products = Products.builder().products(List.of(Product.builder().productId("second").build(),
+                Product.builder().productId("first").build())).build();
+        when(productService.batchGetProductsAsync(List.of("second", "first"), Optional.empty()))
+                .thenReturn(CompletableFuture.completedFuture(ProductsView.builder()
+                        .products(products)
+                        .json(objectMapper.writeValueAsBytes(products))
+                        .build()));
+
+        final MvcResult mvcResult = this.mockMvc.perform(post(URL_PRODUCTS_BATCH_GET)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"productIds\":[\"second\",\"first\"]}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        final String responseText = this.mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(products, objectMapper.readValue(responseText, Products.class), "Products should match");
+    }
+}
@@ -191,10 +191,10 @@ class ProductControllerIT {
                 .collect(Collectors.toList());
     }
 
-    private int extractPriceReduction(final ExternalPrice price) {
+    private double extractPriceReduction(final ExternalPrice price) {
         final double nowPrice = extractNowPrice(price);
         final double wasPrice = Double.parseDouble(price.getWas());
-        return (int) Math.floor(wasPrice - nowPrice);
+        return wasPrice - nowPrice;
     }
 
     private double extractNowPrice(final ExternalPrice externalPrice) {
@@ -212,6 +212,6 @@ class ProductControllerIT {
     }
 
     private int comparePriceReduction(final ExternalProduct externalProduct1, final ExternalProduct externalProduct2) {
-        return (int) Math.floor(extractPriceReduction(externalProduct2.getPrice()) - extractPriceReduction(externalProduct1.getPrice()));
+        return Double.compare(extractPriceReduction(externalProduct2.getPrice()), extractPriceReduction(externalProduct1.getPrice()));
     }
 }
@@ -1,10 +1,17 @@
 package com.andrei.restapi.controller;
 
+import com.andrei.restapi.model.BasicColor;
 import com.andrei.restapi.model.PriceLabelType;
 import com.andrei.restapi.model.Product;
 import com.andrei.restapi.model.Products;
+import com.andrei.restapi.service.BatchGetRequestNotValidException;
+import com.andrei.restapi.service.PageRequestNotValidException;
+import com.andrei.restapi.service.ProductFilter;
+import com.andrei.restapi.service.ProductNotFoundException;
 import com.andrei.restapi.service.ProductService;
 import com.andrei.restapi.service.ProductServiceException;
+import com.andrei.restapi.service.ProductsView;
+import com.andrei.restapi.service.SearchQueryNotValidException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -13,17 +20,33 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.List;
 import java.util.Optional;
 
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_COLOR;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_CURSOR;
 import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_LABEL_TYPE;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_LIMIT;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_MAX_NOW_PRICE;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_MIN_DISCOUNT;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_MIN_NOW_PRICE;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_MIN_REDUCTION;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_QUERY;
+import static com.andrei.restapi.controller.ProductController.URL_PRODUCT;
 import static com.andrei.restapi.controller.ProductController.URL_PRODUCTS;
+import static com.andrei.restapi.controller.ProductController.URL_PRODUCTS_BATCH_GET;
+import static com.andrei.restapi.controller.ProductController.URL_PRODUCTS_SEARCH;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -53,7 +76,7 @@ class ProductControllerTest {
     @DisplayName("Get products when label type is not specified should return products with default setting")
     void getProductsWhenLabelTypeIsNotSpecifiedShouldReturnProductsWithDefaultSetting() throws Exception {
         final Products products = Products.builder().products(List.of(Product.builder().productId("id").build())).build();
-        when(productService.getProducts(Optional.empty())).thenReturn(products);
+        when(productService.getProductsView(Optional.empty(), ProductFilter.NONE, Optional.empty(), Optional.empty())).thenReturn(toView(products));
 
         final String responseText = this.mockMvc.perform(get(URL_PRODUCTS))
                 .andExpect(status().isOk())
@@ -71,7 +94,7 @@ class ProductControllerTest {
     void getProductsWhenLabelTypeIsSpecifiedShouldReturnProductsWithLabelType() throws Exception {
         final Products products = Products.builder().products(List.of(Product.builder().productId("id").build())).build();
 
-        when(productService.getProducts(Optional.of(PriceLabelType.SHOW_WAS_THEN_NOW))).thenReturn(products);
+        when(productService.getProductsView(Optional.of(PriceLabelType.SHOW_WAS_THEN_NOW), ProductFilter.NONE, Optional.empty(), Optional.empty())).thenReturn(toView(products));
 
         final String responseText = this.mockMvc.perform(get(URL_WITH_LABEL_TYPE, PriceLabelType.SHOW_WAS_THEN_NOW.getValue()))
                 .andExpect(status().isOk())
@@ -84,6 +107,166 @@ class ProductControllerTest {
         assertEquals(products, productsActual, "Products should match");
     }
 
+    @Test
+    @DisplayName("Get products when limit and cursor are specified should return page with next cursor")
+    void getProductsWhenLimitAndCursorAreSpecifiedShouldReturnPageWithNextCursor() throws Exception {
+        final Products products = Products.builder()
+                .products(List.of(Product.builder().productId("id").build()))
+                .nextCursor("next")
+                .build();
+
+        when(productService.getProductsView(Optional.empty(), ProductFilter.NONE, Optional.of(1), Optional.of("cursor"))).thenReturn(toView(products));
+
+        final String responseText = this.mockMvc.perform(get(URL_PRODUCTS)
+                .param(QUERY_PARAM_LIMIT, "1")
+                .param(QUERY_PARAM_CURSOR, "cursor"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        final Products productsActual = objectMapper.readValue(responseText, Products.class);
+
+        assertEquals(products, productsActual, "Products should match");
+    }
+
+    @Test
+    @DisplayName("Get products when filters are specified should return filtered products")
+    void getProductsWhenFiltersAreSpecifiedShouldReturnFilteredProducts() throws Exception {
+        final Products products = Products.builder().products(List.of(Product.builder().productId("id").build())).build();
+        final ProductFilter filter = ProductFilter.builder()
+                .color(BasicColor.RED)
+                .minDiscount(20)
+                .minReduction(500L)
+                .minNowPrice(999L)
+                .maxNowPrice(5000L)
+                .build();
+        when(productService.getProductsView(Optional.empty(), filter, Optional.empty(), Optional.empty())).thenReturn(toView(products));
+
+        final String responseText = this.mockMvc.perform(get(URL_PRODUCTS)
+                .param(QUERY_PARAM_COLOR, "red")
+                .param(QUERY_PARAM_MIN_DISCOUNT, "20")
+                .param(QUERY_PARAM_MIN_REDUCTION, "5")
+                .param(QUERY_PARAM_MIN_NOW_PRICE, "9.99")
+                .param(QUERY_PARAM_MAX_NOW_PRICE, "50.00"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        final Products productsActual = objectMapper.readValue(responseText, Products.class);
+
+        assertEquals(products, productsActual, "Products should match");
+    }
+
+    @Test
+    @DisplayName("Get products when min reduction is negative should include price increases")
+    void getProductsWhenMinReductionIsNegativeShouldIncludePriceIncreases() throws Exception {
+        final Products products = Products.builder().products(List.of(Product.builder().productId("id").build())).build();
+        final ProductFilter filter = ProductFilter.builder().minReduction(-250L).build();
+        when(productService.getProductsView(Optional.empty(), filter, Optional.empty(), Optional.empty())).thenReturn(toView(products));
+
+        final String responseText = this.mockMvc.perform(get(URL_PRODUCTS).param(QUERY_PARAM_MIN_REDUCTION, "-2.50"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(products, objectMapper.readValue(responseText, Products.class), "Products should match");
+    }
+
+    @Test
+    @DisplayName("Get products when cursor was returned with other filters should return bad request status")
+    void getProductsWhenCursorWasReturnedWithOtherFiltersShouldReturnBadRequestStatus() throws Exception {
+        final ProductFilter filter = ProductFilter.builder().color(BasicColor.BLUE).build();
+        when(productService.getProductsView(Optional.empty(), filter, Optional.of(1), Optional.of("redCursor")))
+                .thenThrow(new PageRequestNotValidException("Cursor redCursor was returned with other filters"));
+
+        this.mockMvc.perform(get(URL_PRODUCTS)
+                .param(QUERY_PARAM_COLOR, "blue")
+                .param(QUERY_PARAM_LIMIT, "1")
+                .param(QUERY_PARAM_CURSOR, "redCursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Get products when a filter is invalid should return bad request status")
+    void getProductsWhenAFilterIsInvalidShouldReturnBadRequestStatus() throws Exception {
+        this.mockMvc.perform(get(URL_PRODUCTS).param(QUERY_PARAM_COLOR, "teal"))
+                .andExpect(status().isBadRequest());
+        this.mockMvc.perform(get(URL_PRODUCTS).param(QUERY_PARAM_MAX_NOW_PRICE, "-1"))
+                .andExpect(status().isBadRequest());
+        this.mockMvc.perform(get(URL_PRODUCTS).param(QUERY_PARAM_MIN_DISCOUNT, "half"))
+                .andExpect(status().isBadRequest());
+        this.mockMvc.perform(get(URL_PRODUCTS).param(QUERY_PARAM_MIN_REDUCTION, "--1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Get products when if none match matches etag should return not modified status without body")
+    void getProductsWhenIfNoneMatchMatchesEtagShouldReturnNotModifiedStatusWithoutBody() throws Exception {
+        final Products products = Products.builder().products(List.of(Product.builder().productId("id").build())).build();
+        final String etag = "\"ShowWasNow-hash\"";
+        when(productService.getProductsView(Optional.empty(), ProductFilter.NONE, Optional.empty(), Optional.empty()))
+                .thenReturn(ProductsView.builder().products(products).json(objectMapper.writeValueAsBytes(products)).etag(etag).build());
+
+        this.mockMvc.perform(get(URL_PRODUCTS))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+        final String responseText = this.mockMvc.perform(get(URL_PRODUCTS).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, etag))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals("", responseText, "Body should be empty");
+    }
+
+    @Test
+    @DisplayName("Get products when if none match holds the weakened etag should return not modified status")
+    void getProductsWhenIfNoneMatchHoldsTheWeakenedEtagShouldReturnNotModifiedStatus() throws Exception {
+        final Products products = Products.builder().products(List.of(Product.builder().productId("id").build())).build();
+        final String etag = "\"ShowWasNow-hash\"";
+        when(productService.getProductsView(Optional.empty(), ProductFilter.NONE, Optional.empty(), Optional.empty()))
+                .thenReturn(ProductsView.builder().products(products).json(objectMapper.writeValueAsBytes(products)).etag(etag).build());
+
+        this.mockMvc.perform(get(URL_PRODUCTS).header(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        this.mockMvc.perform(get(URL_PRODUCTS).header(HttpHeaders.IF_NONE_MATCH, "W/\"other\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Get products when gzip is accepted should return precompressed body with gzip etag")
+    void getProductsWhenGzipIsAcceptedShouldReturnPrecompressedBodyWithGzipEtag() throws Exception {
+        final Products products = Products.builder().products(List.of(Product.builder().productId("id").build())).build();
+        final byte[] gzipJson = {31, -117, 8, 0};
+        when(productService.getProductsView(Optional.empty(), ProductFilter.NONE, Optional.empty(), Optional.empty()))
+                .thenReturn(ProductsView.builder()
+                        .products(products)
+                        .json(objectMapper.writeValueAsBytes(products))
+                        .etag("\"etag\"")
+                        .gzipJson(gzipJson)
+                        .gzipEtag("\"etag-gzip\"")
+                        .build());
+
+        final byte[] body = this.mockMvc.perform(get(URL_PRODUCTS).header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"etag-gzip\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, gzipJson.length))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+
+        assertArrayEquals(gzipJson, body, "Body should match");
+    }
+
     @Test
     @DisplayName("Get products when label type is invalid should return bad request status")
     void getProductsWhenLabelTypeIsInvalidShouldReturnBadReqeustStatus() throws Exception {
@@ -94,8 +277,93 @@ class ProductControllerTest {
     @Test
     @DisplayName("Get products when product service throws exception should return internal server error status")
     void getProductsWhenProductServiceThrowsExceptionShouldReturnInternalServerErrorStatus() throws Exception {
-        when(productService.getProducts(Optional.empty())).thenThrow(ProductServiceException.class);
+        when(productService.getProductsView(Optional.empty(), ProductFilter.NONE, Optional.empty(), Optional.empty())).thenThrow(ProductServiceException.class);
 
         this.mockMvc.perform(get(URL_PRODUCTS)).andExpect(status().isInternalServerError());
     }
+
+    @Test
+    @DisplayName("Search products should return products matching the query")
+    void searchProductsShouldReturnProductsMatchingTheQuery() throws Exception {
+        final Products products = Products.builder().products(List.of(Product.builder().productId("id").title("Red dress").build())).build();
+        when(productService.searchProducts("red dr", Optional.of(PriceLabelType.SHOW_PERC_DISCOUNT), Optional.of(5))).thenReturn(toView(products));
+
+        final String responseText = this.mockMvc.perform(get(URL_PRODUCTS_SEARCH)
+                .param(QUERY_PARAM_QUERY, "red dr")
+                .param(QUERY_PARAM_LABEL_TYPE, "ShowPercDiscount")
+                .param(QUERY_PARAM_LIMIT, "5"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        final Products productsActual = objectMapper.readValue(responseText, Products.class);
+
+        assertEquals(products, productsActual, "Products should match");
+    }
+
+    @Test
+    @DisplayName("Search products when query is missing or blank should return bad request status")
+    void searchProductsWhenQueryIsMissingOrBlankShouldReturnBadRequestStatus() throws Exception {
+        when(productService.searchProducts(" ", Optional.empty(), Optional.empty())).thenThrow(new SearchQueryNotValidException("Query must not be blank"));
+
+        this.mockMvc.perform(get(URL_PRODUCTS_SEARCH)).andExpect(status().isBadRequest());
+        this.mockMvc.perform(get(URL_PRODUCTS_SEARCH).param(QUERY_PARAM_QUERY, " ")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Get product should return the product of the id")
+    void getProductShouldReturnTheProductOfTheId() throws Exception {
+        final Product product = Product.builder().productId("id").priceLabel("50% off - now £10").build();
+        when(productService.getProduct("id", Optional.of(PriceLabelType.SHOW_PERC_DISCOUNT))).thenReturn(product);
+
+        final String responseText = this.mockMvc.perform(get(URL_PRODUCT, "id")
+                .param(QUERY_PARAM_LABEL_TYPE, "ShowPercDiscount"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(product, objectMapper.readValue(responseText, Product.class), "Product should match");
+    }
+
+    @Test
+    @DisplayName("Get product when product is not found should return not found status")
+    void getProductWhenProductIsNotFoundShouldReturnNotFoundStatus() throws Exception {
+        when(productService.getProduct("missing", Optional.empty())).thenThrow(new ProductNotFoundException("missing"));
+
+        this.mockMvc.perform(get(URL_PRODUCT, "missing")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Batch get products should return the products of the ids in the request body")
+    void batchGetProductsShouldReturnTheProductsOfTheIdsInTheRequestBody() throws Exception {
+        final Products products = Products.builder().products(List.of(Product.builder().productId("second").build(),
+                Product.builder().productId("first").build())).build();
+        when(productService.batchGetProducts(List.of("second", "first"), Optional.empty())).thenReturn(toView(products));
+
+        final String responseText = this.mockMvc.perform(post(URL_PRODUCTS_BATCH_GET)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"productIds\":[\"second\",\"first\"]}"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(products, objectMapper.readValue(responseText, Products.class), "Products should match");
+    }
+
+    @Test
+    @DisplayName("Batch get products when ids are not valid should return bad request status")
+    void batchGetProductsWhenIdsAreNotValidShouldReturnBadRequestStatus() throws Exception {
+        when(productService.batchGetProducts(null, Optional.empty()))
+                .thenThrow(new BatchGetRequestNotValidException("Between 1 and 100 product ids are required"));
+
+        this.mockMvc.perform(post(URL_PRODUCTS_BATCH_GET).contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private ProductsView toView(final Products products) throws Exception {
+        return ProductsView.builder().products(products).json(objectMapper.writeValueAsBytes(products)).build();
+    }
 }
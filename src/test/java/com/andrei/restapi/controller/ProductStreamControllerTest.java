@@ -0,0 +1,206 @@
+package com.andrei.restapi.controller;
+
+import com.andrei.restapi.configuration.ServingProperties;
+import com.andrei.restapi.model.PriceLabelType;
+import com.andrei.restapi.model.Product;
+import com.andrei.restapi.model.Products;
+import com.andrei.restapi.service.ProductService;
+import com.andrei.restapi.service.ProductServiceException;
+import com.andrei.restapi.service.ProductsView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_LABEL_TYPE;
+import static com.andrei.restapi.controller.ProductStreamController.URL_PRODUCTS_STREAM;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Unit tests for {@link ProductStreamController}.
+ */
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(value = ProductStreamController.class,
+        properties = {"spring.mvc.async.request-timeout=100ms", "serving.stream-timeout=10s"})
+@Import(ServingProperties.class)
+class ProductStreamControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ProductService productService;
+
+    @Autowired
+    private ProductStreamController productStreamController;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Get products stream should write one product per line")
+    void getProductsStreamShouldWriteOneProductPerLine() throws Exception {
+        final List<Product> products = new ArrayList<>();
+        for (int i = 0; i < NdjsonProductsWriter.FLUSH_EVERY_PRODUCTS + 1; i++) {
+            products.add(Product.builder().productId("id" + i).title("title " + i).build());
+        }
+        when(productService.getProductsView(Optional.of(PriceLabelType.SHOW_PERC_DISCOUNT)))
+                .thenReturn(ProductsView.builder().products(Products.builder().products(products).build()).build());
+
+        final MvcResult mvcResult = this.mockMvc.perform(get(URL_PRODUCTS_STREAM)
+                .param(QUERY_PARAM_LABEL_TYPE, PriceLabelType.SHOW_PERC_DISCOUNT.getValue()))
+                .andReturn();
+        final String responseText = this.mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/x-ndjson"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        final String[] lines = responseText.split("\n");
+        assertEquals(products.size(), lines.length, "Lines should match");
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(products.get(i), objectMapper.readValue(lines[i], Product.class), "Product should match");
+        }
+    }
+
+    @Test
+    @DisplayName("Get products stream when view has product JSON should copy the JSON of each product to its line")
+    void getProductsStreamWhenViewHasProductJsonShouldCopyTheJsonOfEachProductToItsLine() throws Exception {
+        final List<Product> products = new ArrayList<>();
+        final ByteArrayOutputStream json = new ByteArrayOutputStream();
+        final int[] offsets = new int[NdjsonProductsWriter.FLUSH_EVERY_PRODUCTS + 2];
+        json.write("{\"products\":[".getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < NdjsonProductsWriter.FLUSH_EVERY_PRODUCTS + 1; i++) {
+            final Product product = Product.builder().productId("id" + i).title("title " + i).build();
+            products.add(product);
+            if (i > 0) {
+                json.write(',');
+            }
+            offsets[i] = json.size();
+            json.write(objectMapper.writeValueAsBytes(product));
+        }
+        offsets[products.size()] = json.size() + 1;
+        json.write("]}".getBytes(StandardCharsets.UTF_8));
+        when(productService.getProductsView(Optional.empty())).thenReturn(ProductsView.builder()
+                .json(json.toByteArray())
+                .productJsonOffsets(offsets)
+                .build());
+
+        final MvcResult mvcResult = this.mockMvc.perform(get(URL_PRODUCTS_STREAM)).andReturn();
+        final String responseText = this.mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        final String[] lines = responseText.split("\n");
+        assertEquals(products.size(), lines.length, "Lines should match");
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(products.get(i), objectMapper.readValue(lines[i], Product.class), "Product should match");
+        }
+    }
+
+    @Test
+    @DisplayName("Get products stream should write the body on the bounded stream executor")
+    void getProductsStreamShouldWriteTheBodyOnTheBoundedStreamExecutor() throws Exception {
+        final List<String> threadNames = new ArrayList<>();
+        final List<Product> products = new AbstractList<Product>() {
+
+            @Override
+            public Product get(final int index) {
+                threadNames.add(Thread.currentThread().getName());
+                return Product.builder().productId("id").build();
+            }
+
+            @Override
+            public int size() {
+                return 1;
+            }
+        };
+        when(productService.getProductsView(Optional.empty()))
+                .thenReturn(ProductsView.builder().products(Products.builder().products(products).build()).build());
+
+        final MvcResult mvcResult = this.mockMvc.perform(get(URL_PRODUCTS_STREAM)).andReturn();
+        this.mockMvc.perform(asyncDispatch(mvcResult)).andExpect(status().isOk());
+
+        assertEquals(1, threadNames.size(), "Reads should match");
+        assertTrue(threadNames.get(0).startsWith(ProductStreamController.STREAM_THREAD_NAME_PREFIX),
+                "Thread should be a stream thread");
+    }
+
+    @Test
+    @DisplayName("Get products stream should outlast the default async request timeout")
+    void getProductsStreamShouldOutlastTheDefaultAsyncRequestTimeout() throws Exception {
+        final List<Product> products = new AbstractList<Product>() {
+
+            @Override
+            public Product get(final int index) {
+                try {
+                    Thread.sleep(100);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Product.builder().productId("id" + index).build();
+            }
+
+            @Override
+            public int size() {
+                return 3;
+            }
+        };
+        when(productService.getProductsView(Optional.empty()))
+                .thenReturn(ProductsView.builder().products(Products.builder().products(products).build()).build());
+
+        final MvcResult mvcResult = this.mockMvc.perform(get(URL_PRODUCTS_STREAM)).andReturn();
+        final String responseText = this.mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(10_000, mvcResult.getRequest().getAsyncContext().getTimeout(), "Timeout should match");
+        assertEquals(products.size(), responseText.split("\n").length, "Lines should match");
+    }
+
+    @Test
+    @DirtiesContext
+    @DisplayName("Get products stream when stream executor rejects the stream should return service unavailable status")
+    void getProductsStreamWhenStreamExecutorRejectsTheStreamShouldReturnServiceUnavailableStatus() throws Exception {
+        when(productService.getProductsView(Optional.empty())).thenReturn(ProductsView.builder()
+                .products(Products.builder().products(List.of()).build())
+                .build());
+        productStreamController.shutdown();
+
+        this.mockMvc.perform(get(URL_PRODUCTS_STREAM)).andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    @DisplayName("Get products stream when product service throws exception should return internal server error status")
+    void getProductsStreamWhenProductServiceThrowsExceptionShouldReturnInternalServerErrorStatus() throws Exception {
+        when(productService.getProductsView(Optional.empty())).thenThrow(ProductServiceException.class);
+
+        this.mockMvc.perform(get(URL_PRODUCTS_STREAM)).andExpect(status().isInternalServerError());
+    }
+}
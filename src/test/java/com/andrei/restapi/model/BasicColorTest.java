@@ -0,0 +1,29 @@
+package com.andrei.restapi.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link BasicColor}.
+ */
+class BasicColorTest {
+
+    @Test
+    @DisplayName("Parse should ignore case")
+    void parseShouldIgnoreCase() {
+        assertEquals(BasicColor.RED, BasicColor.parse("Red"), "Basic color should match");
+        assertEquals(BasicColor.RED, BasicColor.parse("RED"), "Basic color should match");
+        assertEquals(BasicColor.RED, BasicColor.parse("red"), "Basic color should match");
+        assertEquals(BasicColor.MULTI, BasicColor.parse("mULTi"), "Basic color should match");
+    }
+
+    @Test
+    @DisplayName("Parse when color is not valid should throw illegal argument exception")
+    void parseWhenColorIsNotValidShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> BasicColor.parse("Teal"));
+        assertThrows(IllegalArgumentException.class, () -> BasicColor.parse(null));
+    }
+}
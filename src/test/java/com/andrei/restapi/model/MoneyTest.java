@@ -0,0 +1,61 @@
+package com.andrei.restapi.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link Money}.
+ */
+class MoneyTest {
+
+    @Test
+    @DisplayName("Parse minor units should parse whole and decimal amounts")
+    void parseMinorUnitsShouldParseWholeAndDecimalAmounts() {
+        assertEquals(1200, Money.parseMinorUnits("12"), "Minor units should match");
+        assertEquals(1250, Money.parseMinorUnits("12.5"), "Minor units should match");
+        assertEquals(1250, Money.parseMinorUnits("12.50"), "Minor units should match");
+        assertEquals(5, Money.parseMinorUnits("0.05"), "Minor units should match");
+        assertEquals(1999, Money.parseMinorUnits(" 19.99 "), "Minor units should match");
+    }
+
+    @Test
+    @DisplayName("Parse minor units when amount is not valid should throw number format exception")
+    void parseMinorUnitsWhenAmountIsNotValidShouldThrowNumberFormatException() {
+        assertThrows(NumberFormatException.class, () -> Money.parseMinorUnits(""));
+        assertThrows(NumberFormatException.class, () -> Money.parseMinorUnits("."));
+        assertThrows(NumberFormatException.class, () -> Money.parseMinorUnits("abc"));
+        assertThrows(NumberFormatException.class, () -> Money.parseMinorUnits("-1.00"));
+        assertThrows(NumberFormatException.class, () -> Money.parseMinorUnits("1.00x"));
+        assertThrows(NumberFormatException.class, () -> Money.parseMinorUnits("1.0.0"));
+    }
+
+    @Test
+    @DisplayName("Percentage of should be calculated with integer arithmetic")
+    void percentageOfShouldBeCalculatedWithIntegerArithmetic() {
+        final Money was = Money.parse("0.70", Currency.GBP);
+        final Money now = Money.parse("0.49", Currency.GBP);
+
+        assertEquals(30, was.minus(now).percentageOf(was), "Percentage should match");
+    }
+
+    @Test
+    @DisplayName("Percentage of when total is zero should be zero")
+    void percentageOfWhenTotalIsZeroShouldBeZero() {
+        final Money was = Money.parse("0", Currency.GBP);
+        final Money now = Money.parse("10.00", Currency.GBP);
+
+        assertEquals(0, was.minus(now).percentageOf(was), "Percentage should match");
+    }
+
+    @Test
+    @DisplayName("Parse minor units when amount has more than two fraction digits should round half up")
+    void parseMinorUnitsWhenAmountHasMoreThanTwoFractionDigitsShouldRoundHalfUp() {
+        assertEquals(101, Money.parseMinorUnits("1.005"), "Minor units should match");
+        assertEquals(100, Money.parseMinorUnits("1.0049"), "Minor units should match");
+        assertEquals(200, Money.parseMinorUnits("1.999"), "Minor units should match");
+        assertEquals(1999, Money.parseMinorUnits("19.9900"), "Minor units should match");
+    }
+}
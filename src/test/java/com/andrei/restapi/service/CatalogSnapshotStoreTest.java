@@ -0,0 +1,123 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.PriceLabelType;
+import com.andrei.restapi.model.external.ExternalColorSwatch;
+import com.andrei.restapi.model.external.ExternalPrice;
+import com.andrei.restapi.model.external.ExternalProduct;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Unit tests for {@link CatalogSnapshotStore}.
+ */
+class CatalogSnapshotStoreTest {
+
+    private Path directory;
+
+    private Path file;
+
+    private CatalogSnapshotStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("catalog-snapshot-store-test");
+        file = directory.resolve("catalog.bin");
+        store = new CatalogSnapshotStore(file);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    @DisplayName("Load should return the saved snapshot")
+    void loadShouldReturnTheSavedSnapshot() throws IOException {
+        final ExternalProduct product = ExternalProduct.builder()
+                .productId("id")
+                .title("title")
+                .price(ExternalPrice.builder()
+                        .was("30.00")
+                        .then2("25.00")
+                        .currency("GBP")
+                        .now(JsonNodeFactory.instance.objectNode().put("from", "10.00").put("to", "20.00"))
+                        .build())
+                .colorSwatches(List.of(ExternalColorSwatch.builder().color("Black").basicColor("Black").skuId("1").build()))
+                .build();
+        final ProductTable table = ProductTable.of(List.of(new PricedProduct(product, PriceFacts.of(product.getPrice()))),
+                new PriceFormatter());
+        final ProductsView view = ProductsView.builder()
+                .json("{}".getBytes(StandardCharsets.UTF_8))
+                .productJsonOffsets(new int[]{1, 2})
+                .etag("\"etag\"")
+                .gzipJson(ContentEncoding.GZIP.encode("{}".getBytes(StandardCharsets.UTF_8)))
+                .gzipEtag("\"etag-gzip\"")
+                .build();
+        store.save(CatalogSnapshot.builder()
+                .version(3)
+                .fetchedAt(Instant.parse("2019-01-01T00:00:00Z"))
+                .table(table)
+                .views(Map.of(PriceLabelType.SHOW_WAS_NOW, view))
+                .build());
+
+        final CatalogSnapshot loaded = store.load(new PriceFormatter()).orElseThrow();
+
+        assertEquals(3, loaded.getVersion(), "Version should match");
+        assertEquals(Instant.parse("2019-01-01T00:00:00Z"), loaded.getFetchedAt(), "Fetched at should match");
+        final ProductTable loadedTable = loaded.getTable();
+        assertEquals(1, loadedTable.size(), "Size should match");
+        assertEquals("id", loadedTable.getProductId(0), "Product ID should match");
+        assertEquals("title", loadedTable.getTitle(0), "Title should match");
+        assertEquals(3000, loadedTable.getWasPrice(0), "Was price should match");
+        assertEquals(2500, loadedTable.getThenPrice(0), "Then price should match");
+        assertEquals(2000, loadedTable.getNowPrice(0), "Now price should match");
+        assertEquals(1000, loadedTable.getReduction(0), "Reduction should match");
+        for (final PriceLabelType priceLabelType : PriceLabelType.values()) {
+            assertEquals(table.getProduct(0, priceLabelType), loadedTable.getProduct(0, priceLabelType),
+                    "Product should match");
+        }
+        final ProductsView loadedView = loaded.getView(PriceLabelType.SHOW_WAS_NOW);
+        assertArrayEquals(view.getJson(), loadedView.getJson(), "JSON should match");
+        assertArrayEquals(view.getProductJsonOffsets(), loadedView.getProductJsonOffsets(), "Offsets should match");
+        assertArrayEquals(view.getGzipJson(), loadedView.getGzipJson(), "Gzip JSON should match");
+        assertEquals(view.getEtag(), loadedView.getEtag(), "Etag should match");
+        assertEquals(view.getGzipEtag(), loadedView.getGzipEtag(), "Gzip etag should match");
+        assertFalse(Files.exists(directory.resolve("catalog.bin.tmp")), "Temporary file should be moved");
+    }
+
+    @Test
+    @DisplayName("Load when file is corrupt should return empty")
+    void loadWhenFileIsCorruptShouldReturnEmpty() throws IOException {
+        store.save(CatalogSnapshot.builder()
+                .version(1)
+                .fetchedAt(Instant.EPOCH)
+                .table(ProductTable.of(Collections.emptyList(), new PriceFormatter()))
+                .views(Collections.emptyMap())
+                .build());
+        final byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+
+        assertFalse(store.load(new PriceFormatter()).isPresent(), "Snapshot should not be loaded");
+    }
+}
@@ -0,0 +1,40 @@
+package com.andrei.restapi.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link ContentEncoding}.
+ */
+class ContentEncodingTest {
+
+    @Test
+    @DisplayName("Negotiate should choose gzip only when it is accepted with a non zero quality")
+    void negotiateShouldChooseGzipOnlyWhenItIsAcceptedWithANonZeroQuality() {
+        assertEquals(ContentEncoding.IDENTITY, ContentEncoding.negotiate(null), "Encoding should match");
+        assertEquals(ContentEncoding.IDENTITY, ContentEncoding.negotiate("deflate, br"), "Encoding should match");
+        assertEquals(ContentEncoding.GZIP, ContentEncoding.negotiate("deflate, gzip;q=0.8"), "Encoding should match");
+        assertEquals(ContentEncoding.GZIP, ContentEncoding.negotiate("*"), "Encoding should match");
+        assertEquals(ContentEncoding.IDENTITY, ContentEncoding.negotiate("gzip;q=0, *"), "Encoding should match");
+    }
+
+    @Test
+    @DisplayName("Encode with gzip should compress content that decompresses to the original")
+    void encodeWithGzipShouldCompressContentThatDecompressesToTheOriginal() throws Exception {
+        final byte[] content = String.join(",", Collections.nCopies(100, "{\"products\":[]}")).getBytes(StandardCharsets.UTF_8);
+
+        final byte[] compressed = ContentEncoding.GZIP.encode(content);
+
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertArrayEquals(content, gzip.readAllBytes(), "Content should match");
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.external.ExternalColorSwatch;
+import com.andrei.restapi.model.external.ExternalProduct;
+import com.andrei.restapi.model.external.ExternalProducts;
+import com.fasterxml.jackson.core.JsonFactory;
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link ExternalProductsDecoder}.
+ */
+class ExternalProductsDecoderTest {
+
+    private ExternalProductsDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        decoder = new ExternalProductsDecoder(new JsonFactory(), (response, type) -> {
+            throw new UnsupportedOperationException();
+        });
+    }
+
+    @Test
+    @DisplayName("Decode should only return products with a price reduction and count every product received")
+    void decodeShouldOnlyReturnProductsWithAPriceReductionAndCountEveryProductReceived() throws Exception {
+        final ExternalProducts externalProducts = decode("{\"products\":["
+                + "{\"productId\":\"withoutWas\",\"price\":{\"now\":\"20.00\",\"currency\":\"GBP\"},\"colorSwatches\":[]},"
+                + "{\"productId\":\"withReduction\",\"price\":{\"was\":\"30.00\",\"now\":\"20.00\",\"currency\":\"GBP\"},\"colorSwatches\":[]},"
+                + "{\"price\":{\"was\":\"20.00\",\"now\":\"20.00\",\"currency\":\"GBP\"},\"productId\":\"withoutReduction\"}"
+                + "]}");
+
+        assertEquals(1, externalProducts.getProducts().size(), "Size should match");
+        assertEquals("withReduction", externalProducts.getProducts().get(0).getProductId(), "Id should match");
+        assertEquals(3, externalProducts.countReceived(), "Received count should match");
+    }
+
+    @Test
+    @DisplayName("Decode when now price is an object should read the to price")
+    void decodeWhenNowPriceIsAnObjectShouldReadTheToPrice() throws Exception {
+        final ExternalProducts externalProducts = decode("{\"products\":["
+                + "{\"productId\":\"id\",\"price\":{\"was\":\"30.00\",\"now\":{\"from\":\"10.00\",\"to\":\"20.00\"},\"currency\":\"GBP\"}}"
+                + "]}");
+
+        assertEquals("20.00", externalProducts.getProducts().get(0).getPrice().getNow().asText(), "Now price should match");
+    }
+
+    @Test
+    @DisplayName("Decode should map fields and skip unknown fields")
+    void decodeShouldMapFieldsAndSkipUnknownFields() throws Exception {
+        final ExternalProducts externalProducts = decode("{\"showInStockOnly\":false,\"products\":["
+                + "{\"productId\":\"id\",\"type\":\"product\",\"title\":\"title\",\"media\":{\"images\":[\"a\",\"b\"]},"
+                + "\"price\":{\"was\":\"30.00\",\"then1\":\"\",\"then2\":\"25.00\",\"now\":\"20.00\",\"uom\":\"\",\"currency\":\"GBP\"},"
+                + "\"colorSwatches\":[{\"color\":\"Black/White\",\"basicColor\":\"Black\",\"colorSwatchUrl\":\"url\",\"skuId\":\"123\"}]}"
+                + "],\"facets\":[{\"dimensionName\":\"colour\"}]}");
+
+        final ExternalProduct product = externalProducts.getProducts().get(0);
+        assertEquals("id", product.getProductId(), "Product ID should match");
+        assertEquals("title", product.getTitle(), "Title should match");
+        assertEquals("30.00", product.getPrice().getWas(), "Was price should match");
+        assertEquals("25.00", product.getPrice().getThen2(), "Then2 price should match");
+        assertEquals("GBP", product.getPrice().getCurrency(), "Currency should match");
+        assertEquals(List.of(ExternalColorSwatch.builder().color("Black/White").basicColor("Black").skuId("123").build()),
+                product.getColorSwatches(), "Color swatches should match");
+    }
+
+    @Test
+    @DisplayName("Decode should share one instance of equal color names and currencies")
+    void decodeShouldShareOneInstanceOfEqualColorNamesAndCurrencies() throws Exception {
+        final String product = "{\"productId\":\"id\",\"price\":{\"was\":\"30.00\",\"now\":\"20.00\",\"currency\":\"GBP\"},"
+                + "\"colorSwatches\":[{\"color\":\"Black\",\"basicColor\":\"Black\",\"skuId\":\"123\"}]}";
+        final ExternalProduct first = decode("{\"products\":[" + product + "]}").getProducts().get(0);
+        final ExternalProduct second = decode("{\"products\":[" + product + "]}").getProducts().get(0);
+
+        assertSame(first.getPrice().getCurrency(), second.getPrice().getCurrency(), "Currency should be shared");
+        assertSame(first.getColorSwatches().get(0).getColor(), second.getColorSwatches().get(0).getColor(),
+                "Color should be shared");
+        assertSame(first.getColorSwatches().get(0).getColor(), second.getColorSwatches().get(0).getBasicColor(),
+                "Basic color should be shared");
+    }
+
+    @Test
+    @DisplayName("Decode when price is not a number should throw IO exception")
+    void decodeWhenPriceIsNotANumberShouldThrowIOException() {
+        assertThrows(IOException.class, () -> decode("{\"products\":["
+                + "{\"productId\":\"id\",\"price\":{\"was\":\"abc\",\"now\":\"20.00\",\"currency\":\"GBP\"}}"
+                + "]}"));
+    }
+
+    private ExternalProducts decode(final String json) throws IOException {
+        final Response response = Response.builder()
+                .status(200)
+                .reason("OK")
+                .headers(Collections.emptyMap())
+                .request(Request.create(Request.HttpMethod.GET, "http://localhost", Collections.emptyMap(), null, StandardCharsets.UTF_8))
+                .body(json, StandardCharsets.UTF_8)
+                .build();
+
+        return (ExternalProducts) decoder.decode(response, ExternalProducts.class);
+    }
+}
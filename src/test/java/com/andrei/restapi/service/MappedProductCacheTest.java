@@ -0,0 +1,140 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.PriceLabelType;
+import com.andrei.restapi.model.external.ExternalColorSwatch;
+import com.andrei.restapi.model.external.ExternalPrice;
+import com.andrei.restapi.model.external.ExternalProduct;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit tests for {@link MappedProductCache}.
+ */
+class MappedProductCacheTest {
+
+    @Test
+    @DisplayName("Diff should order products like a full sort across refreshes that change, add, remove and move products")
+    void diffShouldOrderProductsLikeAFullSortAcrossRefreshesThatChangeAddRemoveAndMoveProducts() {
+        final Random random = new Random(42);
+        final List<ExternalProduct> externalProducts = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            externalProducts.add(product("product" + i, random));
+        }
+        final MappedProductCache mappedProductCache = new MappedProductCache();
+
+        for (int refresh = 0; refresh < 20; refresh++) {
+            for (int i = 0; i < 25; i++) {
+                externalProducts.set(random.nextInt(externalProducts.size()), product("product" + random.nextInt(600), random));
+            }
+            externalProducts.remove(random.nextInt(externalProducts.size()));
+            if (refresh % 5 == 4) {
+                Collections.swap(externalProducts, random.nextInt(externalProducts.size()), random.nextInt(externalProducts.size()));
+            }
+
+            final MappedProductCache.Changes changes = mappedProductCache.diff(externalProducts);
+            final ProductTable table = changes.createTable(new PriceFormatter());
+            mappedProductCache.commit(changes, table, Collections.emptyMap());
+
+            assertEquals(productIds(new MappedProductCache().diff(externalProducts).createTable(new PriceFormatter())),
+                    productIds(table), "Order should match");
+        }
+    }
+
+    @Test
+    @DisplayName("Diff should reuse entries of unchanged products and count changes since the last commit")
+    void diffShouldReuseEntriesOfUnchangedProductsAndCountChangesSinceTheLastCommit() {
+        final MappedProductCache mappedProductCache = new MappedProductCache();
+        final MappedProductCache.Changes first = mappedProductCache.diff(List.of(
+                product("unchanged", "5.00"), product("changed", "4.00"), product("removed", "3.00")));
+        final ProductTable firstTable = first.createTable(new PriceFormatter());
+        mappedProductCache.commit(first, firstTable, Collections.emptyMap());
+
+        final MappedProductCache.Changes second = mappedProductCache.diff(List.of(
+                product("unchanged", "5.00"), product("changed", "9.00"), product("added", "2.00")));
+        final ProductTable secondTable = second.createTable(new PriceFormatter());
+
+        assertEquals(List.of("changed", "unchanged", "added"), productIds(secondTable), "Ids should match");
+        for (final PriceLabelType priceLabelType : PriceLabelType.values()) {
+            assertEquals(firstTable.getProduct(0, priceLabelType), secondTable.getProduct(1, priceLabelType),
+                    "Copied product should match");
+        }
+        assertSame(first.getReducedEntries().get(0), second.getReducedEntries().get(1), "Entry should be reused");
+        assertEquals(1, second.getUnchanged(), "Unchanged should match");
+        assertEquals(1, second.getChanged(), "Changed should match");
+        assertEquals(1, second.getAdded(), "Added should match");
+        assertEquals(1, second.getRemoved(), "Removed should match");
+        assertNull(second.getUnchangedViews(), "Views should not be reused");
+        assertNull(second.getUnchangedTable(), "Table should not be reused");
+    }
+
+    @Test
+    @DisplayName("Diff when products with a price reduction are unchanged should return the table and views of the last commit")
+    void diffWhenProductsWithAPriceReductionAreUnchangedShouldReturnTheTableAndViewsOfTheLastCommit() {
+        final MappedProductCache mappedProductCache = new MappedProductCache();
+        final Map<PriceLabelType, ProductsView> views = Map.of(PriceLabelType.SHOW_WAS_NOW, ProductsView.builder().build());
+        final ProductTable table = ProductTable.of(Collections.emptyList(), new PriceFormatter());
+        mappedProductCache.commit(mappedProductCache.diff(List.of(product("reduced", "5.00"), product("notReduced", ""))),
+                table, views);
+
+        final MappedProductCache.Changes changes = mappedProductCache.diff(List.of(product("reduced", "5.00"),
+                product("notReduced", "1.00")));
+
+        assertSame(views, changes.getUnchangedViews(), "Views should be reused");
+        assertSame(table, changes.getUnchangedTable(), "Table should be reused");
+        assertEquals(1, changes.getChanged(), "Changed should match");
+    }
+
+    @Test
+    @DisplayName("Content hash should change with any mapped field")
+    void contentHashShouldChangeWithAnyMappedField() {
+        final ExternalProduct product = product("product", "5.00");
+        final ExternalProduct otherTitle = product("product", "5.00");
+        otherTitle.setTitle("Other");
+        final ExternalProduct otherNowPrice = product("product", "5.00");
+        otherNowPrice.getPrice().setNow(new TextNode("2.00"));
+
+        assertEquals(MappedProductCache.contentHash(product), MappedProductCache.contentHash(product("product", "5.00")),
+                "Hash should match");
+        assertNotEquals(MappedProductCache.contentHash(product), MappedProductCache.contentHash(otherTitle),
+                "Hash should not match");
+        assertNotEquals(MappedProductCache.contentHash(product), MappedProductCache.contentHash(otherNowPrice),
+                "Hash should not match");
+    }
+
+    private static ExternalProduct product(final String productId, final Random random) {
+        return product(productId, random.nextInt(4) == 0 ? "" : (1 + random.nextInt(5)) + ".00");
+    }
+
+    private static ExternalProduct product(final String productId, final String wasPrice) {
+        return ExternalProduct.builder()
+                .productId(productId)
+                .title("Title")
+                .price(ExternalPrice.builder()
+                        .now(new TextNode("1.00"))
+                        .was(wasPrice)
+                        .currency("GBP")
+                        .build())
+                .colorSwatches(List.of(ExternalColorSwatch.builder().color("Red").basicColor("Red").skuId(productId).build()))
+                .build();
+    }
+
+    private static List<String> productIds(final ProductTable table) {
+        return IntStream.range(0, table.size())
+                .mapToObj(table::getProductId)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,78 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.Currency;
+import com.andrei.restapi.model.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link PriceFormatter}.
+ */
+class PriceFormatterTest {
+
+    private PriceFormatter priceFormatter;
+
+    @BeforeEach
+    void setUp() {
+        priceFormatter = new PriceFormatter();
+    }
+
+    @Test
+    @DisplayName("Format price should format prices the same way as the previous decimal formats")
+    void formatPriceShouldFormatPricesTheSameWayAsThePreviousDecimalFormats() {
+        assertEquals("£.50", priceFormatter.formatPrice(gbp(50)), "Price should match");
+        assertEquals("£9.00", priceFormatter.formatPrice(gbp(900)), "Price should match");
+        assertEquals("£10", priceFormatter.formatPrice(gbp(1000)), "Price should match");
+        assertEquals("£10.05", priceFormatter.formatPrice(gbp(1005)), "Price should match");
+        assertEquals("£1234.50", priceFormatter.formatPrice(gbp(123450)), "Price should match");
+        assertEquals("£1,000,005", priceFormatter.formatPrice(gbp(100000500)), "Price should match");
+    }
+
+    @Test
+    @DisplayName("Format labels should format was, then, now and percent discount labels")
+    void formatLabelsShouldFormatWasThenNowAndPercentDiscountLabels() {
+        assertEquals("Was £11, now £9.00", priceFormatter.formatWasNow(gbp(1100), gbp(900)), "Label should match");
+        assertEquals("Was £11, then £10, now £9.00", priceFormatter.formatWasThenNow(gbp(1100), gbp(1000), gbp(900)),
+                "Label should match");
+        assertEquals("50% off - now £5.00", priceFormatter.formatPercentDiscount(50, gbp(500)), "Label should match");
+    }
+
+    @Test
+    @DisplayName("Format price when called concurrently should not corrupt prices")
+    void formatPriceWhenCalledConcurrentlyShouldNotCorruptPrices() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                final long offset = thread;
+                results.add(executor.submit(() -> {
+                    boolean matched = true;
+                    for (long pence = offset; pence < 100000; pence += 8) {
+                        final String expected = priceFormatter.formatWasNow(gbp(pence + 1), gbp(pence));
+                        matched &= expected.equals("Was " + priceFormatter.formatPrice(gbp(pence + 1))
+                                + ", now " + priceFormatter.formatPrice(gbp(pence)));
+                    }
+                    return matched;
+                }));
+            }
+            for (final Future<Boolean> result : results) {
+                assertEquals(true, result.get(), "Labels should match");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Money gbp(final long pence) {
+        return Money.of(pence, Currency.GBP);
+    }
+}
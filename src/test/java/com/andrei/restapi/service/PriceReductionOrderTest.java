@@ -0,0 +1,40 @@
+package com.andrei.restapi.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Unit tests for {@link PriceReductionOrder}.
+ */
+class PriceReductionOrderTest {
+
+    @Test
+    @DisplayName("Highest first should order reductions from highest to lowest keeping ties in original order")
+    void highestFirstShouldOrderReductionsFromHighestToLowestKeepingTiesInOriginalOrder() {
+        final Random random = new Random(42);
+        final long[] reductions = new long[1000];
+        for (int i = 0; i < reductions.length; i++) {
+            reductions[i] = random.nextInt(50) * 50;
+        }
+
+        final int[] expected = IntStream.range(0, reductions.length)
+                .boxed()
+                .sorted(Comparator.comparingLong((Integer index) -> reductions[index]).reversed())
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        assertArrayEquals(expected, PriceReductionOrder.highestFirst(reductions), "Order should match");
+    }
+
+    @Test
+    @DisplayName("Highest first when there are no reductions should return empty order")
+    void highestFirstWhenThereAreNoReductionsShouldReturnEmptyOrder() {
+        assertArrayEquals(new int[0], PriceReductionOrder.highestFirst(new long[0]), "Order should match");
+    }
+}
@@ -0,0 +1,249 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.configuration.CatalogProperties;
+import com.andrei.restapi.model.external.ExternalProducts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link ProductCatalog}.
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductCatalogTest {
+
+    private static final Duration TTL = Duration.ofMinutes(1);
+
+    private static final Duration STALE_WHILE_REVALIDATE = Duration.ofMinutes(5);
+
+    @Mock
+    private ExternalProductApiClient externalProductApiClient;
+
+    private MutableClock clock;
+
+    private CatalogProperties properties;
+
+    private ProductCatalog productCatalog;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2019-01-01T00:00:00Z"));
+        properties = new CatalogProperties();
+        properties.setTtl(TTL);
+        properties.setStaleWhileRevalidate(STALE_WHILE_REVALIDATE);
+        productCatalog = new ProductCatalog(externalProductApiClient::getProducts,
+                () -> CompletableFuture.supplyAsync(externalProductApiClient::getProducts),
+                (version, fetchedAt, externalProducts) -> CatalogSnapshot.builder()
+                        .version(version)
+                        .fetchedAt(fetchedAt)
+                        .build(),
+                properties, clock);
+    }
+
+    @Test
+    @DisplayName("Get snapshot when snapshot is fresh should not call client again")
+    void getSnapshotWhenSnapshotIsFreshShouldNotCallClientAgain() {
+        when(externalProductApiClient.getProducts()).thenReturn(emptyProducts());
+
+        final CatalogSnapshot first = productCatalog.getSnapshot();
+        clock.advance(TTL.minusSeconds(1));
+        final CatalogSnapshot second = productCatalog.getSnapshot();
+
+        assertSame(first, second, "Snapshot should be reused");
+        verify(externalProductApiClient, times(1)).getProducts();
+    }
+
+    @Test
+    @DisplayName("Get snapshot when snapshot is stale should return stale snapshot and refresh in background")
+    void getSnapshotWhenSnapshotIsStaleShouldReturnStaleSnapshotAndRefreshInBackground() {
+        when(externalProductApiClient.getProducts()).thenReturn(emptyProducts());
+
+        final CatalogSnapshot first = productCatalog.getSnapshot();
+        clock.advance(TTL.plusSeconds(1));
+        final CatalogSnapshot second = productCatalog.getSnapshot();
+
+        assertSame(first, second, "Stale snapshot should be served");
+        verify(externalProductApiClient, timeout(1000).times(2)).getProducts();
+    }
+
+    @Test
+    @DisplayName("Get snapshot when snapshot is expired and client throws exception should serve stale snapshot")
+    void getSnapshotWhenSnapshotIsExpiredAndClientThrowsExceptionShouldServeStaleSnapshot() {
+        when(externalProductApiClient.getProducts()).thenReturn(emptyProducts()).thenThrow(RuntimeException.class);
+
+        final CatalogSnapshot first = productCatalog.getSnapshot();
+        clock.advance(TTL.plus(STALE_WHILE_REVALIDATE));
+        final CatalogSnapshot second = productCatalog.getSnapshot();
+
+        assertSame(first, second, "Stale snapshot should be served");
+    }
+
+    @Test
+    @DisplayName("Get snapshot when serve stale on error is disabled should throw product service exception")
+    void getSnapshotWhenServeStaleOnErrorIsDisabledShouldThrowProductServiceException() {
+        properties.setServeStaleOnError(false);
+        when(externalProductApiClient.getProducts()).thenReturn(emptyProducts()).thenThrow(RuntimeException.class);
+
+        productCatalog.getSnapshot();
+        clock.advance(TTL.plus(STALE_WHILE_REVALIDATE));
+
+        assertThrows(ProductServiceException.class, () -> productCatalog.getSnapshot());
+    }
+
+    @Test
+    @DisplayName("Get snapshot when TTL is zero should refresh on every call")
+    void getSnapshotWhenTtlIsZeroShouldRefreshOnEveryCall() {
+        properties.setTtl(Duration.ZERO);
+        when(externalProductApiClient.getProducts()).thenReturn(emptyProducts());
+
+        final CatalogSnapshot first = productCatalog.getSnapshot();
+        final CatalogSnapshot second = productCatalog.getSnapshot();
+
+        assertEquals(first.getVersion() + 1, second.getVersion(), "Version should be incremented");
+        verify(externalProductApiClient, times(2)).getProducts();
+    }
+
+    @Test
+    @DisplayName("Get snapshot when TTL is zero and called concurrently should share one upstream fetch")
+    void getSnapshotWhenTtlIsZeroAndCalledConcurrentlyShouldShareOneUpstreamFetch() throws Exception {
+        properties.setTtl(Duration.ZERO);
+        final CountDownLatch fetchStarted = new CountDownLatch(1);
+        final CountDownLatch releaseFetch = new CountDownLatch(1);
+        when(externalProductApiClient.getProducts()).thenAnswer(invocation -> {
+            fetchStarted.countDown();
+            releaseFetch.await();
+            return emptyProducts();
+        });
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<CatalogSnapshot>> snapshots = new ArrayList<>();
+            snapshots.add(executor.submit(productCatalog::getSnapshot));
+            fetchStarted.await();
+            for (int i = 0; i < 3; i++) {
+                snapshots.add(executor.submit(productCatalog::getSnapshot));
+            }
+            while (productCatalog.getRefreshFlight().getWaiting() < 3) {
+                Thread.onSpinWait();
+            }
+            releaseFetch.countDown();
+
+            for (final Future<CatalogSnapshot> snapshot : snapshots) {
+                assertSame(snapshots.get(0).get(), snapshot.get(), "Snapshot should be shared");
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        verify(externalProductApiClient, times(1)).getProducts();
+        assertEquals(3, productCatalog.getRefreshFlight().getCoalescedWaiters(), "Coalesced waiters should match");
+    }
+
+    @Test
+    @DisplayName("Get snapshot async when refresh fails should complete with stale snapshot")
+    void getSnapshotAsyncWhenRefreshFailsShouldCompleteWithStaleSnapshot() throws Exception {
+        when(externalProductApiClient.getProducts()).thenReturn(emptyProducts()).thenThrow(RuntimeException.class);
+
+        final CatalogSnapshot first = productCatalog.getSnapshotAsync().get();
+        clock.advance(TTL.plus(STALE_WHILE_REVALIDATE));
+        final CatalogSnapshot second = productCatalog.getSnapshotAsync().get();
+
+        assertSame(first, second, "Stale snapshot should be served");
+        verify(externalProductApiClient, times(2)).getProducts();
+    }
+
+    @Test
+    @DisplayName("Get snapshot when restored snapshot is fresh should serve it without calling client")
+    void getSnapshotWhenRestoredSnapshotIsFreshShouldServeItWithoutCallingClient() {
+        final CatalogSnapshot restored = restoredSnapshot(clock.instant().minus(TTL.dividedBy(2)));
+
+        productCatalog.restore(restored);
+
+        assertSame(restored, productCatalog.getSnapshot(), "Restored snapshot should be served");
+        verify(externalProductApiClient, never()).getProducts();
+    }
+
+    @Test
+    @DisplayName("Get snapshot when restored snapshot is expired should refresh with version following restored version")
+    void getSnapshotWhenRestoredSnapshotIsExpiredShouldRefreshWithVersionFollowingRestoredVersion() {
+        when(externalProductApiClient.getProducts()).thenReturn(emptyProducts());
+        productCatalog.restore(restoredSnapshot(clock.instant().minus(Duration.ofDays(1))));
+
+        assertEquals(8, productCatalog.getSnapshot().getVersion(), "Version should follow restored version");
+    }
+
+    @Test
+    @DisplayName("Get snapshot when restored snapshot is expired and serve stale on error is disabled should throw product service exception")
+    void getSnapshotWhenRestoredSnapshotIsExpiredAndServeStaleOnErrorIsDisabledShouldThrowProductServiceException() {
+        properties.setServeStaleOnError(false);
+        when(externalProductApiClient.getProducts()).thenThrow(RuntimeException.class);
+        productCatalog.restore(restoredSnapshot(clock.instant().minus(Duration.ofDays(1))));
+
+        assertThrows(ProductServiceException.class, () -> productCatalog.getSnapshot());
+    }
+
+    private static CatalogSnapshot restoredSnapshot(final Instant fetchedAt) {
+        return CatalogSnapshot.builder()
+                .version(7)
+                .fetchedAt(fetchedAt)
+                .build();
+    }
+
+    private static ExternalProducts emptyProducts() {
+        return ExternalProducts.builder().products(Collections.emptyList()).build();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(final Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(final Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.BasicColor;
+import com.andrei.restapi.model.external.ExternalColorSwatch;
+import com.andrei.restapi.model.external.ExternalPrice;
+import com.andrei.restapi.model.external.ExternalProduct;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Unit tests for {@link ProductFilterIndex}.
+ */
+class ProductFilterIndexTest {
+
+    private final ProductTable table = table(
+            product("red-small", "10.00", "9.00", "Red"),
+            product("blue-large", "40.00", "10.00", "Blue"),
+            product("red-large", "30.00", "12.00", "Red", "Blue"),
+            product("green-medium", "20.00", "15.00", "Green"));
+
+    @Test
+    @DisplayName("Find when filter is empty should return all rows in catalog order")
+    void findWhenFilterIsEmptyShouldReturnAllRowsInCatalogOrder() {
+        assertArrayEquals(new int[]{0, 1, 2, 3}, table.find(ProductFilter.NONE), "Rows should match");
+    }
+
+    @Test
+    @DisplayName("Find by color should return rows with a swatch of the color")
+    void findByColorShouldReturnRowsWithASwatchOfTheColor() {
+        assertArrayEquals(new int[]{1, 2}, table.find(ProductFilter.builder().color(BasicColor.BLUE).build()),
+                "Rows should match");
+        assertArrayEquals(new int[0], table.find(ProductFilter.builder().color(BasicColor.PINK).build()),
+                "Rows should be empty");
+    }
+
+    @Test
+    @DisplayName("Find by ranges should return rows in catalog order with bounds included")
+    void findByRangesShouldReturnRowsInCatalogOrderWithBoundsIncluded() {
+        assertArrayEquals(new int[]{1, 2}, table.find(ProductFilter.builder().minReduction(1800L).build()),
+                "Rows should match");
+        assertArrayEquals(new int[]{1, 2}, table.find(ProductFilter.builder().minDiscount(60).build()),
+                "Rows should match");
+        assertArrayEquals(new int[]{1, 2, 3}, table.find(ProductFilter.builder().minNowPrice(1000L).build()),
+                "Rows should match");
+        assertArrayEquals(new int[]{0, 1}, table.find(ProductFilter.builder().maxNowPrice(1000L).build()),
+                "Rows should match");
+        assertArrayEquals(new int[0], table.find(ProductFilter.builder().minNowPrice(1300L).maxNowPrice(1200L).build()),
+                "Rows should be empty");
+    }
+
+    @Test
+    @DisplayName("Find by several conditions should return rows that meet all of them")
+    void findBySeveralConditionsShouldReturnRowsThatMeetAllOfThem() {
+        assertArrayEquals(new int[]{2}, table.find(ProductFilter.builder()
+                .color(BasicColor.RED)
+                .minReduction(1000L)
+                .build()), "Rows should match");
+        assertArrayEquals(new int[]{1}, table.find(ProductFilter.builder()
+                .color(BasicColor.BLUE)
+                .minDiscount(70)
+                .maxNowPrice(1100L)
+                .build()), "Rows should match");
+        assertArrayEquals(new int[0], table.find(ProductFilter.builder()
+                .color(BasicColor.GREEN)
+                .minDiscount(50)
+                .build()), "Rows should be empty");
+    }
+
+    private static ProductTable table(final ExternalProduct... products) {
+        final List<PricedProduct> pricedProducts = new ArrayList<>();
+        for (final ExternalProduct product : products) {
+            pricedProducts.add(new PricedProduct(product, PriceFacts.of(product.getPrice())));
+        }
+        return ProductTable.of(pricedProducts, new PriceFormatter());
+    }
+
+    private static ExternalProduct product(final String productId, final String wasPrice, final String nowPrice,
+                                           final String... basicColors) {
+        final List<ExternalColorSwatch> colorSwatches = new ArrayList<>();
+        for (final String basicColor : basicColors) {
+            colorSwatches.add(ExternalColorSwatch.builder().color(basicColor).basicColor(basicColor).skuId(productId).build());
+        }
+        return ExternalProduct.builder()
+                .productId(productId)
+                .title(productId)
+                .price(ExternalPrice.builder()
+                        .was(wasPrice)
+                        .then("")
+                        .now(new TextNode(nowPrice))
+                        .currency("GBP")
+                        .build())
+                .colorSwatches(colorSwatches)
+                .build();
+    }
+}
@@ -0,0 +1,65 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.external.ExternalPrice;
+import com.andrei.restapi.model.external.ExternalProduct;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link ProductIdIndex}.
+ */
+class ProductIdIndexTest {
+
+    @Test
+    @DisplayName("Find should return the row of each product id")
+    void findShouldReturnTheRowOfEachProductId() {
+        final List<String> productIds = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            productIds.add(String.valueOf(3000000 + i));
+        }
+        // Colliding hash codes
+        productIds.add("Aa");
+        productIds.add("BB");
+        final ProductTable table = table(productIds.toArray(new String[0]));
+
+        for (int row = 0; row < productIds.size(); row++) {
+            assertEquals(row, table.findRow(productIds.get(row)), "Row should match");
+        }
+        assertEquals(-1, table.findRow("2999999"), "Row should not be found");
+        assertEquals(-1, table.findRow("C#"), "Row should not be found");
+    }
+
+    @Test
+    @DisplayName("Find when product id repeats should return the first row")
+    void findWhenProductIdRepeatsShouldReturnTheFirstRow() {
+        final ProductTable table = table("first", null, "second", "first");
+
+        assertEquals(0, table.findRow("first"), "Row should match");
+        assertEquals(2, table.findRow("second"), "Row should match");
+        assertEquals(-1, table(new String[0]).findRow("first"), "Row should not be found");
+    }
+
+    private static ProductTable table(final String... productIds) {
+        final List<PricedProduct> pricedProducts = new ArrayList<>();
+        for (final String productId : productIds) {
+            final ExternalProduct product = ExternalProduct.builder()
+                    .productId(productId)
+                    .price(ExternalPrice.builder()
+                            .was("20.00")
+                            .now(new TextNode("10.00"))
+                            .currency("GBP")
+                            .build())
+                    .colorSwatches(Collections.emptyList())
+                    .build();
+            pricedProducts.add(new PricedProduct(product, PriceFacts.of(product.getPrice())));
+        }
+        return ProductTable.of(pricedProducts, new PriceFormatter());
+    }
+}
@@ -0,0 +1,79 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.external.ExternalPrice;
+import com.andrei.restapi.model.external.ExternalProduct;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link ProductSearchIndex}.
+ */
+class ProductSearchIndexTest {
+
+    private final ProductTable table = table(
+            "Red Summer Dress",
+            "Blue dress",
+            "Dressing Gown",
+            null,
+            "Robe d'été rouge",
+            "Red Dress");
+
+    @Test
+    @DisplayName("Tokenize should split on separators, fold case and strip accents")
+    void tokenizeShouldSplitOnSeparatorsFoldCaseAndStripAccents() {
+        assertEquals(List.of("robe", "d", "ete", "rouge", "2"), ProductSearchIndex.tokenize("Robe d'ÉTÉ  rouge-2"),
+                "Terms should match");
+        assertEquals(Collections.emptyList(), ProductSearchIndex.tokenize(null), "Terms should be empty");
+    }
+
+    @Test
+    @DisplayName("Search should match whole terms when the query ends with a separator")
+    void searchShouldMatchWholeTermsWhenTheQueryEndsWithASeparator() {
+        assertArrayEquals(new int[]{1, 5, 0}, table.search("dress "), "Rows should match");
+        assertArrayEquals(new int[]{4}, table.search("ETE "), "Rows should match");
+        assertArrayEquals(new int[0], table.search("skirt "), "Rows should be empty");
+        assertArrayEquals(new int[0], table.search("- "), "Rows should be empty");
+    }
+
+    @Test
+    @DisplayName("Search should match the last term as a prefix and rank whole terms first")
+    void searchShouldMatchTheLastTermAsAPrefixAndRankWholeTermsFirst() {
+        assertArrayEquals(new int[]{1, 5, 0, 2}, table.search("dress"), "Rows should match");
+        assertArrayEquals(new int[]{2, 1, 5, 0}, table.search("dres"), "Rows should match");
+    }
+
+    @Test
+    @DisplayName("Search should return rows matching all terms, by relevance then by row")
+    void searchShouldReturnRowsMatchingAllTermsByRelevanceThenByRow() {
+        assertArrayEquals(new int[]{5, 0}, table.search("red dress"), "Rows should match");
+        assertArrayEquals(new int[]{5, 0}, table.search("dress RED"), "Rows should match");
+        assertArrayEquals(new int[]{0}, table.search("summer d"), "Rows should match");
+        assertArrayEquals(new int[0], table.search("blue gown"), "Rows should be empty");
+    }
+
+    private static ProductTable table(final String... titles) {
+        final List<PricedProduct> pricedProducts = new ArrayList<>();
+        for (int i = 0; i < titles.length; i++) {
+            final ExternalProduct product = ExternalProduct.builder()
+                    .productId(String.valueOf(i))
+                    .title(titles[i])
+                    .price(ExternalPrice.builder()
+                            .was("20.00")
+                            .now(new TextNode("10.00"))
+                            .currency("GBP")
+                            .build())
+                    .colorSwatches(Collections.emptyList())
+                    .build();
+            pricedProducts.add(new PricedProduct(product, PriceFacts.of(product.getPrice())));
+        }
+        return ProductTable.of(pricedProducts, new PriceFormatter());
+    }
+}
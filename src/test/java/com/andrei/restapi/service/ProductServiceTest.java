@@ -1,5 +1,8 @@
 package com.andrei.restapi.service;
 
+import com.andrei.restapi.configuration.CatalogProperties;
+import com.andrei.restapi.configuration.ServingProperties;
+import com.andrei.restapi.configuration.UpstreamProperties;
 import com.andrei.restapi.model.BasicColor;
 import com.andrei.restapi.model.PriceLabelType;
 import com.andrei.restapi.model.Product;
@@ -8,7 +11,10 @@ import com.andrei.restapi.model.external.ExternalColorSwatch;
 import com.andrei.restapi.model.external.ExternalPrice;
 import com.andrei.restapi.model.external.ExternalProduct;
 import com.andrei.restapi.model.external.ExternalProducts;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.TextNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -16,11 +22,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.when;
 
@@ -33,12 +49,15 @@ class ProductServiceTest {
 
     private ProductService productService;
 
+    private MeterRegistry meterRegistry;
+
     @Mock
     private ExternalProductApiClient externalProductApiClient;
 
     @BeforeEach
     void setUp() {
-        productService = new ProductService(externalProductApiClient);
+        meterRegistry = new SimpleMeterRegistry();
+        productService = createProductService(new CatalogProperties());
     }
 
     @Test
@@ -130,6 +149,41 @@ class ProductServiceTest {
         assertEquals(thirdId, products.getProducts().get(2).getProductId(), "Id should match");
     }
 
+    @Test
+    @DisplayName("Get products should sort products with reductions less than one pound apart")
+    void getProductsShouldSortProductsWithReductionsLessThanOnePoundApart() {
+        final String secondId = "secondId";
+        final ExternalProduct second = ExternalProduct.builder()
+                .productId(secondId)
+                .price(ExternalPrice.builder()
+                        .now(new TextNode("1.00"))
+                        .was("2.00")
+                        .currency("GBP")
+                        .build())
+                .colorSwatches(Collections.emptyList())
+                .build();
+
+        final String firstId = "firstId";
+        final ExternalProduct first = ExternalProduct.builder()
+                .productId(firstId)
+                .price(ExternalPrice.builder()
+                        .now(new TextNode("1.00"))
+                        .was("2.50")
+                        .currency("GBP")
+                        .build())
+                .colorSwatches(Collections.emptyList())
+                .build();
+
+        final ExternalProducts externalProducts = ExternalProducts.builder().products(List.of(second, first)).build();
+
+        when(externalProductApiClient.getProducts()).thenReturn(externalProducts);
+
+        final Products products = productService.getProducts(Optional.empty());
+
+        assertEquals(firstId, products.getProducts().get(0).getProductId(), "Id should match");
+        assertEquals(secondId, products.getProducts().get(1).getProductId(), "Id should match");
+    }
+
     @Test
     @DisplayName("Get products should return products with basic color mapped to RGB color")
     void getProductsShouldReturnProductsWithBasicColorMappedToRgbColor() {
@@ -380,4 +434,454 @@ class ProductServiceTest {
         assertEquals("£5.00", actualProduct.getNowPrice(), "Now price should match");
         assertEquals("Was £10, now £5.00", actualProduct.getPriceLabel(), "Price label should match");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Get products view with limit should return pages linked by cursor")
+    void getProductsViewWithLimitShouldReturnPagesLinkedByCursor() {
+        when(externalProductApiClient.getProducts()).thenReturn(ExternalProducts.builder()
+                .products(List.of(reducedProduct("third", "2.00"), reducedProduct("first", "4.00"), reducedProduct("second", "3.00")))
+                .build());
+
+        final Products firstPage = productService.getProductsView(Optional.empty(), Optional.of(2), Optional.empty()).getProducts();
+        final Products secondPage = productService.getProductsView(Optional.empty(), Optional.of(2),
+                Optional.of(firstPage.getNextCursor())).getProducts();
+
+        assertEquals(List.of("first", "second"), productIds(firstPage), "Ids should match");
+        assertEquals(List.of("third"), productIds(secondPage), "Ids should match");
+        assertNull(secondPage.getNextCursor(), "Last page should not have a next cursor");
+    }
+
+    @Test
+    @DisplayName("Get products view with filter should return matching products in reduction order and page them")
+    void getProductsViewWithFilterShouldReturnMatchingProductsInReductionOrderAndPageThem() {
+        when(externalProductApiClient.getProducts()).thenReturn(ExternalProducts.builder()
+                .products(List.of(reducedProduct("small", "2.00"), reducedProduct("large", "5.00"),
+                        reducedProduct("medium", "3.00"), reducedProduct("tiny", "1.50")))
+                .build());
+        final ProductFilter filter = ProductFilter.builder().minReduction(200L).build();
+
+        final Products filtered = productService.getProductsView(Optional.empty(), filter, Optional.empty(),
+                Optional.empty()).getProducts();
+        final Products firstPage = productService.getProductsView(Optional.empty(), filter, Optional.of(1),
+                Optional.empty()).getProducts();
+        final Products secondPage = productService.getProductsView(Optional.empty(), filter, Optional.of(1),
+                Optional.of(firstPage.getNextCursor())).getProducts();
+
+        assertEquals(List.of("large", "medium"), productIds(filtered), "Ids should match");
+        assertEquals(List.of("large"), productIds(firstPage), "Ids should match");
+        assertEquals(List.of("medium"), productIds(secondPage), "Ids should match");
+        assertNull(secondPage.getNextCursor(), "Last page should not have a next cursor");
+    }
+
+    @Test
+    @DisplayName("Get products view when cursor was returned with other filters should throw page request not valid exception")
+    void getProductsViewWhenCursorWasReturnedWithOtherFiltersShouldThrowPageRequestNotValidException() {
+        when(externalProductApiClient.getProducts()).thenReturn(ExternalProducts.builder()
+                .products(List.of(reducedProduct("small", "2.00"), reducedProduct("large", "5.00"),
+                        reducedProduct("medium", "3.00"), reducedProduct("tiny", "1.50")))
+                .build());
+        final ProductFilter filter = ProductFilter.builder().minReduction(200L).build();
+        final String filteredCursor = productService.getProductsView(Optional.empty(), filter, Optional.of(1),
+                Optional.empty()).getProducts().getNextCursor();
+        final String unfilteredCursor = productService.getProductsView(Optional.empty(), Optional.of(1),
+                Optional.empty()).getProducts().getNextCursor();
+
+        assertThrows(PageRequestNotValidException.class, () -> productService.getProductsView(Optional.empty(),
+                ProductFilter.builder().minReduction(300L).build(), Optional.of(1), Optional.of(filteredCursor)));
+        assertThrows(PageRequestNotValidException.class, () -> productService.getProductsView(Optional.empty(),
+                Optional.of(1), Optional.of(filteredCursor)));
+        assertThrows(PageRequestNotValidException.class, () -> productService.getProductsView(Optional.empty(),
+                filter, Optional.of(1), Optional.of(unfilteredCursor)));
+        assertEquals(List.of("medium"), productIds(productService.getProductsView(Optional.empty(),
+                ProductFilter.builder().minReduction(200L).build(), Optional.of(1), Optional.of(filteredCursor))
+                .getProducts()), "Ids should match");
+    }
+
+    @Test
+    @DisplayName("Get products view async with filter should return matching products like the blocking call")
+    void getProductsViewAsyncWithFilterShouldReturnMatchingProductsLikeTheBlockingCall() throws Exception {
+        when(externalProductApiClient.getProducts()).thenReturn(ExternalProducts.builder()
+                .products(List.of(reducedProduct("small", "2.00"), reducedProduct("large", "5.00"),
+                        reducedProduct("medium", "3.00"), reducedProduct("tiny", "1.50")))
+                .build());
+        final ProductFilter filter = ProductFilter.builder().minReduction(200L).build();
+
+        final Products filtered = productService.getProductsViewAsync(Optional.empty(), filter, Optional.empty(),
+                Optional.empty()).get().getProducts();
+
+        assertEquals(List.of("large", "medium"), productIds(filtered), "Ids should match");
+    }
+
+    @Test
+    @DisplayName("Search products should return products with matching titles up to the limit")
+    void searchProductsShouldReturnProductsWithMatchingTitlesUpToTheLimit() {
+        when(externalProductApiClient.getProducts()).thenReturn(ExternalProducts.builder()
+                .products(List.of(titledProduct("small", "2.00", "Blue Dress"),
+                        titledProduct("large", "5.00", "Red Dress"),
+                        titledProduct("gown", "3.00", "Dressing Gown"),
+                        titledProduct("shirt", "4.00", "Shirt")))
+                .build());
+
+        final Products products = productService.searchProducts("dres", Optional.empty(), Optional.empty()).getProducts();
+        final Products limited = productService.searchProducts("dress ", Optional.empty(), Optional.of(1)).getProducts();
+
+        assertEquals(List.of("large", "small", "gown"), productIds(products), "Ids should match");
+        assertEquals(List.of("large"), productIds(limited), "Ids should match");
+        assertThrows(SearchQueryNotValidException.class,
+                () -> productService.searchProducts(" ", Optional.empty(), Optional.empty()));
+    }
+
+    @Test
+    @DisplayName("Search products async should return the products of the blocking search")
+    void searchProductsAsyncShouldReturnTheProductsOfTheBlockingSearch() throws Exception {
+        when(externalProductApiClient.getProducts()).thenReturn(ExternalProducts.builder()
+                .products(List.of(titledProduct("small", "2.00", "Blue Dress"),
+                        titledProduct("large", "5.00", "Red Dress"),
+                        titledProduct("shirt", "4.00", "Shirt")))
+                .build());
+
+        final Products products = productService.searchProductsAsync("dress", Optional.empty(), Optional.of(1)).get()
+                .getProducts();
+
+        assertEquals(List.of("large"), productIds(products), "Ids should match");
+        assertThrows(SearchQueryNotValidException.class,
+                () -> productService.searchProductsAsync(" ", Optional.empty(), Optional.empty()));
+    }
+
+    @Test
+    @DisplayName("Get product should return the product of the id rendered for the label type")
+    void getProductShouldReturnTheProductOfTheIdRenderedForTheLabelType() {
+        when(externalProductApiClient.getProducts()).thenReturn(ExternalProducts.builder()
+                .products(List.of(reducedProduct("first", "4.00"), reducedProduct("second", "3.00")))
+                .build());
+
+        final Product product = productService.getProduct("second", Optional.of(PriceLabelType.SHOW_PERC_DISCOUNT));
+
+        assertEquals("second", product.getProductId(), "Id should match");
+        assertEquals("66% off - now £1.00", product.getPriceLabel(), "Price label should match");
+        assertThrows(ProductNotFoundException.class, () -> productService.getProduct("missing", Optional.empty()));
+    }
+
+    @Test
+    @DisplayName("Batch get products should return products of the ids in their order and skip unknown ids")
+    void batchGetProductsShouldReturnProductsOfTheIdsInTheirOrderAndSkipUnknownIds() {
+        final CatalogProperties catalogProperties = new CatalogProperties();
+        catalogProperties.setMaxBatchGetIds(4);
+        productService = createProductService(catalogProperties);
+        when(externalProductApiClient.getProducts()).thenReturn(ExternalProducts.builder()
+                .products(List.of(reducedProduct("first", "4.00"), reducedProduct("second", "3.00")))
+                .build());
+
+        final Products products = productService.batchGetProducts(Arrays.asList("second", "missing", null, "first"),
+                Optional.empty()).getProducts();
+
+        assertEquals(List.of("second", "first"), productIds(products), "Ids should match");
+        assertThrows(BatchGetRequestNotValidException.class,
+                () -> productService.batchGetProducts(List.of("1", "2", "3", "4", "5"), Optional.empty()));
+        assertThrows(BatchGetRequestNotValidException.class,
+                () -> productService.batchGetProducts(Collections.emptyList(), Optional.empty()));
+    }
+
+    @Test
+    @DisplayName("Get product and batch get products async should return the products of the blocking calls")
+    void getProductAndBatchGetProductsAsyncShouldReturnTheProductsOfTheBlockingCalls() throws Exception {
+        when(externalProductApiClient.getProducts()).thenReturn(ExternalProducts.builder()
+                .products(List.of(reducedProduct("first", "4.00"), reducedProduct("second", "3.00")))
+                .build());
+
+        final Product product = productService.getProductAsync("second", Optional.of(PriceLabelType.SHOW_PERC_DISCOUNT))
+                .get();
+        final Products products = productService.batchGetProductsAsync(List.of("second", "missing", "first"),
+                Optional.empty()).get().getProducts();
+        final ExecutionException notFound = assertThrows(ExecutionException.class,
+                () -> productService.getProductAsync("missing", Optional.empty()).get());
+
+        assertEquals("66% off - now £1.00", product.getPriceLabel(), "Price label should match");
+        assertEquals(List.of("second", "first"), productIds(products), "Ids should match");
+        assertEquals(ProductNotFoundException.class, notFound.getCause().getClass(), "Cause should match");
+        assertThrows(BatchGetRequestNotValidException.class,
+                () -> productService.batchGetProductsAsync(Collections.emptyList(), Optional.empty()));
+    }
+
+    @Test
+    @DisplayName("Get products view with cursor should return page of the catalog version the cursor was issued for")
+    void getProductsViewWithCursorShouldReturnPageOfTheCatalogVersionTheCursorWasIssuedFor() {
+        final CatalogProperties catalogProperties = new CatalogProperties();
+        catalogProperties.setTtl(Duration.ZERO);
+        productService = createProductService(catalogProperties);
+        when(externalProductApiClient.getProducts())
+                .thenReturn(ExternalProducts.builder().products(List.of(reducedProduct("first", "4.00"), reducedProduct("second", "3.00"))).build())
+                .thenReturn(ExternalProducts.builder().products(List.of(reducedProduct("new", "9.00"))).build());
+
+        final Products firstPage = productService.getProductsView(Optional.empty(), Optional.of(1), Optional.empty()).getProducts();
+        productService.refreshCatalog();
+        final Products secondPage = productService.getProductsView(Optional.empty(), Optional.of(1),
+                Optional.of(firstPage.getNextCursor())).getProducts();
+
+        assertEquals(List.of("second"), productIds(secondPage), "Ids should match");
+    }
+
+    @Test
+    @DisplayName("Get products view when cursor version is no longer retained should throw catalog version expired exception")
+    void getProductsViewWhenCursorVersionIsNoLongerRetainedShouldThrowCatalogVersionExpiredException() {
+        final CatalogProperties catalogProperties = new CatalogProperties();
+        catalogProperties.setRetainedVersions(1);
+        productService = createProductService(catalogProperties);
+        when(externalProductApiClient.getProducts()).thenReturn(ExternalProducts.builder()
+                .products(List.of(reducedProduct("first", "4.00"), reducedProduct("second", "3.00")))
+                .build());
+
+        final String nextCursor = productService.getProductsView(Optional.empty(), Optional.of(1), Optional.empty())
+                .getProducts().getNextCursor();
+        productService.refreshCatalog();
+
+        assertThrows(CatalogVersionExpiredException.class, () -> {
+            productService.getProductsView(Optional.empty(), Optional.of(1), Optional.of(nextCursor));
+        });
+    }
+
+    @Test
+    @DisplayName("Get products view when limit or cursor is not valid should throw page request not valid exception")
+    void getProductsViewWhenLimitOrCursorIsNotValidShouldThrowPageRequestNotValidException() {
+        assertThrows(PageRequestNotValidException.class, () -> {
+            productService.getProductsView(Optional.empty(), Optional.of(0), Optional.empty());
+        });
+        assertThrows(PageRequestNotValidException.class, () -> {
+            productService.getProductsView(Optional.empty(), Optional.of(1), Optional.of("not a cursor"));
+        });
+    }
+
+    @Test
+    @DisplayName("Get products view should return etag that changes with label type and content only")
+    void getProductsViewShouldReturnEtagThatChangesWithLabelTypeAndContentOnly() {
+        final CatalogProperties catalogProperties = new CatalogProperties();
+        catalogProperties.setTtl(Duration.ZERO);
+        productService = createProductService(catalogProperties);
+        when(externalProductApiClient.getProducts())
+                .thenReturn(ExternalProducts.builder().products(List.of(reducedProduct("first", "4.00"))).build())
+                .thenReturn(ExternalProducts.builder().products(List.of(reducedProduct("first", "4.00"))).build())
+                .thenReturn(ExternalProducts.builder().products(List.of(reducedProduct("first", "4.00"))).build())
+                .thenReturn(ExternalProducts.builder().products(List.of(reducedProduct("first", "5.00"))).build());
+
+        final String etag = productService.getProductsView(Optional.empty()).getEtag();
+        final String etagOfSameContent = productService.getProductsView(Optional.empty()).getEtag();
+        final String etagOfOtherLabelType = productService.getProductsView(Optional.of(PriceLabelType.SHOW_PERC_DISCOUNT)).getEtag();
+        final String etagOfChangedContent = productService.getProductsView(Optional.empty()).getEtag();
+
+        assertEquals(etag, etagOfSameContent, "Etag should match");
+        assertNotEquals(etag, etagOfOtherLabelType, "Etag should not match");
+        assertNotEquals(etag, etagOfChangedContent, "Etag should not match");
+    }
+
+    @Test
+    @DisplayName("Get products should count requests per label type and record catalog size")
+    void getProductsShouldCountRequestsPerLabelTypeAndRecordCatalogSize() {
+        when(externalProductApiClient.getProducts()).thenReturn(ExternalProducts.builder()
+                .products(List.of(reducedProduct("first", "5.00"), reducedProduct("second", "3.00")))
+                .receivedCount(5)
+                .build());
+
+        productService.getProducts(Optional.empty());
+        productService.getProducts(Optional.of(PriceLabelType.SHOW_PERC_DISCOUNT));
+        productService.getProducts(Optional.of(PriceLabelType.SHOW_PERC_DISCOUNT));
+
+        assertEquals(1, meterRegistry.get(ProductMetrics.REQUESTS).tag("labelType", "ShowWasNow").counter().count(),
+                "ShowWasNow requests should match");
+        assertEquals(2, meterRegistry.get(ProductMetrics.REQUESTS).tag("labelType", "ShowPercDiscount").counter().count(),
+                "ShowPercDiscount requests should match");
+        assertEquals(5, meterRegistry.get(ProductMetrics.CATALOG_PRODUCTS_IN).gauge().value(), "Products in should match");
+        assertEquals(2, meterRegistry.get(ProductMetrics.CATALOG_PRODUCTS_OUT).gauge().value(), "Products out should match");
+        assertEquals(1, meterRegistry.get(ProductMetrics.UPSTREAM_REQUESTS).tag("outcome", "success").timer().count(),
+                "Upstream successes should match");
+        assertEquals(1, meterRegistry.get(ProductMetrics.CATALOG_REFRESH_CALLS).functionCounter().count(),
+                "Refresh calls should match");
+    }
+
+    @Test
+    @DisplayName("Get products when client throws exception should time upstream call as error")
+    void getProductsWhenClientThrowsExceptionShouldTimeUpstreamCallAsError() {
+        when(externalProductApiClient.getProducts()).thenThrow(RuntimeException.class);
+
+        assertThrows(ProductServiceException.class, () -> productService.getProducts(Optional.empty()));
+
+        assertEquals(1, meterRegistry.get(ProductMetrics.UPSTREAM_REQUESTS).tag("outcome", "error").timer().count(),
+                "Upstream errors should match");
+        assertEquals(0, meterRegistry.get(ProductMetrics.UPSTREAM_REQUESTS).tag("outcome", "success").timer().count(),
+                "Upstream successes should match");
+    }
+
+    @Test
+    @DisplayName("Get products view when a fetched product can not be mapped should serve the previous catalog")
+    void getProductsViewWhenAFetchedProductCanNotBeMappedShouldServeThePreviousCatalog() throws Exception {
+        final CatalogProperties catalogProperties = new CatalogProperties();
+        catalogProperties.setTtl(Duration.ZERO);
+        productService = createProductService(catalogProperties);
+        final ExternalProduct unmappable = reducedProduct("unmappable", "4.00");
+        unmappable.setColorSwatches(List.of(ExternalColorSwatch.builder().color("Teal").basicColor("Teal").build()));
+        when(externalProductApiClient.getProducts())
+                .thenReturn(ExternalProducts.builder().products(List.of(reducedProduct("first", "5.00"))).build())
+                .thenReturn(ExternalProducts.builder().products(List.of(unmappable)).build());
+
+        final ProductsView fetched = productService.getProductsView(Optional.empty());
+        final ProductsView served = productService.getProductsView(Optional.empty());
+        final ProductsView servedAsync = productService.getProductsViewAsync(Optional.empty(), Optional.empty(),
+                Optional.empty()).get();
+
+        assertEquals(fetched.getEtag(), served.getEtag(), "Etag should match");
+        assertEquals(fetched.getEtag(), servedAsync.getEtag(), "Etag should match");
+    }
+
+    @Test
+    @DisplayName("Get products when a fetched product can not be mapped and nothing was fetched before should throw product service exception")
+    void getProductsWhenAFetchedProductCanNotBeMappedAndNothingWasFetchedBeforeShouldThrowProductServiceException() {
+        final ExternalProduct unmappable = reducedProduct("unmappable", "4.00");
+        unmappable.setColorSwatches(List.of(ExternalColorSwatch.builder().color("Teal").basicColor("Teal").build()));
+        when(externalProductApiClient.getProducts())
+                .thenReturn(ExternalProducts.builder().products(List.of(unmappable)).build());
+
+        assertThrows(ProductServiceException.class, () -> productService.getProducts(Optional.empty()));
+    }
+
+    @Test
+    @DisplayName("Get products view when only some products changed should reuse the JSON of the unchanged ones")
+    void getProductsViewWhenOnlySomeProductsChangedShouldReuseTheJsonOfTheUnchangedOnes() throws Exception {
+        final CatalogProperties catalogProperties = new CatalogProperties();
+        catalogProperties.setTtl(Duration.ZERO);
+        meterRegistry = new SimpleMeterRegistry();
+        productService = createProductService(catalogProperties);
+        when(externalProductApiClient.getProducts())
+                .thenReturn(ExternalProducts.builder().products(List.of(reducedProduct("unchanged", "5.00"),
+                        reducedProduct("changed", "4.00"), reducedProduct("removed", "3.00"))).build())
+                .thenReturn(ExternalProducts.builder().products(List.of(reducedProduct("unchanged", "5.00"),
+                        reducedProduct("changed", "9.00"), reducedProduct("added", "2.00"))).build());
+
+        final Products first = productService.getProducts(Optional.empty());
+        final ProductsView second = productService.getProductsView(Optional.empty());
+
+        assertEquals(List.of("changed", "unchanged", "added"), productIds(second.getProducts()), "Ids should match");
+        assertEquals(first.getProducts().get(0), second.getProducts().getProducts().get(1), "Product should match");
+        assertArrayEquals(new ObjectMapper().writeValueAsBytes(second.getProducts()), second.getJson(), "Json should match");
+        assertEquals(1, meterRegistry.get(ProductMetrics.CATALOG_REFRESH_PRODUCTS).tag("change", "unchanged").counter().count(),
+                "Unchanged products should match");
+        assertEquals(1, meterRegistry.get(ProductMetrics.CATALOG_REFRESH_PRODUCTS).tag("change", "removed").counter().count(),
+                "Removed products should match");
+        assertEquals(1.0 / 3, meterRegistry.get(ProductMetrics.CATALOG_REFRESH_UNCHANGED_RATIO).gauge().value(), 1e-9,
+                "Unchanged ratio should match");
+    }
+
+    @Test
+    @DisplayName("Get products view should write the same JSON as the object mapper for every label type")
+    void getProductsViewShouldWriteTheSameJsonAsTheObjectMapperForEveryLabelType() throws Exception {
+        final ExternalProduct product = reducedProduct("first", "5.00");
+        product.setTitle("Dress \"Été\"");
+        product.getPrice().setThen("3.00");
+        product.setColorSwatches(List.of(ExternalColorSwatch.builder().color("Red").basicColor("Red").skuId("1").build(),
+                ExternalColorSwatch.builder().basicColor("Multi").build()));
+        when(externalProductApiClient.getProducts()).thenReturn(ExternalProducts.builder()
+                .products(List.of(product, reducedProduct("second", "2.00")))
+                .build());
+
+        for (final PriceLabelType priceLabelType : PriceLabelType.values()) {
+            final ProductsView view = productService.getProductsView(Optional.of(priceLabelType));
+
+            assertArrayEquals(new ObjectMapper().writeValueAsBytes(view.getProducts()), view.getJson(),
+                    "Json should match");
+        }
+    }
+
+    @Test
+    @DisplayName("Get products view page, search and batch get should copy the same JSON as the object mapper writes")
+    void getProductsViewPageSearchAndBatchGetShouldCopyTheSameJsonAsTheObjectMapperWrites() throws Exception {
+        final ExternalProduct product = titledProduct("first", "5.00", "Dress \"Été\"");
+        product.getPrice().setThen("3.00");
+        product.setColorSwatches(List.of(ExternalColorSwatch.builder().color("Red").basicColor("Red").skuId("1").build()));
+        when(externalProductApiClient.getProducts()).thenReturn(ExternalProducts.builder()
+                .products(List.of(product, titledProduct("second", "3.00", "Red Dress"),
+                        titledProduct("third", "2.00", "Shirt")))
+                .build());
+        final ProductFilter filter = ProductFilter.builder().minReduction(150L).build();
+
+        final List<ProductsView> views = List.of(
+                productService.getProductsView(Optional.of(PriceLabelType.SHOW_WAS_THEN_NOW), Optional.of(2),
+                        Optional.empty()),
+                productService.getProductsView(Optional.empty(), filter, Optional.of(1), Optional.empty()),
+                productService.getProductsView(Optional.empty(), filter, Optional.empty(), Optional.empty()),
+                productService.searchProducts("dress", Optional.of(PriceLabelType.SHOW_PERC_DISCOUNT), Optional.empty()),
+                productService.batchGetProducts(List.of("third", "first"), Optional.empty()));
+
+        for (final ProductsView view : views) {
+            assertArrayEquals(new ObjectMapper().writeValueAsBytes(view.getProducts()), view.getJson(),
+                    "Json should match");
+        }
+    }
+
+    @Test
+    @DisplayName("Get products view when catalog was saved should serve the restored catalog while the client fails")
+    void getProductsViewWhenCatalogWasSavedShouldServeTheRestoredCatalogWhileTheClientFails() throws Exception {
+        final Path directory = Files.createTempDirectory("product-service-test");
+        final Path snapshotFile = directory.resolve("catalog.bin");
+        final CatalogProperties catalogProperties = new CatalogProperties();
+        catalogProperties.setSnapshotFile(snapshotFile.toString());
+        when(externalProductApiClient.getProducts()).thenReturn(ExternalProducts.builder()
+                .products(List.of(reducedProduct("first", "5.00"), reducedProduct("second", "3.00")))
+                .build())
+                .thenThrow(RuntimeException.class);
+
+        try {
+            final ProductsView fetched = createProductService(catalogProperties).getProductsView(Optional.empty());
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!Files.exists(snapshotFile) && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            final ProductService restoredService = createProductService(catalogProperties);
+            final ProductsView restored = restoredService.getProductsView(Optional.empty());
+            final ProductsView restoredPage = restoredService.getProductsView(Optional.empty(), Optional.of(1),
+                    Optional.empty());
+
+            assertEquals(fetched.getProducts(), restored.getProducts(), "Products should match");
+            assertEquals(fetched.getEtag(), restored.getEtag(), "Etag should match");
+            assertArrayEquals(new ObjectMapper().writeValueAsBytes(restoredPage.getProducts()), restoredPage.getJson(),
+                    "Json should match");
+        } finally {
+            Files.deleteIfExists(snapshotFile);
+            Files.delete(directory);
+        }
+    }
+
+    private ProductService createProductService(final CatalogProperties catalogProperties) {
+        return new ProductService(externalProductApiClient,
+                new ExecutorAsyncExternalProductApiClient(externalProductApiClient, new ServingProperties()),
+                catalogProperties, new ObjectMapper(), new PriceFormatter(), new ProductMetrics(meterRegistry),
+                new UpstreamResilience(new UpstreamProperties(), meterRegistry));
+    }
+
+    private static ExternalProduct reducedProduct(final String productId, final String wasPrice) {
+        return ExternalProduct.builder()
+                .productId(productId)
+                .price(ExternalPrice.builder()
+                        .now(new TextNode("1.00"))
+                        .was(wasPrice)
+                        .currency("GBP")
+                        .build())
+                .colorSwatches(Collections.emptyList())
+                .build();
+    }
+
+    private static ExternalProduct titledProduct(final String productId, final String wasPrice, final String title) {
+        return ExternalProduct.builder()
+                .productId(productId)
+                .title(title)
+                .price(ExternalPrice.builder()
+                        .now(new TextNode("1.00"))
+                        .was(wasPrice)
+                        .currency("GBP")
+                        .build())
+                .colorSwatches(Collections.emptyList())
+                .build();
+    }
+
+    private static List<String> productIds(final Products products) {
+        return products.getProducts().stream().map(Product::getProductId).collect(Collectors.toList());
+    }
+}
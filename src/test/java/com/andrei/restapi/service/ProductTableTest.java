@@ -0,0 +1,153 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.model.BasicColor;
+import com.andrei.restapi.model.ColorSwatch;
+import com.andrei.restapi.model.PriceLabelType;
+import com.andrei.restapi.model.Product;
+import com.andrei.restapi.model.external.ExternalColorSwatch;
+import com.andrei.restapi.model.external.ExternalPrice;
+import com.andrei.restapi.model.external.ExternalProduct;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link ProductTable}.
+ */
+class ProductTableTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Of should store prices, reductions, discounts and color swatches of each row")
+    void ofShouldStorePricesReductionsDiscountsAndColorSwatchesOfEachRow() {
+        final ProductTable table = table(product("first", "Dress", "20.00", "15.00",
+                swatch("Red", "Red", "1"), swatch("Blue", "BLUE", "2")), product("second", null, "3.00", ""));
+
+        assertEquals(2, table.size(), "Size should match");
+        assertEquals("first", table.getProductId(0), "Id should match");
+        assertEquals("Dress", table.getTitle(0), "Title should match");
+        assertEquals(1000, table.getReduction(0), "Reduction should match");
+        assertEquals(50, table.getPercentDiscount(0), "Percent discount should match");
+        assertEquals(1000, table.getNowPrice(0), "Now price should match");
+        assertEquals(2, table.getColorSwatchCount(0), "Color swatch count should match");
+        assertEquals(BasicColor.BLUE, table.getBasicColor(0, 1), "Basic color should match");
+        assertNull(table.getTitle(1), "Title should be null");
+        assertEquals(0, table.getColorSwatchCount(1), "Color swatch count should match");
+    }
+
+    @Test
+    @DisplayName("Get product should render the price label of the label type")
+    void getProductShouldRenderThePriceLabelOfTheLabelType() {
+        final ProductTable table = table(product("first", "Dress", "20.00", "15.00", swatch("Red", "Red", "1")));
+
+        final Product product = table.getProduct(0, PriceLabelType.SHOW_WAS_THEN_NOW);
+
+        assertEquals("first", product.getProductId(), "Id should match");
+        assertEquals(List.of(ColorSwatch.builder().color("Red").rgbColor("FF0000").skuid("1").build()),
+                product.getColorSwatches(), "Color swatches should match");
+        assertEquals("£10", product.getNowPrice(), "Now price should match");
+        assertEquals("Was £20, then £15, now £10", product.getPriceLabel(), "Price label should match");
+        assertEquals("50% off - now £10", table.getProduct(0, PriceLabelType.SHOW_PERC_DISCOUNT).getPriceLabel(),
+                "Price label should match");
+        assertEquals(List.of(product), table.getProducts(PriceLabelType.SHOW_WAS_THEN_NOW), "Products should match");
+    }
+
+    @Test
+    @DisplayName("Write product should write the same JSON as the object mapper")
+    void writeProductShouldWriteTheSameJsonAsTheObjectMapper() throws Exception {
+        final ProductTable table = table(product("first", "Robe \"été\"", "20.00", "",
+                swatch(null, "Multi", null), swatch("Red", "Red", "1")));
+
+        for (final PriceLabelType priceLabelType : PriceLabelType.values()) {
+            final ByteArrayOutputStream json = new ByteArrayOutputStream();
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(json)) {
+                table.writeProduct(generator, 0, priceLabelType);
+            }
+
+            assertArrayEquals(objectMapper.writeValueAsBytes(table.getProduct(0, priceLabelType)), json.toByteArray(),
+                    "Json should match");
+        }
+    }
+
+    @Test
+    @DisplayName("Of when was price is zero should store a zero percent discount")
+    void ofWhenWasPriceIsZeroShouldStoreAZeroPercentDiscount() {
+        final ProductTable table = table(product("first", "Dress", "0", ""));
+
+        assertEquals(1, table.size(), "Size should match");
+        assertEquals(-1000, table.getReduction(0), "Reduction should match");
+        assertEquals(0, table.getPercentDiscount(0), "Percent discount should match");
+        assertEquals("0% off - now £10", table.getProduct(0, PriceLabelType.SHOW_PERC_DISCOUNT).getPriceLabel(),
+                "Price label should match");
+    }
+
+    @Test
+    @DisplayName("Builder should grow columns past the initial estimate and size a table after a previous one")
+    void builderShouldGrowColumnsPastTheInitialEstimateAndSizeATableAfterAPreviousOne() {
+        final List<PricedProduct> pricedProducts = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            final ExternalProduct product = product("id" + i, "A rather long product title " + i, "20.00", "",
+                    swatch("Red", "Red", "sku" + i), swatch("Blue", "Blue", "sku-" + i), swatch(null, "Multi", null));
+            pricedProducts.add(new PricedProduct(product, PriceFacts.of(product.getPrice())));
+        }
+        final ProductTable table = ProductTable.of(pricedProducts, new PriceFormatter());
+
+        final ProductTable.Builder builder = ProductTable.builder(table.size(), new PriceFormatter(), table);
+        for (int row = 0; row < table.size(); row++) {
+            builder.add(table, row);
+        }
+        final ProductTable copy = builder.build();
+
+        assertEquals("A rather long product title 49", table.getTitle(49), "Title should match");
+        assertEquals("sku-49", table.getSkuId(49, 1), "Sku id should match");
+        assertEquals(table.getProducts(PriceLabelType.SHOW_WAS_NOW), copy.getProducts(PriceLabelType.SHOW_WAS_NOW),
+                "Products should match");
+    }
+
+    @Test
+    @DisplayName("Of when basic color is not valid should throw illegal argument exception")
+    void ofWhenBasicColorIsNotValidShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> table(product("first", "Dress", "20.00", "", swatch("Teal", "Teal", "1"))));
+    }
+
+    private static ProductTable table(final ExternalProduct... products) {
+        final List<PricedProduct> pricedProducts = new ArrayList<>();
+        for (final ExternalProduct product : products) {
+            pricedProducts.add(new PricedProduct(product, PriceFacts.of(product.getPrice())));
+        }
+        return ProductTable.of(pricedProducts, new PriceFormatter());
+    }
+
+    private static ExternalProduct product(final String productId, final String title, final String wasPrice,
+                                           final String thenPrice, final ExternalColorSwatch... colorSwatches) {
+        return ExternalProduct.builder()
+                .productId(productId)
+                .title(title)
+                .price(ExternalPrice.builder()
+                        .was(wasPrice)
+                        .then(thenPrice)
+                        .now(new TextNode("10.00"))
+                        .currency("GBP")
+                        .build())
+                .colorSwatches(colorSwatches.length == 0 ? Collections.emptyList() : List.of(colorSwatches))
+                .build();
+    }
+
+    private static ExternalColorSwatch swatch(final String color, final String basicColor, final String skuId) {
+        return ExternalColorSwatch.builder().color(color).basicColor(basicColor).skuId(skuId).build();
+    }
+}
@@ -0,0 +1,91 @@
+package com.andrei.restapi.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link SingleFlight}.
+ */
+class SingleFlightTest {
+
+    @Test
+    @DisplayName("Execute when call is in flight should share its failure with waiters")
+    void executeWhenCallIsInFlightShouldShareItsFailureWithWaiters() throws Exception {
+        final SingleFlight<String> singleFlight = new SingleFlight<>();
+        final ProductServiceException failure = new ProductServiceException("failure", null);
+        final CountDownLatch callStarted = new CountDownLatch(1);
+        final CountDownLatch releaseCall = new CountDownLatch(1);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<String> leader = executor.submit(() -> singleFlight.execute(() -> {
+                callStarted.countDown();
+                await(releaseCall);
+                throw failure;
+            }));
+            callStarted.await();
+            final Future<String> waiter = executor.submit(() -> singleFlight.execute(() -> "not called"));
+            while (singleFlight.getWaiting() < 1) {
+                Thread.onSpinWait();
+            }
+            releaseCall.countDown();
+
+            assertSame(failure, assertThrows(ExecutionException.class, leader::get).getCause(), "Failure should match");
+            assertSame(failure, assertThrows(ExecutionException.class, waiter::get).getCause(), "Failure should match");
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, singleFlight.getCalls(), "Calls should match");
+        assertEquals(1, singleFlight.getCoalescedWaiters(), "Coalesced waiters should match");
+    }
+
+    @Test
+    @DisplayName("Execute when no call is in flight should run a new call")
+    void executeWhenNoCallIsInFlightShouldRunANewCall() {
+        final SingleFlight<String> singleFlight = new SingleFlight<>();
+
+        assertEquals("first", singleFlight.execute(() -> "first"), "Result should match");
+        assertEquals("second", singleFlight.execute(() -> "second"), "Result should match");
+        assertEquals(2, singleFlight.getCalls(), "Calls should match");
+        assertEquals(0, singleFlight.getCoalescedWaiters(), "Coalesced waiters should match");
+    }
+
+    @Test
+    @DisplayName("Execute async when call is in flight should count the caller as waiting until the call completes")
+    void executeAsyncWhenCallIsInFlightShouldCountTheCallerAsWaitingUntilTheCallCompletes() {
+        final SingleFlight<String> singleFlight = new SingleFlight<>();
+        final CompletableFuture<String> call = new CompletableFuture<>();
+
+        final CompletableFuture<String> leader = singleFlight.executeAsync(() -> call);
+        final CompletableFuture<String> waiter = singleFlight.executeAsync(() -> CompletableFuture.completedFuture("not called"));
+        assertEquals(1, singleFlight.getWaiting(), "Waiting should match");
+
+        call.complete("result");
+
+        assertEquals("result", leader.join(), "Result should match");
+        assertEquals("result", waiter.join(), "Result should match");
+        assertEquals(0, singleFlight.getWaiting(), "Waiting should match");
+        assertEquals(1, singleFlight.getCalls(), "Calls should match");
+        assertEquals(1, singleFlight.getCoalescedWaiters(), "Coalesced waiters should match");
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.andrei.restapi.service;
+
+import com.andrei.restapi.configuration.UpstreamProperties;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link UpstreamResilience}.
+ */
+class UpstreamResilienceTest {
+
+    private UpstreamProperties upstreamProperties;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        upstreamProperties = new UpstreamProperties();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Execute when failure rate is exceeded should fail fast without calling the API")
+    void executeWhenFailureRateIsExceededShouldFailFastWithoutCallingTheAPI() {
+        upstreamProperties.getCircuitBreaker().setSlidingWindowSize(2);
+        upstreamProperties.getCircuitBreaker().setMinimumNumberOfCalls(2);
+        final UpstreamResilience upstreamResilience = new UpstreamResilience(upstreamProperties, meterRegistry);
+        final AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(IllegalStateException.class, () -> upstreamResilience.execute(() -> {
+                calls.incrementAndGet();
+                throw new IllegalStateException("failure");
+            }));
+        }
+
+        assertThrows(CallNotPermittedException.class, () -> upstreamResilience.execute(calls::incrementAndGet));
+        assertEquals(2, calls.get(), "Calls should match");
+        assertEquals(CircuitBreaker.State.OPEN, upstreamResilience.getCircuitBreaker().getState(), "State should match");
+    }
+
+    @Test
+    @DisplayName("Execute when call throws an error should release the bulkhead permit and record the failure")
+    void executeWhenCallThrowsAnErrorShouldReleaseTheBulkheadPermitAndRecordTheFailure() {
+        upstreamProperties.getBulkhead().setMaxConcurrentCalls(1);
+        final UpstreamResilience upstreamResilience = new UpstreamResilience(upstreamProperties, meterRegistry);
+
+        assertThrows(AssertionError.class, () -> upstreamResilience.execute(() -> {
+            throw new AssertionError("failure");
+        }));
+        assertEquals(AssertionError.class, assertThrows(CompletionException.class, () -> upstreamResilience.executeAsync(() -> {
+            throw new AssertionError("failure");
+        }).join()).getCause().getClass(), "Failure should match");
+
+        assertEquals("next", upstreamResilience.execute(() -> "next"), "Result should match");
+        assertEquals(2, upstreamResilience.getCircuitBreaker().getMetrics().getNumberOfFailedCalls(),
+                "Failed calls should match");
+    }
+
+    @Test
+    @DisplayName("Execute async when bulkhead is full should reject the call")
+    void executeAsyncWhenBulkheadIsFullShouldRejectTheCall() {
+        upstreamProperties.getBulkhead().setMaxConcurrentCalls(1);
+        final UpstreamResilience upstreamResilience = new UpstreamResilience(upstreamProperties, meterRegistry);
+        final CompletableFuture<String> inFlight = new CompletableFuture<>();
+
+        final CompletableFuture<String> first = upstreamResilience.executeAsync(() -> inFlight);
+        final CompletableFuture<String> rejected = upstreamResilience.executeAsync(() -> CompletableFuture.completedFuture("second"));
+        inFlight.complete("first");
+
+        assertEquals("first", first.join(), "Result should match");
+        assertEquals(BulkheadFullException.class,
+                assertThrows(CompletionException.class, rejected::join).getCause().getClass(), "Failure should match");
+        assertEquals("third", upstreamResilience.executeAsync(() -> CompletableFuture.completedFuture("third")).join(),
+                "Result should match");
+    }
+
+    @Test
+    @DisplayName("Execute async when hedging and first call is slow should return the result of the hedged call")
+    void executeAsyncWhenHedgingAndFirstCallIsSlowShouldReturnTheResultOfTheHedgedCall() {
+        upstreamProperties.getHedge().setEnabled(true);
+        upstreamProperties.getHedge().setInitialDelay(Duration.ofMillis(10));
+        final UpstreamResilience upstreamResilience = new UpstreamResilience(upstreamProperties, meterRegistry);
+        final List<CompletableFuture<String>> responses = List.of(new CompletableFuture<>(),
+                CompletableFuture.completedFuture("hedged"));
+        final AtomicInteger calls = new AtomicInteger();
+
+        final String result = upstreamResilience.executeAsync(() -> responses.get(calls.getAndIncrement())).join();
+
+        assertEquals("hedged", result, "Result should match");
+        assertEquals(2, calls.get(), "Calls should match");
+        assertEquals(1, meterRegistry.get(UpstreamResilience.HEDGES).tag("result", "sent").counter().count(),
+                "Hedges sent should match");
+        assertEquals(1, meterRegistry.get(UpstreamResilience.HEDGES).tag("result", "won").counter().count(),
+                "Hedges won should match");
+    }
+}
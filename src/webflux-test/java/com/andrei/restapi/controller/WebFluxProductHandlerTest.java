@@ -0,0 +1,274 @@
+package com.andrei.restapi.controller;
+
+import com.andrei.restapi.model.BasicColor;
+import com.andrei.restapi.model.PriceLabelType;
+import com.andrei.restapi.model.Product;
+import com.andrei.restapi.model.Products;
+import com.andrei.restapi.service.BatchGetRequestNotValidException;
+import com.andrei.restapi.service.CatalogVersionExpiredException;
+import com.andrei.restapi.service.ProductFilter;
+import com.andrei.restapi.service.ProductMetrics;
+import com.andrei.restapi.service.ProductNotFoundException;
+import com.andrei.restapi.service.ProductService;
+import com.andrei.restapi.service.ProductsView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.reactive.error.ErrorWebFluxAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_COLOR;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_CURSOR;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_LIMIT;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_MAX_NOW_PRICE;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_MIN_DISCOUNT;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_MIN_NOW_PRICE;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_MIN_REDUCTION;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_QUERY;
+import static com.andrei.restapi.controller.ProductController.URL_PRODUCT;
+import static com.andrei.restapi.controller.ProductController.URL_PRODUCTS;
+import static com.andrei.restapi.controller.ProductController.URL_PRODUCTS_BATCH_GET;
+import static com.andrei.restapi.controller.ProductController.URL_PRODUCTS_SEARCH;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link WebFluxProductHandler}, served through the routes of {@link WebFluxProductRouter}. Errors are
+ * counted by {@link ErrorMetricsWebFilter} and handled by the error web exception handler of the application, which
+ * answers by the status of the exception itself.
+ */
+@ExtendWith(SpringExtension.class)
+@WebFluxTest(properties = "serving.mode=webflux")
+@ImportAutoConfiguration(ErrorWebFluxAutoConfiguration.class)
+@Import({WebFluxProductRouter.class, WebFluxProductHandler.class, ErrorMetricsWebFilter.class})
+class WebFluxProductHandlerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private ProductService productService;
+
+    @MockBean
+    private ProductMetrics productMetrics;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Get products should return products with etag")
+    void getProductsShouldReturnProductsWithEtag() throws Exception {
+        final Products products = Products.builder().products(List.of(Product.builder().productId("id").build())).build();
+        when(productService.getProductsViewAsync(Optional.empty(), ProductFilter.NONE, Optional.empty(), Optional.empty()))
+                .thenReturn(CompletableFuture.completedFuture(toView(products, "\"etag\"")));
+
+        final byte[] body = webTestClient.get().uri(URL_PRODUCTS)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"etag\"")
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .expectBody().returnResult().getResponseBody();
+
+        assertEquals(products, objectMapper.readValue(body, Products.class), "Products should match");
+    }
+
+    @Test
+    @DisplayName("Get products when if none match matches etag should return not modified status with etag")
+    void getProductsWhenIfNoneMatchMatchesEtagShouldReturnNotModifiedStatusWithEtag() throws Exception {
+        final Products products = Products.builder().products(List.of()).build();
+        when(productService.getProductsViewAsync(Optional.empty(), ProductFilter.NONE, Optional.empty(), Optional.empty()))
+                .thenReturn(CompletableFuture.completedFuture(toView(products, "\"etag\"")));
+
+        webTestClient.get().uri(URL_PRODUCTS)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"etag\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"etag\"")
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    @DisplayName("Get products when gzip is accepted should return precompressed body with gzip etag")
+    void getProductsWhenGzipIsAcceptedShouldReturnPrecompressedBodyWithGzipEtag() throws Exception {
+        final Products products = Products.builder().products(List.of()).build();
+        final byte[] gzipJson = {31, -117, 8, 0};
+        when(productService.getProductsViewAsync(Optional.empty(), ProductFilter.NONE, Optional.empty(), Optional.empty()))
+                .thenReturn(CompletableFuture.completedFuture(ProductsView.builder()
+                        .products(products)
+                        .json(objectMapper.writeValueAsBytes(products))
+                        .etag("\"etag\"")
+                        .gzipJson(gzipJson)
+                        .gzipEtag("\"etag-gzip\"")
+                        .build()));
+
+        final byte[] body = webTestClient.get().uri(URL_PRODUCTS)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"etag-gzip\"")
+                .expectBody().returnResult().getResponseBody();
+
+        assertArrayEquals(gzipJson, body, "Body should match");
+    }
+
+    @Test
+    @DisplayName("Get products when filters are specified should pass the filter to the service and return filtered products")
+    void getProductsWhenFiltersAreSpecifiedShouldPassTheFilterToTheServiceAndReturnFilteredProducts() throws Exception {
+        final Products products = Products.builder().products(List.of(Product.builder().productId("id").build())).build();
+        final ProductFilter filter = ProductFilter.builder()
+                .color(BasicColor.RED)
+                .minDiscount(20)
+                .minReduction(500L)
+                .minNowPrice(999L)
+                .maxNowPrice(5000L)
+                .build();
+        when(productService.getProductsViewAsync(Optional.empty(), filter, Optional.empty(), Optional.empty()))
+                .thenReturn(CompletableFuture.completedFuture(toView(products, null)));
+
+        final byte[] body = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(URL_PRODUCTS)
+                        .queryParam(QUERY_PARAM_COLOR, "red")
+                        .queryParam(QUERY_PARAM_MIN_DISCOUNT, "20")
+                        .queryParam(QUERY_PARAM_MIN_REDUCTION, "5")
+                        .queryParam(QUERY_PARAM_MIN_NOW_PRICE, "9.99")
+                        .queryParam(QUERY_PARAM_MAX_NOW_PRICE, "50.00")
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult().getResponseBody();
+
+        assertEquals(products, objectMapper.readValue(body, Products.class), "Products should match");
+    }
+
+    @Test
+    @DisplayName("Get products when a filter or limit is invalid should return bad request status")
+    void getProductsWhenAFilterOrLimitIsInvalidShouldReturnBadRequestStatus() {
+        webTestClient.get().uri(uriBuilder -> uriBuilder.path(URL_PRODUCTS).queryParam(QUERY_PARAM_COLOR, "teal").build())
+                .exchange()
+                .expectStatus().isBadRequest();
+        webTestClient.get().uri(uriBuilder -> uriBuilder.path(URL_PRODUCTS).queryParam(QUERY_PARAM_MIN_DISCOUNT, "half").build())
+                .exchange()
+                .expectStatus().isBadRequest();
+        webTestClient.get().uri(uriBuilder -> uriBuilder.path(URL_PRODUCTS).queryParam(QUERY_PARAM_LIMIT, "ten").build())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("Get products when catalog version of cursor expired should return gone status")
+    void getProductsWhenCatalogVersionOfCursorExpiredShouldReturnGoneStatus() {
+        when(productService.getProductsViewAsync(Optional.empty(), ProductFilter.NONE, Optional.empty(), Optional.of("cursor")))
+                .thenThrow(new CatalogVersionExpiredException(1));
+
+        webTestClient.get().uri(uriBuilder -> uriBuilder.path(URL_PRODUCTS).queryParam(QUERY_PARAM_CURSOR, "cursor").build())
+                .exchange()
+                .expectStatus().isEqualTo(410);
+    }
+
+    @Test
+    @DisplayName("Search products should return products matching the query")
+    void searchProductsShouldReturnProductsMatchingTheQuery() throws Exception {
+        final Products products = Products.builder().products(List.of(Product.builder().productId("id").title("Red dress").build())).build();
+        when(productService.searchProductsAsync("red dr", Optional.empty(), Optional.of(5)))
+                .thenReturn(CompletableFuture.completedFuture(toView(products, null)));
+
+        final byte[] body = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(URL_PRODUCTS_SEARCH)
+                        .queryParam(QUERY_PARAM_QUERY, "red dr")
+                        .queryParam(QUERY_PARAM_LIMIT, "5")
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult().getResponseBody();
+
+        assertEquals(products, objectMapper.readValue(body, Products.class), "Products should match");
+    }
+
+    @Test
+    @DisplayName("Search products when query is missing should return bad request status")
+    void searchProductsWhenQueryIsMissingShouldReturnBadRequestStatus() {
+        webTestClient.get().uri(URL_PRODUCTS_SEARCH)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("Get product should return the product of the id")
+    void getProductShouldReturnTheProductOfTheId() throws Exception {
+        final Product product = Product.builder().productId("id").priceLabel("50% off - now £10").build();
+        when(productService.getProductAsync("id", Optional.of(PriceLabelType.SHOW_PERC_DISCOUNT)))
+                .thenReturn(CompletableFuture.completedFuture(product));
+
+        final byte[] body = webTestClient.get().uri(URL_PRODUCT + "?labelType=ShowPercDiscount", "id")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult().getResponseBody();
+
+        assertEquals(product, objectMapper.readValue(body, Product.class), "Product should match");
+    }
+
+    @Test
+    @DisplayName("Get product when future fails with product not found exception should return not found status and count the error")
+    void getProductWhenFutureFailsWithProductNotFoundExceptionShouldReturnNotFoundStatusAndCountTheError() {
+        when(productService.getProductAsync("missing", Optional.empty()))
+                .thenReturn(CompletableFuture.failedFuture(new CompletionException(new ProductNotFoundException("missing"))));
+
+        webTestClient.get().uri(URL_PRODUCT, "missing")
+                .exchange()
+                .expectStatus().isNotFound();
+
+        verify(productMetrics).recordError(any(ProductNotFoundException.class));
+    }
+
+    @Test
+    @DisplayName("Batch get products should return the products of the ids in the request body")
+    void batchGetProductsShouldReturnTheProductsOfTheIdsInTheRequestBody() throws Exception {
+        final Products products = Products.builder().products(List.of(Product.builder().productId("second").build(),
+                Product.builder().productId("first").build())).build();
+        when(productService.batchGetProductsAsync(List.of("second", "first"), Optional.empty()))
+                .thenReturn(CompletableFuture.completedFuture(toView(products, null)));
+
+        final byte[] body = webTestClient.post().uri(URL_PRODUCTS_BATCH_GET)
+                .contentType(MediaType.APPLICATION_JSON)
+                .syncBody("{\"productIds\":[\"second\",\"first\"]}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult().getResponseBody();
+
+        assertEquals(products, objectMapper.readValue(body, Products.class), "Products should match");
+    }
+
+    @Test
+    @DisplayName("Batch get products when ids are not valid should return bad request status")
+    void batchGetProductsWhenIdsAreNotValidShouldReturnBadRequestStatus() {
+        when(productService.batchGetProductsAsync(null, Optional.empty()))
+                .thenThrow(new BatchGetRequestNotValidException("Between 1 and 100 product ids are required"));
+
+        webTestClient.post().uri(URL_PRODUCTS_BATCH_GET)
+                .contentType(MediaType.APPLICATION_JSON)
+                .syncBody("{}")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    private ProductsView toView(final Products products, final String etag) throws Exception {
+        return ProductsView.builder().products(products).json(objectMapper.writeValueAsBytes(products)).etag(etag).build();
+    }
+}
@@ -0,0 +1,30 @@
+package com.andrei.restapi.controller;
+
+import com.andrei.restapi.service.ProductMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Counts exceptions signalled by request handlers in the WebFlux serving mode, like
+ * {@link ErrorMetricsExceptionResolver} does on the servlet stack. The error is passed on unchanged to the error web
+ * exception handler, so the response is unchanged.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ErrorMetricsWebFilter implements WebFilter {
+
+    private final ProductMetrics productMetrics;
+
+    public ErrorMetricsWebFilter(final ProductMetrics productMetrics) {
+        this.productMetrics = productMetrics;
+    }
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+        return chain.filter(exchange).doOnError(productMetrics::recordError);
+    }
+}
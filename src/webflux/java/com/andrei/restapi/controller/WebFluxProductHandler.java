@@ -0,0 +1,162 @@
+package com.andrei.restapi.controller;
+
+import com.andrei.restapi.model.BatchGetProductsRequest;
+import com.andrei.restapi.model.PriceLabelType;
+import com.andrei.restapi.service.ContentEncoding;
+import com.andrei.restapi.service.PageRequestNotValidException;
+import com.andrei.restapi.service.ProductFilter;
+import com.andrei.restapi.service.ProductFilterNotValidException;
+import com.andrei.restapi.service.ProductService;
+import com.andrei.restapi.service.ProductsView;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_COLOR;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_CURSOR;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_LABEL_TYPE;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_LIMIT;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_MAX_NOW_PRICE;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_MIN_DISCOUNT;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_MIN_NOW_PRICE;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_MIN_REDUCTION;
+import static com.andrei.restapi.controller.ProductController.QUERY_PARAM_QUERY;
+
+/**
+ * Handler of the WebFlux product routes. Responds like {@link ProductController} without blocking the event loop: the
+ * catalog is served from the current snapshot or refreshed by the async external API client, as in the async mode.
+ */
+@Component
+@ConditionalOnProperty(name = "serving.mode", havingValue = "webflux")
+public class WebFluxProductHandler {
+
+    private static final String PATH_VARIABLE_PRODUCT_ID = "productId";
+
+    private final ProductService productService;
+
+    public WebFluxProductHandler(final ProductService productService) {
+        this.productService = productService;
+    }
+
+    /**
+     * Get products, responding like {@link ProductController#getProducts} and taking the same filters.
+     */
+    public Mono<ServerResponse> getProducts(final ServerRequest request) {
+        return Mono.defer(() -> fromFuture(productService.getProductsViewAsync(
+                request.queryParam(QUERY_PARAM_LABEL_TYPE).map(PriceLabelType::parse),
+                createFilter(request),
+                request.queryParam(QUERY_PARAM_LIMIT).map(WebFluxProductHandler::parseLimit),
+                request.queryParam(QUERY_PARAM_CURSOR))))
+                .flatMap(productsView -> toResponse(productsView, request.headers().asHttpHeaders()));
+    }
+
+    /**
+     * Search products, responding like {@link ProductController#searchProducts}.
+     */
+    public Mono<ServerResponse> searchProducts(final ServerRequest request) {
+        return Mono.defer(() -> fromFuture(productService.searchProductsAsync(
+                request.queryParam(QUERY_PARAM_QUERY).orElseThrow(() -> new ServerWebInputException(
+                        "Required parameter '" + QUERY_PARAM_QUERY + "' is not present")),
+                request.queryParam(QUERY_PARAM_LABEL_TYPE).map(PriceLabelType::parse),
+                request.queryParam(QUERY_PARAM_LIMIT).map(WebFluxProductHandler::parseLimit))))
+                .flatMap(productsView -> toResponse(productsView, ContentEncoding.IDENTITY));
+    }
+
+    /**
+     * Get one product by id, responding like {@link ProductController#getProduct}.
+     */
+    public Mono<ServerResponse> getProduct(final ServerRequest request) {
+        return Mono.defer(() -> fromFuture(productService.getProductAsync(
+                request.pathVariable(PATH_VARIABLE_PRODUCT_ID),
+                request.queryParam(QUERY_PARAM_LABEL_TYPE).map(PriceLabelType::parse))))
+                .flatMap(product -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .syncBody(product));
+    }
+
+    /**
+     * Get the products of the ids in the request body, responding like {@link ProductController#batchGetProducts}.
+     */
+    public Mono<ServerResponse> batchGetProducts(final ServerRequest request) {
+        return request.bodyToMono(BatchGetProductsRequest.class)
+                .defaultIfEmpty(new BatchGetProductsRequest())
+                .flatMap(batchGetRequest -> fromFuture(productService.batchGetProductsAsync(
+                        batchGetRequest.getProductIds(),
+                        request.queryParam(QUERY_PARAM_LABEL_TYPE).map(PriceLabelType::parse))))
+                .flatMap(productsView -> toResponse(productsView, ContentEncoding.IDENTITY));
+    }
+
+    /**
+     * Adapt a future of the product service, unwrapping the cause of a {@link CompletionException} so service
+     * exceptions are answered with their response status.
+     */
+    private static <T> Mono<T> fromFuture(final CompletableFuture<T> future) {
+        return Mono.fromFuture(future)
+                .onErrorMap(CompletionException.class, e -> e.getCause() != null ? e.getCause() : e);
+    }
+
+    private static Mono<ServerResponse> toResponse(final ProductsView productsView, final HttpHeaders requestHeaders) {
+        final ContentEncoding contentEncoding = ProductsResponses.negotiate(productsView,
+                requestHeaders.getFirst(HttpHeaders.ACCEPT_ENCODING));
+
+        if (ProductsResponses.isNotModified(productsView, contentEncoding, requestHeaders.getIfNoneMatch())) {
+            return ServerResponse.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(productsView.getEtag(contentEncoding))
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        return toResponse(productsView, contentEncoding);
+    }
+
+    private static Mono<ServerResponse> toResponse(final ProductsView productsView,
+                                                   final ContentEncoding contentEncoding) {
+        final String etag = productsView.getEtag(contentEncoding);
+        final ServerResponse.BodyBuilder response = ServerResponse.ok();
+        if (etag != null) {
+            response.eTag(etag).varyBy(HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (contentEncoding != ContentEncoding.IDENTITY) {
+            response.header(HttpHeaders.CONTENT_ENCODING, contentEncoding.getValue());
+        }
+
+        final byte[] body = productsView.getBody(contentEncoding);
+        return response
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .contentLength(body.length)
+                .syncBody(body);
+    }
+
+    private static ProductFilter createFilter(final ServerRequest request) {
+        return ProductController.createFilter(request.queryParam(QUERY_PARAM_COLOR),
+                request.queryParam(QUERY_PARAM_MIN_DISCOUNT).map(WebFluxProductHandler::parseMinDiscount),
+                request.queryParam(QUERY_PARAM_MIN_REDUCTION),
+                request.queryParam(QUERY_PARAM_MIN_NOW_PRICE),
+                request.queryParam(QUERY_PARAM_MAX_NOW_PRICE));
+    }
+
+    private static Integer parseMinDiscount(final String minDiscount) {
+        try {
+            return Integer.valueOf(minDiscount);
+        } catch (final NumberFormatException e) {
+            throw new ProductFilterNotValidException("Minimum discount " + minDiscount + " is not a number");
+        }
+    }
+
+    private static Integer parseLimit(final String limit) {
+        try {
+            return Integer.valueOf(limit);
+        } catch (final NumberFormatException e) {
+            throw new PageRequestNotValidException("Limit " + limit + " is not a number");
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.andrei.restapi.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static com.andrei.restapi.controller.ProductController.URL_PRODUCT;
+import static com.andrei.restapi.controller.ProductController.URL_PRODUCTS;
+import static com.andrei.restapi.controller.ProductController.URL_PRODUCTS_BATCH_GET;
+import static com.andrei.restapi.controller.ProductController.URL_PRODUCTS_SEARCH;
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+
+/**
+ * Functional routes of the WebFlux serving mode, served on Netty. Routes are matched in order, so the search route
+ * precedes the product route like the literal path does in the servlet modes.
+ */
+@Configuration
+@ConditionalOnProperty(name = "serving.mode", havingValue = "webflux")
+public class WebFluxProductRouter {
+
+    @Bean
+    public RouterFunction<ServerResponse> productRoutes(final WebFluxProductHandler webFluxProductHandler) {
+        return RouterFunctions.route(GET(URL_PRODUCTS), webFluxProductHandler::getProducts)
+                .andRoute(GET(URL_PRODUCTS_SEARCH), webFluxProductHandler::searchProducts)
+                .andRoute(GET(URL_PRODUCT), webFluxProductHandler::getProduct)
+                .andRoute(POST(URL_PRODUCTS_BATCH_GET), webFluxProductHandler::batchGetProducts);
+    }
+}